@@ -0,0 +1,67 @@
+package com.josephken.roors.admin.controller;
+
+import com.josephken.roors.common.util.LogCategory;
+import com.josephken.roors.order.dto.OrderExportFormat;
+import com.josephken.roors.order.service.OrderExportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/orders")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('MANAGER')")
+public class OrderExportController {
+
+    private static final int GZIP_BUFFER_BYTES = 64 * 1024;
+
+    private final OrderExportService orderExportService;
+
+    /**
+     * Download orders and their items created between two dates, inclusive
+     * GET /api/admin/orders/export?from=2025-01-01&to=2025-01-31&format=CSV&gzip=true
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "CSV") OrderExportFormat format,
+            @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        log.info(LogCategory.admin("Exporting orders from {} to {} as {}, gzip: {}"), from, to, format, gzip);
+
+        // Written on an MVC async thread once the headers are out, so the request thread is not held
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_BYTES);
+                orderExportService.export(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), format, compressed);
+                compressed.finish();
+            } else {
+                orderExportService.export(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), format, out);
+            }
+        };
+
+        String filename = "orders-" + from + "_" + to + "." + format.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
@@ -7,6 +7,8 @@ import com.josephken.roors.admin.dto.CategorySales;
 import com.josephken.roors.auth.repository.UserRepository;
 import com.josephken.roors.menu.repository.MenuItemRepository;
 import com.josephken.roors.order.entity.OrderStatus;
+import com.josephken.roors.order.repository.ArchivedOrderItemRepository;
+import com.josephken.roors.order.repository.ArchivedOrderRepository;
 import com.josephken.roors.order.repository.OrderItemRepository;
 import com.josephken.roors.order.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
@@ -15,10 +17,19 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Dashboard aggregates over all orders. Orders moved to the archive by OrderArchiveService are
+ * aggregated from the archive tables and merged in, so history does not drop out of the totals.
+ */
 @Service
 @RequiredArgsConstructor
 public class StatisticsService {
@@ -27,27 +38,50 @@ public class StatisticsService {
     private final MenuItemRepository menuItemRepository;
     private final UserRepository userRepository;
     private final OrderItemRepository orderItemRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ArchivedOrderItemRepository archivedOrderItemRepository;
 
     public DashboardStats getDashboardStatistics(int days) {
         LocalDateTime since = LocalDate.now().minusDays(days).atStartOfDay();
 
         // Use count and query methods instead of loading all data into memory
-        long totalOrders = orderRepository.count();
-        BigDecimal totalRevenue = orderRepository.sumTotalAmountByStatus(OrderStatus.COMPLETED);
+        long totalOrders = orderRepository.count() + archivedOrderRepository.count();
+        BigDecimal totalRevenue = orderRepository.sumTotalAmountByStatus(OrderStatus.COMPLETED)
+                .add(archivedOrderRepository.sumTotalAmountByStatus(OrderStatus.COMPLETED));
         long totalMenuItems = menuItemRepository.count();
         long totalUsers = userRepository.count();
 
-        List<OrderStatsByDate> revenueOverTime = orderRepository.findOrderStatsByDate(since);
+        List<OrderStatsByDate> revenueOverTime = merge(
+                orderRepository.findOrderStatsByDate(since),
+                archivedOrderRepository.findOrderStatsByDate(since),
+                OrderStatsByDate::getDate,
+                (a, b) -> new OrderStatsByDate(a.getDate(), a.getOrderCount() + b.getOrderCount(),
+                        a.getRevenue().add(b.getRevenue())),
+                Comparator.comparing(OrderStatsByDate::getDate));
         // All menu items ranked by quantity (no artificial top-5 limit, UI will scroll)
-        List<TopSellingItem> topSellingItems = orderItemRepository.findTopSellingItems();
+        List<TopSellingItem> topSellingItems = merge(
+                orderItemRepository.findTopSellingItems(),
+                archivedOrderItemRepository.findTopSellingItems(),
+                TopSellingItem::getMenuItemId,
+                (a, b) -> new TopSellingItem(a.getMenuItemId(), a.getName(),
+                        a.getTotalQuantity() + b.getTotalQuantity(), a.getTotalRevenue().add(b.getTotalRevenue())),
+                Comparator.comparingLong(TopSellingItem::getTotalQuantity).reversed());
 
-        List<CategorySales> categorySales = orderItemRepository.findCategorySales();
+        List<CategorySales> categorySales = merge(
+                orderItemRepository.findCategorySales(),
+                archivedOrderItemRepository.findCategorySales(),
+                CategorySales::getCategoryName,
+                (a, b) -> new CategorySales(a.getCategoryName(), a.getOrderCount() + b.getOrderCount(),
+                        a.getRevenue().add(b.getRevenue())),
+                Comparator.comparing(CategorySales::getRevenue).reversed());
 
-        Map<String, Long> orderStatusDistribution = orderRepository.countOrdersByStatus()
-                .stream()
+        Map<String, Long> orderStatusDistribution = Stream.concat(
+                        orderRepository.countOrdersByStatus().stream(),
+                        archivedOrderRepository.countOrdersByStatus().stream())
                 .collect(Collectors.toMap(
                         obj -> ((OrderStatus) obj[0]).name(),
-                        obj -> (Long) obj[1]
+                        obj -> (Long) obj[1],
+                        Long::sum
                 ));
 
         return DashboardStats.builder()
@@ -61,4 +95,18 @@ public class StatisticsService {
                 .categorySales(categorySales)
                 .build();
     }
+
+    /**
+     * Combine live and archived rows that share a key, then re-sort
+     */
+    private static <T, K> List<T> merge(List<T> live, List<T> archived, Function<T, K> key,
+                                        BinaryOperator<T> combine, Comparator<T> order) {
+        if (archived.isEmpty()) {
+            return live;
+        }
+        Map<K, T> merged = new LinkedHashMap<>();
+        Stream.concat(live.stream(), archived.stream())
+                .forEach(row -> merged.merge(key.apply(row), row, combine));
+        return merged.values().stream().sorted(order).toList();
+    }
 }
@@ -98,7 +98,7 @@ public class SecurityConfiguration {
                         .requestMatchers("/api/reservations/availability",
                                          "/api/reservations/date-time-availability").permitAll()
                         .requestMatchers("/api/reservations/**").authenticated()
-                        .requestMatchers("/api/tables/availability").permitAll()
+                        .requestMatchers("/api/tables/availability", "/api/tables/availability/matrix").permitAll()
                         .requestMatchers("/api/tables/**").hasAnyRole("ADMIN", "STAFF")
                         .requestMatchers("/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
                         .anyRequest().authenticated());
@@ -4,6 +4,8 @@ import com.josephken.roors.common.util.LogCategory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.scheduling.annotation.Async;
@@ -12,6 +14,9 @@ import com.josephken.roors.auth.entity.User;
 import com.josephken.roors.order.entity.Order;
 import com.josephken.roors.reservation.entity.Reservation;
 import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
@@ -90,82 +95,6 @@ public class EmailService {
         }
     }
 
-    @Async
-    public void sendEmailReservationConfirmation(
-            User user,
-            Reservation reservation
-    ) {
-        String toEmail = user.getEmail();
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Reservation Confirmation - Roors API");
-
-            LocalDate reservationDate = reservation.getStartTime().toLocalDate();
-            String emailBody = "Hello " + user.getUsername() + ",\n\n" +
-                    "Your reservation has been confirmed with the following details:\n\n" +
-                    "Reservation ID: " + reservation.getId() + "\n" +
-                    "Date: " + reservationDate + "\n" +
-                    "Time: " + reservation.getStartTime().toLocalTime() + " to " + reservation.getEndTime().toLocalTime() + "\n" +
-                    "Number of Guests: " + reservation.getNumberOfGuests() + "\n\n" +
-                    "We look forward to serving you!\n\n" +
-                    "Best regards,\n" +
-                    "Roors API Team";
-
-            message.setText(emailBody);
-
-            mailSender.send(message);
-            log.info(LogCategory.system("Reservation confirmation email sent successfully - recipient: {}"), toEmail);
-
-        } catch (Exception e) {
-            log.error(LogCategory.system("Failed to send reservation confirmation email - recipient: {}, error: {}"), toEmail, e.getMessage());
-            log.error(LogCategory.error("Email configuration may be incorrect. Check application.properties"));
-            throw new RuntimeException("Failed to send reservation confirmation email. Please contact support.", e);
-        }
-    }
-
-    @Async
-    public void sendEmailOrderConfirmation(User user, Order order) {
-        String toEmail = user.getEmail();
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Order Confirmation - Roors API");
-
-            // Send email with basic info and order items with quantities and prices
-            StringBuilder emailBody = new StringBuilder();
-            emailBody.append("Hello ").append(user.getUsername()).append(",\n\n")
-                    .append("Your order has been confirmed with the following details:\n\n")
-                    .append("Order Number: ").append(order.getOrderNumber()).append("\n")
-                    .append("Order Type: ").append(order.getOrderType()).append("\n")
-                    .append("Status: ").append(order.getStatus()).append("\n\n")
-                    .append("Order Items:\n");
-            order.getOrderItems().forEach(item -> {
-                emailBody.append("- ").append(item.getMenuItem().getName())
-                        .append(" x").append(item.getQuantity())
-                        .append(" @ $").append(item.getUnitPrice()).append("\n");
-            });
-            emailBody.append("\nSubtotal: $").append(order.getSubtotal()).append("\n")
-                    .append("Tax: $").append(order.getTaxAmount() != null ? order.getTaxAmount() : "0.00").append("\n")
-                    .append("Delivery Fee: $").append(order.getDeliveryFee() != null ? order.getDeliveryFee() : "0.00").append("\n")
-                    .append("Discount: $").append(order.getDiscountAmount() != null ? order.getDiscountAmount() : "0.00").append("\n")
-                    .append("Total Amount: $").append(order.getTotalAmount()).append("\n\n")
-                    .append("Thank you for ordering with us!\n\n")
-                    .append("Best regards,\n")
-                    .append("Roors API Team");
-
-            message.setText(emailBody.toString());
-            mailSender.send(message);
-            log.info(LogCategory.system("Order confirmation email sent successfully - recipient: {}"), toEmail);
-        } catch (Exception e) {
-            log.error(LogCategory.system("Failed to send order confirmation email - recipient: {}, error: {}"), toEmail, e.getMessage());
-            log.error(LogCategory.error("Email configuration may be incorrect. Check application.properties"));
-            throw new RuntimeException("Failed to send order confirmation email. Please contact support.", e);
-        }
-    }
-
     @Async
     public void sendReservationReminderEmail(User user, Reservation reservation) {
         String toEmail = user.getEmail();
@@ -196,66 +125,6 @@ public class EmailService {
         }
     }
 
-    @Async
-    public void sendReservationCancelledEmail(User user, Reservation reservation) {
-        String toEmail = user.getEmail();
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Reservation Cancelled - Roors");
-
-            LocalDate reservationDate = reservation.getStartTime().toLocalDate();
-            String emailBody = "Hello " + user.getUsername() + ",\n\n" +
-                    "Your reservation has been cancelled.\n\n" +
-                    "Reservation ID: " + reservation.getId() + "\n" +
-                    "Date: " + reservationDate + "\n" +
-                    "Time: " + reservation.getStartTime().toLocalTime() + " to " + reservation.getEndTime().toLocalTime() + "\n" +
-                    "Number of Guests: " + reservation.getNumberOfGuests() + "\n\n" +
-                    "If this was a mistake, please create a new reservation.\n\n" +
-                    "Best regards,\n" +
-                    "Roors Team";
-
-            message.setText(emailBody);
-            mailSender.send(message);
-            log.info(LogCategory.system("Reservation cancelled email sent successfully - recipient: {}"), toEmail);
-        } catch (Exception e) {
-            log.error(LogCategory.system("Failed to send reservation cancelled email - recipient: {}, error: {}"), toEmail, e.getMessage());
-            log.error(LogCategory.error("Email configuration may be incorrect. Check application.properties"));
-            throw new RuntimeException("Failed to send reservation cancelled email. Please contact support.", e);
-        }
-    }
-
-    @Async
-    public void sendReservationUpdatedEmail(User user, Reservation reservation) {
-        String toEmail = user.getEmail();
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Reservation Updated - Roors");
-
-            LocalDate reservationDate = reservation.getStartTime().toLocalDate();
-            String emailBody = "Hello " + user.getUsername() + ",\n\n" +
-                    "Your reservation has been updated with the latest details:\n\n" +
-                    "Reservation ID: " + reservation.getId() + "\n" +
-                    "Date: " + reservationDate + "\n" +
-                    "Time: " + reservation.getStartTime().toLocalTime() + " to " + reservation.getEndTime().toLocalTime() + "\n" +
-                    "Number of Guests: " + reservation.getNumberOfGuests() + "\n\n" +
-                    "We look forward to serving you.\n\n" +
-                    "Best regards,\n" +
-                    "Roors Team";
-
-            message.setText(emailBody);
-            mailSender.send(message);
-            log.info(LogCategory.system("Reservation updated email sent successfully - recipient: {}"), toEmail);
-        } catch (Exception e) {
-            log.error(LogCategory.system("Failed to send reservation updated email - recipient: {}, error: {}"), toEmail, e.getMessage());
-            log.error(LogCategory.error("Email configuration may be incorrect. Check application.properties"));
-            throw new RuntimeException("Failed to send reservation updated email. Please contact support.", e);
-        }
-    }
-
     @Async
     public void sendReservationNoShowEmail(User user, Reservation reservation) {
         String toEmail = user.getEmail();
@@ -285,70 +154,6 @@ public class EmailService {
         }
     }
 
-    @Async
-    public void sendOrderCompletedRatingRequestEmail(User user, Order order) {
-        String toEmail = user.getEmail();
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("How was your order? - Roors");
-
-            String ratingUrl = baseUrl + "/my_order?highlight=" + order.getId();
-
-            StringBuilder emailBody = new StringBuilder();
-            emailBody.append("Hello ").append(user.getUsername()).append(",\n\n")
-                    .append("Thank you for your recent order with us!\n\n")
-                    .append("Order Number: ").append(order.getOrderNumber()).append("\n")
-                    .append("Total Amount: $").append(order.getTotalAmount()).append("\n\n")
-                    .append("We would love to hear your feedback. Please rate your order and dishes here:\n")
-                    .append(ratingUrl).append("\n\n")
-                    .append("Your feedback helps us improve our service.\n\n")
-                    .append("Best regards,\n")
-                    .append("Roors Team");
-
-            message.setText(emailBody.toString());
-            mailSender.send(message);
-            log.info(LogCategory.system("Order completed rating request email sent successfully - recipient: {}"), toEmail);
-        } catch (Exception e) {
-            log.error(LogCategory.system("Failed to send order completed rating request email - recipient: {}, error: {}"), toEmail, e.getMessage());
-            log.error(LogCategory.error("Email configuration may be incorrect. Check application.properties"));
-            throw new RuntimeException("Failed to send order completed rating request email. Please contact support.", e);
-        }
-    }
-
-    @Async
-    public void sendOrderCancelledEmail(User user, Order order) {
-        String toEmail = user.getEmail();
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Order Cancelled - Roors");
-
-            StringBuilder emailBody = new StringBuilder();
-            emailBody.append("Hello ").append(user.getUsername()).append(",\n\n")
-                    .append("Your order has been cancelled.\n\n")
-                    .append("Order Number: ").append(order.getOrderNumber()).append("\n")
-                    .append("Status: ").append(order.getStatus()).append("\n");
-            if (order.getCancellationReason() != null) {
-                emailBody.append("Reason: ").append(order.getCancellationReason()).append("\n");
-            }
-            emailBody.append("\n");
-            emailBody.append("If you have already paid, any refund will follow our payment policy.\n\n")
-                    .append("Best regards,\n")
-                    .append("Roors Team");
-
-            message.setText(emailBody.toString());
-            mailSender.send(message);
-            log.info(LogCategory.system("Order cancelled email sent successfully - recipient: {}"), toEmail);
-        } catch (Exception e) {
-            log.error(LogCategory.system("Failed to send order cancelled email - recipient: {}, error: {}"), toEmail, e.getMessage());
-            log.error(LogCategory.error("Email configuration may be incorrect. Check application.properties"));
-            throw new RuntimeException("Failed to send order cancelled email. Please contact support.", e);
-        }
-    }
-
     @Async
     public void sendAccountDisabledEmail(User user) {
         String toEmail = user.getEmail();
@@ -374,4 +179,170 @@ public class EmailService {
         }
     }
 
+    // ---------------------------------------------------------
+    // Order and reservation notifications are rendered here and
+    // delivered in batches by the outbox dispatcher
+    // ---------------------------------------------------------
+
+    /**
+     * Send a batch of messages over one mail session.
+     *
+     * @return the messages that could not be sent, with the reason; empty when all were sent
+     */
+    public Map<SimpleMailMessage, Exception> sendAll(List<SimpleMailMessage> messages) {
+        if (messages.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            mailSender.send(messages.toArray(SimpleMailMessage[]::new));
+            log.info(LogCategory.system("Email batch sent successfully - count: {}"), messages.size());
+            return Map.of();
+        } catch (MailSendException e) {
+            Map<SimpleMailMessage, Exception> failures = new HashMap<>();
+            e.getFailedMessages().forEach((message, error) -> failures.put((SimpleMailMessage) message, error));
+            // No per-message detail means the whole session failed (e.g. connection refused)
+            if (failures.isEmpty()) {
+                messages.forEach(message -> failures.put(message, e));
+            }
+            log.error(LogCategory.system("Failed to send {} of {} emails in batch, error: {}"), failures.size(), messages.size(), e.getMessage());
+            return failures;
+        } catch (MailException e) {
+            log.error(LogCategory.system("Failed to send email batch - count: {}, error: {}"), messages.size(), e.getMessage());
+            log.error(LogCategory.error("Email configuration may be incorrect. Check application.properties"));
+            Map<SimpleMailMessage, Exception> failures = new HashMap<>();
+            messages.forEach(message -> failures.put(message, e));
+            return failures;
+        }
+    }
+
+    public SimpleMailMessage buildOrderConfirmationMessage(User user, Order order) {
+        SimpleMailMessage message = newMessage(user, "Order Confirmation - Roors API");
+
+        // Send email with basic info and order items with quantities and prices
+        StringBuilder emailBody = new StringBuilder();
+        emailBody.append("Hello ").append(user.getUsername()).append(",\n\n")
+                .append("Your order has been confirmed with the following details:\n\n")
+                .append("Order Number: ").append(order.getOrderNumber()).append("\n")
+                .append("Order Type: ").append(order.getOrderType()).append("\n")
+                .append("Status: ").append(order.getStatus()).append("\n\n")
+                .append("Order Items:\n");
+        order.getOrderItems().forEach(item -> {
+            emailBody.append("- ").append(item.getMenuItemName())
+                    .append(" x").append(item.getQuantity())
+                    .append(" @ $").append(item.getUnitPrice()).append("\n");
+        });
+        emailBody.append("\nSubtotal: $").append(order.getSubtotal()).append("\n")
+                .append("Tax: $").append(order.getTaxAmount() != null ? order.getTaxAmount() : "0.00").append("\n")
+                .append("Delivery Fee: $").append(order.getDeliveryFee() != null ? order.getDeliveryFee() : "0.00").append("\n")
+                .append("Discount: $").append(order.getDiscountAmount() != null ? order.getDiscountAmount() : "0.00").append("\n")
+                .append("Total Amount: $").append(order.getTotalAmount()).append("\n\n")
+                .append("Thank you for ordering with us!\n\n")
+                .append("Best regards,\n")
+                .append("Roors API Team");
+
+        message.setText(emailBody.toString());
+        return message;
+    }
+
+    public SimpleMailMessage buildOrderCancelledMessage(User user, Order order) {
+        SimpleMailMessage message = newMessage(user, "Order Cancelled - Roors");
+
+        StringBuilder emailBody = new StringBuilder();
+        emailBody.append("Hello ").append(user.getUsername()).append(",\n\n")
+                .append("Your order has been cancelled.\n\n")
+                .append("Order Number: ").append(order.getOrderNumber()).append("\n")
+                .append("Status: ").append(order.getStatus()).append("\n");
+        if (order.getCancellationReason() != null) {
+            emailBody.append("Reason: ").append(order.getCancellationReason()).append("\n");
+        }
+        emailBody.append("\n");
+        emailBody.append("If you have already paid, any refund will follow our payment policy.\n\n")
+                .append("Best regards,\n")
+                .append("Roors Team");
+
+        message.setText(emailBody.toString());
+        return message;
+    }
+
+    public SimpleMailMessage buildOrderCompletedRatingRequestMessage(User user, Order order) {
+        SimpleMailMessage message = newMessage(user, "How was your order? - Roors");
+
+        String ratingUrl = baseUrl + "/my_order?highlight=" + order.getId();
+
+        StringBuilder emailBody = new StringBuilder();
+        emailBody.append("Hello ").append(user.getUsername()).append(",\n\n")
+                .append("Thank you for your recent order with us!\n\n")
+                .append("Order Number: ").append(order.getOrderNumber()).append("\n")
+                .append("Total Amount: $").append(order.getTotalAmount()).append("\n\n")
+                .append("We would love to hear your feedback. Please rate your order and dishes here:\n")
+                .append(ratingUrl).append("\n\n")
+                .append("Your feedback helps us improve our service.\n\n")
+                .append("Best regards,\n")
+                .append("Roors Team");
+
+        message.setText(emailBody.toString());
+        return message;
+    }
+
+    public SimpleMailMessage buildReservationConfirmationMessage(User user, Reservation reservation) {
+        SimpleMailMessage message = newMessage(user, "Reservation Confirmation - Roors API");
+
+        LocalDate reservationDate = reservation.getStartTime().toLocalDate();
+        String emailBody = "Hello " + user.getUsername() + ",\n\n" +
+                "Your reservation has been confirmed with the following details:\n\n" +
+                "Reservation ID: " + reservation.getId() + "\n" +
+                "Date: " + reservationDate + "\n" +
+                "Time: " + reservation.getStartTime().toLocalTime() + " to " + reservation.getEndTime().toLocalTime() + "\n" +
+                "Number of Guests: " + reservation.getNumberOfGuests() + "\n\n" +
+                "We look forward to serving you!\n\n" +
+                "Best regards,\n" +
+                "Roors API Team";
+
+        message.setText(emailBody);
+        return message;
+    }
+
+    public SimpleMailMessage buildReservationUpdatedMessage(User user, Reservation reservation) {
+        SimpleMailMessage message = newMessage(user, "Reservation Updated - Roors");
+
+        LocalDate reservationDate = reservation.getStartTime().toLocalDate();
+        String emailBody = "Hello " + user.getUsername() + ",\n\n" +
+                "Your reservation has been updated with the latest details:\n\n" +
+                "Reservation ID: " + reservation.getId() + "\n" +
+                "Date: " + reservationDate + "\n" +
+                "Time: " + reservation.getStartTime().toLocalTime() + " to " + reservation.getEndTime().toLocalTime() + "\n" +
+                "Number of Guests: " + reservation.getNumberOfGuests() + "\n\n" +
+                "We look forward to serving you.\n\n" +
+                "Best regards,\n" +
+                "Roors Team";
+
+        message.setText(emailBody);
+        return message;
+    }
+
+    public SimpleMailMessage buildReservationCancelledMessage(User user, Reservation reservation) {
+        SimpleMailMessage message = newMessage(user, "Reservation Cancelled - Roors");
+
+        LocalDate reservationDate = reservation.getStartTime().toLocalDate();
+        String emailBody = "Hello " + user.getUsername() + ",\n\n" +
+                "Your reservation has been cancelled.\n\n" +
+                "Reservation ID: " + reservation.getId() + "\n" +
+                "Date: " + reservationDate + "\n" +
+                "Time: " + reservation.getStartTime().toLocalTime() + " to " + reservation.getEndTime().toLocalTime() + "\n" +
+                "Number of Guests: " + reservation.getNumberOfGuests() + "\n\n" +
+                "If this was a mistake, please create a new reservation.\n\n" +
+                "Best regards,\n" +
+                "Roors Team";
+
+        message.setText(emailBody);
+        return message;
+    }
+
+    private SimpleMailMessage newMessage(User user, String subject) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmail);
+        message.setTo(user.getEmail());
+        message.setSubject(subject);
+        return message;
+    }
 }
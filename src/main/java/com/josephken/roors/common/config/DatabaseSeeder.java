@@ -12,6 +12,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.jdbc.datasource.init.ScriptUtils;
@@ -35,7 +36,9 @@ public class DatabaseSeeder {
     @Value("${app.admin.password}")
     private String adminPassword;
 
+    // initialData.sql is PostgreSQL-specific (TRUNCATE ... RESTART IDENTITY CASCADE), so skip it on the H2 test profile
     @Bean
+    @Profile("!test")
     CommandLineRunner initDatabase(
             UserRepository userRepository,
             PasswordEncoder passwordEncoder,
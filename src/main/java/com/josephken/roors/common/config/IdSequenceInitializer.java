@@ -0,0 +1,75 @@
+package com.josephken.roors.common.config;
+
+import com.josephken.roors.common.util.DatabaseProduct;
+import com.josephken.roors.common.util.LogCategory;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Moves the pooled id sequences of orders, order items, payments and SePay transactions past
+ * the ids those tables were given while they still used IDENTITY columns.
+ * <p>
+ * Runs once the schema is up to date and before the web server accepts requests. A sequence is
+ * only moved while it lags behind its tables, i.e. on the first start after the switch; from
+ * then on every id comes from the sequence and this is a no-op. Orders and order items also
+ * count their archive tables, whose rows keep the ids they had when live. On other databases
+ * (H2 in tests) the schema is created fresh with the sequences, so there is nothing to migrate.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class IdSequenceInitializer {
+
+    // Must match allocationSize on the entities' @SequenceGenerator
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final List<PooledSequence> SEQUENCES = List.of(
+            new PooledSequence("orders_seq", List.of("orders", "orders_archive")),
+            new PooledSequence("order_items_seq", List.of("order_items", "order_items_archive")),
+            new PooledSequence("payments_seq", List.of("payments")),
+            new PooledSequence("sepay_transactions_seq", List.of("sepay_transactions"))
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdSequenceInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        String database = DatabaseProduct.name(jdbcTemplate);
+        if (!DatabaseProduct.isPostgreSql(database)) {
+            return;
+        }
+
+        for (PooledSequence sequence : SEQUENCES) {
+            // Normally created by Hibernate's schema update; kept here for deployments that run with ddl-auto=none
+            jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + sequence.name()
+                    + " START WITH 1 INCREMENT BY " + ALLOCATION_SIZE);
+
+            long maxId = 0;
+            for (String table : sequence.tables()) {
+                Long tableMax = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+                maxId = Math.max(maxId, tableMax);
+            }
+            // The pooled optimizer hands out (value - 49 .. value) for each nextval, so after
+            // setval(maxId) the next block starts at maxId + 1
+            Long moved = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(setval('" + sequence.name() + "', ?)) FROM " + sequence.name()
+                            + " WHERE last_value < ?",
+                    Long.class, maxId, maxId);
+            if (moved != null && moved > 0) {
+                log.info(LogCategory.system("Moved id sequence {} past existing id {}"), sequence.name(), maxId);
+            }
+        }
+    }
+
+    private record PooledSequence(String name, List<String> tables) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.josephken.roors.common.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Named counter shared by every app instance.
+ * Instances reserve whole blocks of values from it, see BlockIdAllocator.
+ */
+@Entity
+@Table(name = "id_sequences")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdSequence {
+
+    @Id
+    @Column(name = "name", length = 32)
+    private String name;
+
+    // First value not yet handed out to any instance
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+}
@@ -0,0 +1,6 @@
+package com.josephken.roors.common.entity;
+
+public enum IdempotencyRecordStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
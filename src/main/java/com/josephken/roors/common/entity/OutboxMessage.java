@@ -0,0 +1,67 @@
+package com.josephken.roors.common.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A side effect (currently an email) recorded in the same transaction as the change that causes it.
+ * Only the type and the id of the order or reservation are stored; the message is rendered from
+ * the committed row when the OutboxDispatcher delivers it.
+ */
+@Entity
+@Table(name = "outbox_messages", indexes = {
+        @Index(name = "idx_outbox_status_next_attempt", columnList = "status, next_attempt_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private OutboxMessageType type;
+
+    // Id of the order or reservation the message is about
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private OutboxMessageStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    // Also used as a lease: claimed messages are pushed into the future until their attempt finishes
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    public OutboxMessage(OutboxMessageType type, Long aggregateId) {
+        LocalDateTime now = LocalDateTime.now();
+        this.type = type;
+        this.aggregateId = aggregateId;
+        this.status = OutboxMessageStatus.PENDING;
+        this.attempts = 0;
+        this.nextAttemptAt = now;
+        this.createdAt = now;
+    }
+}
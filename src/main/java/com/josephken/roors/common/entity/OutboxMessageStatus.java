@@ -0,0 +1,7 @@
+package com.josephken.roors.common.entity;
+
+public enum OutboxMessageStatus {
+    PENDING,    // Waiting for (another) delivery attempt
+    SENT,       // Delivered
+    FAILED      // Gave up after the maximum number of attempts
+}
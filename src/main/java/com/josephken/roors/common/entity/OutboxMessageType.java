@@ -0,0 +1,10 @@
+package com.josephken.roors.common.entity;
+
+public enum OutboxMessageType {
+    ORDER_CONFIRMATION,
+    ORDER_CANCELLED,
+    ORDER_COMPLETED_RATING_REQUEST,
+    RESERVATION_CONFIRMATION,
+    RESERVATION_UPDATED,
+    RESERVATION_CANCELLED
+}
@@ -0,0 +1,10 @@
+package com.josephken.roors.common.exception;
+
+/**
+ * The first request with this Idempotency-Key is still running and did not finish in time.
+ */
+public class IdempotencyKeyInUseException extends BusinessException {
+    public IdempotencyKeyInUseException(String key) {
+        super("A request with Idempotency-Key " + key + " is still being processed, retry later");
+    }
+}
@@ -0,0 +1,10 @@
+package com.josephken.roors.common.exception;
+
+/**
+ * The Idempotency-Key was already used for a request with a different body.
+ */
+public class IdempotencyKeyReusedException extends BusinessException {
+    public IdempotencyKeyReusedException(String key) {
+        super("Idempotency-Key " + key + " was already used for a different request");
+    }
+}
@@ -0,0 +1,30 @@
+package com.josephken.roors.common.repository;
+
+import com.josephken.roors.common.entity.IdSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface IdSequenceRepository extends JpaRepository<IdSequence, String> {
+
+    /**
+     * Load a sequence row with SELECT ... FOR UPDATE so concurrent block reservations serialize on it
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM IdSequence s WHERE s.name = :name")
+    Optional<IdSequence> findForUpdate(@Param("name") String name);
+
+    /**
+     * Create a sequence row; fails with a constraint violation if another instance created it first
+     */
+    @Modifying
+    @Query("INSERT INTO IdSequence (name, nextValue) VALUES (:name, :nextValue)")
+    int insert(@Param("name") String name, @Param("nextValue") Long nextValue);
+}
@@ -0,0 +1,63 @@
+package com.josephken.roors.common.repository;
+
+import com.josephken.roors.common.entity.IdempotencyRecord;
+import com.josephken.roors.common.entity.IdempotencyRecordStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByScopeAndIdempotencyKey(String scope, String idempotencyKey);
+
+    /**
+     * Claim a key; fails with a constraint violation if another request claimed it first
+     */
+    @Modifying
+    @Query("INSERT INTO IdempotencyRecord (scope, idempotencyKey, requestHash, status, createdAt, lockedUntil, expiresAt) " +
+           "VALUES (:scope, :key, :requestHash, com.josephken.roors.common.entity.IdempotencyRecordStatus.IN_PROGRESS, " +
+           ":now, :lockedUntil, :expiresAt)")
+    int claim(@Param("scope") String scope,
+              @Param("key") String key,
+              @Param("requestHash") String requestHash,
+              @Param("now") LocalDateTime now,
+              @Param("lockedUntil") LocalDateTime lockedUntil,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Take over a claim whose holder crashed and stopped renewing it; only one contender's UPDATE matches
+     */
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.lockedUntil = :lockedUntil " +
+           "WHERE r.id = :id AND r.status = com.josephken.roors.common.entity.IdempotencyRecordStatus.IN_PROGRESS " +
+           "AND r.lockedUntil < :now")
+    int takeOverStale(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    /**
+     * Extend the lease of claims whose operation is still running
+     */
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.lockedUntil = :lockedUntil " +
+           "WHERE r.id IN :ids AND r.status = com.josephken.roors.common.entity.IdempotencyRecordStatus.IN_PROGRESS")
+    int renewLeases(@Param("ids") Collection<Long> ids, @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE IdempotencyRecord r SET r.status = com.josephken.roors.common.entity.IdempotencyRecordStatus.COMPLETED, " +
+           "r.response = :response, r.expiresAt = :expiresAt WHERE r.id = :id")
+    int complete(@Param("id") Long id, @Param("response") String response, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.status = :status")
+    int deleteByIdAndStatus(@Param("id") Long id, @Param("status") IdempotencyRecordStatus status);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
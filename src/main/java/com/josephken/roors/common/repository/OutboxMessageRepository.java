@@ -0,0 +1,41 @@
+package com.josephken.roors.common.repository;
+
+import com.josephken.roors.common.entity.OutboxMessage;
+import com.josephken.roors.common.entity.OutboxMessageStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Lock the oldest pending messages that are due.
+     * Rows already locked by another instance are skipped (FOR UPDATE SKIP LOCKED on PostgreSQL),
+     * so several dispatchers can drain the outbox without picking the same message.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT m FROM OutboxMessage m WHERE m.status = :status AND m.nextAttemptAt <= :now ORDER BY m.id")
+    List<OutboxMessage> findDueForUpdate(
+            @Param("status") OutboxMessageStatus status,
+            @Param("now") LocalDateTime now,
+            Pageable pageable
+    );
+
+    long countByStatus(OutboxMessageStatus status);
+
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.status = :status AND m.sentAt < :before")
+    int deleteSentBefore(@Param("status") OutboxMessageStatus status, @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,189 @@
+package com.josephken.roors.common.scheduler;
+
+import com.josephken.roors.auth.service.EmailService;
+import com.josephken.roors.common.entity.OutboxMessage;
+import com.josephken.roors.common.entity.OutboxMessageStatus;
+import com.josephken.roors.common.entity.OutboxMessageType;
+import com.josephken.roors.common.repository.OutboxMessageRepository;
+import com.josephken.roors.common.service.OutboxMessageRenderer;
+import com.josephken.roors.common.util.LogCategory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drains the outbox in batches.
+ * <p>
+ * A batch is claimed in a short transaction (attempt counted, lease set), rendered, sent over a
+ * single mail session outside any transaction, and its outcome recorded in a second short
+ * transaction. Failed messages are retried with exponential back-off until
+ * {@code app.outbox.max-attempts}; a message whose lease expires because the instance died
+ * mid-batch is simply picked up again.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.outbox.dispatcher.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxDispatcher {
+
+    private static final long MAX_BACKOFF_MILLIS = 60 * 60 * 1000L;
+    private static final int MAX_BATCHES_PER_RUN = 10;
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final EmailService emailService;
+    private final Map<OutboxMessageType, OutboxMessageRenderer> renderers = new EnumMap<>(OutboxMessageType.class);
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBaseMillis;
+    private final long leaseMillis;
+    private final int retentionDays;
+
+    public OutboxDispatcher(
+            OutboxMessageRepository outboxMessageRepository,
+            EmailService emailService,
+            List<OutboxMessageRenderer> renderers,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.outbox.batch-size:50}") int batchSize,
+            @Value("${app.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${app.outbox.retry-base-ms:30000}") long retryBaseMillis,
+            @Value("${app.outbox.lease-ms:300000}") long leaseMillis,
+            @Value("${app.outbox.retention-days:7}") int retentionDays
+    ) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.emailService = emailService;
+        renderers.forEach(renderer -> renderer.supportedTypes().forEach(type -> this.renderers.put(type, renderer)));
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseMillis = retryBaseMillis;
+        this.leaseMillis = leaseMillis;
+        this.retentionDays = retentionDays;
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:2000}", initialDelayString = "${app.outbox.poll-interval-ms:2000}")
+    public void dispatch() {
+        for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+            if (dispatchBatch() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Deliver one batch of due messages
+     *
+     * @return the number of messages claimed
+     */
+    public int dispatchBatch() {
+        LocalDateTime claimedAt = LocalDateTime.now();
+        List<OutboxMessage> claimed = transaction.execute(status -> {
+            List<OutboxMessage> due = outboxMessageRepository.findDueForUpdate(
+                    OutboxMessageStatus.PENDING, claimedAt, PageRequest.of(0, batchSize));
+            due.forEach(message -> {
+                message.setAttempts(message.getAttempts() + 1);
+                message.setNextAttemptAt(claimedAt.plus(Duration.ofMillis(leaseMillis)));
+            });
+            return due;
+        });
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, String> errors = new HashMap<>();
+        Map<Long, SimpleMailMessage> emails = render(claimed, errors);
+
+        Map<SimpleMailMessage, Exception> sendFailures = emailService.sendAll(new ArrayList<>(emails.values()));
+        emails.forEach((messageId, email) -> {
+            Exception failure = sendFailures.get(email);
+            if (failure != null) {
+                errors.put(messageId, String.valueOf(failure.getMessage()));
+            }
+        });
+
+        LocalDateTime finishedAt = LocalDateTime.now();
+        transaction.executeWithoutResult(status -> outboxMessageRepository
+                .findAllById(claimed.stream().map(OutboxMessage::getId).toList())
+                .forEach(message -> recordOutcome(message, emails.containsKey(message.getId()),
+                        errors.get(message.getId()), finishedAt)));
+
+        log.info(LogCategory.system("Outbox batch dispatched: {} claimed, {} failed"), claimed.size(), errors.size());
+        return claimed.size();
+    }
+
+    @Scheduled(cron = "0 30 0 * * ?")
+    public void purgeSent() {
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        Integer deleted = transaction.execute(status ->
+                outboxMessageRepository.deleteSentBefore(OutboxMessageStatus.SENT, before));
+        log.info(LogCategory.system("Outbox cleanup removed {} sent messages older than {}"), deleted, before);
+    }
+
+    /**
+     * Render claimed messages grouped by renderer so each group loads its records in one go
+     */
+    private Map<Long, SimpleMailMessage> render(List<OutboxMessage> claimed, Map<Long, String> errors) {
+        Map<OutboxMessageRenderer, List<OutboxMessage>> byRenderer = new LinkedHashMap<>();
+        for (OutboxMessage message : claimed) {
+            OutboxMessageRenderer renderer = renderers.get(message.getType());
+            if (renderer == null) {
+                errors.put(message.getId(), "No renderer for outbox message type " + message.getType());
+            } else {
+                byRenderer.computeIfAbsent(renderer, key -> new ArrayList<>()).add(message);
+            }
+        }
+
+        Map<Long, SimpleMailMessage> emails = new HashMap<>();
+        byRenderer.forEach((renderer, messages) -> {
+            try {
+                emails.putAll(renderer.render(messages));
+            } catch (RuntimeException e) {
+                log.error(LogCategory.system("Failed to render {} outbox messages, error: {}"), messages.size(), e.getMessage());
+                messages.forEach(message -> errors.put(message.getId(), String.valueOf(e.getMessage())));
+            }
+        });
+        return emails;
+    }
+
+    private void recordOutcome(OutboxMessage message, boolean rendered, String error, LocalDateTime now) {
+        if (rendered && error == null) {
+            message.setStatus(OutboxMessageStatus.SENT);
+            message.setSentAt(now);
+            message.setLastError(null);
+        } else if (!rendered && error == null) {
+            // The order or reservation is gone, so there is nothing to send now or later
+            message.setStatus(OutboxMessageStatus.FAILED);
+            message.setLastError("Referenced record no longer exists");
+        } else if (message.getAttempts() >= maxAttempts) {
+            message.setStatus(OutboxMessageStatus.FAILED);
+            message.setLastError(error);
+            log.error(LogCategory.system("Outbox message {} ({}) failed permanently after {} attempts: {}"),
+                    message.getId(), message.getType(), message.getAttempts(), error);
+        } else {
+            message.setNextAttemptAt(now.plus(Duration.ofMillis(backoffMillis(message.getAttempts()))));
+            message.setLastError(error);
+        }
+    }
+
+    /**
+     * retryBase, 2 x retryBase, 4 x retryBase, ... capped at one hour
+     */
+    private long backoffMillis(int attempts) {
+        int doublings = Math.min(attempts - 1, 20);
+        return Math.min(retryBaseMillis << doublings, MAX_BACKOFF_MILLIS);
+    }
+}
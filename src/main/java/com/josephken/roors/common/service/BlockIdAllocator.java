@@ -0,0 +1,99 @@
+package com.josephken.roors.common.service;
+
+import com.josephken.roors.common.entity.IdSequence;
+import com.josephken.roors.common.repository.IdSequenceRepository;
+import com.josephken.roors.common.util.LogCategory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * IdAllocator backed by block-reserved ranges of a shared database counter.
+ * <p>
+ * Each instance reserves {@code blockSize} values at a time in its own short transaction
+ * and then hands them out from memory, so only one in every {@code blockSize} ids costs a
+ * DB round trip. Ranges never overlap between instances, which keeps codes unique
+ * cluster-wide; they are strictly increasing per instance.
+ */
+@Slf4j
+@Service
+public class BlockIdAllocator implements IdAllocator {
+
+    private static final int MAX_RESERVE_ATTEMPTS = 3;
+
+    private final IdSequenceRepository idSequenceRepository;
+    private final TransactionTemplate reserveTransaction;
+    private final int blockSize;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    public BlockIdAllocator(
+            IdSequenceRepository idSequenceRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.id.block-size:100}") int blockSize
+    ) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("app.id.block-size must be at least 1");
+        }
+        this.idSequenceRepository = idSequenceRepository;
+        this.blockSize = blockSize;
+        // Reservations commit on their own so the row lock is held only for the reservation itself
+        this.reserveTransaction = new TransactionTemplate(transactionManager);
+        this.reserveTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public long next(String sequenceName) {
+        Block block = blocks.computeIfAbsent(sequenceName, name -> new Block());
+        synchronized (block) {
+            if (block.next >= block.limit) {
+                long start = reserve(sequenceName);
+                block.next = start;
+                block.limit = start + blockSize;
+            }
+            return block.next++;
+        }
+    }
+
+    /**
+     * Reserve the next block of the sequence and return its first value
+     */
+    private long reserve(String sequenceName) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Long start = reserveTransaction.execute(status -> {
+                    IdSequence sequence = idSequenceRepository.findForUpdate(sequenceName).orElse(null);
+                    if (sequence == null) {
+                        // First use: an explicit INSERT, so a concurrent creator fails here instead of
+                        // both instances starting from the same value
+                        idSequenceRepository.insert(sequenceName, 1L);
+                        sequence = idSequenceRepository.findForUpdate(sequenceName).orElseThrow();
+                    }
+                    long first = sequence.getNextValue();
+                    sequence.setNextValue(first + blockSize);
+                    idSequenceRepository.saveAndFlush(sequence);
+                    return first;
+                });
+                log.debug(LogCategory.system("Reserved id block [{}, {}) for sequence {}"),
+                        start, start + blockSize, sequenceName);
+                return start;
+            } catch (DataIntegrityViolationException e) {
+                // Another instance created the sequence row first; its row lock now serializes us
+                if (attempt >= MAX_RESERVE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static final class Block {
+        private long next;
+        private long limit;
+    }
+}
@@ -0,0 +1,22 @@
+package com.josephken.roors.common.service;
+
+/**
+ * Hands out unique, increasing numbers for business codes such as order numbers and payment codes.
+ */
+public interface IdAllocator {
+
+    int CODE_DIGITS = 8;
+
+    /**
+     * Next value of the named sequence, unique across all app instances
+     */
+    long next(String sequenceName);
+
+    /**
+     * Next human-readable code for the prefix, e.g. "ORD00000042".
+     * The prefix doubles as the sequence name.
+     */
+    default String nextCode(String prefix) {
+        return prefix + String.format("%0" + CODE_DIGITS + "d", next(prefix));
+    }
+}
@@ -0,0 +1,301 @@
+package com.josephken.roors.common.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.josephken.roors.common.entity.IdempotencyRecord;
+import com.josephken.roors.common.entity.IdempotencyRecordStatus;
+import com.josephken.roors.common.exception.IdempotencyKeyInUseException;
+import com.josephken.roors.common.exception.IdempotencyKeyReusedException;
+import com.josephken.roors.common.repository.IdempotencyRecordRepository;
+import com.josephken.roors.common.util.LogCategory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs an operation at most once per Idempotency-Key and replays its response to retries.
+ * <p>
+ * Completed responses are cached in a bounded, TTL-limited in-memory map, so a retry storm
+ * against one instance is answered without touching the database. Duplicates arriving while
+ * the first request is still running wait on it: in-process through a shared future, across
+ * instances by polling the durable {@code idempotency_records} row. That row is claimed in its
+ * own transaction before the operation runs and completed in the operation's transaction, so
+ * the response is recorded if and only if the operation committed. A failed operation releases
+ * its claim so the client can retry. The lease on a claim is renewed while its operation runs,
+ * so only a claim left by a crashed instance runs out and is taken over.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate claimTransaction;
+    private final Duration ttl;
+    private final Duration lease;
+    private final long waitMillis;
+    private final Map<String, CompletableFuture<Outcome>> inFlight = new ConcurrentHashMap<>();
+    // Claims whose operation is running on this instance, renewed by renewLeases
+    private final Set<Long> heldClaims = ConcurrentHashMap.newKeySet();
+    private final Map<String, CachedOutcome> completed;
+
+    public IdempotencyService(
+            IdempotencyRecordRepository idempotencyRecordRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.idempotency.ttl-ms:86400000}") long ttlMillis,
+            @Value("${app.idempotency.lease-ms:30000}") long leaseMillis,
+            @Value("${app.idempotency.wait-ms:10000}") long waitMillis,
+            @Value("${app.idempotency.cache-size:10000}") int cacheSize
+    ) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        // Claims commit on their own so other instances see them while the operation runs
+        this.claimTransaction = new TransactionTemplate(transactionManager);
+        this.claimTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttl = Duration.ofMillis(ttlMillis);
+        this.lease = Duration.ofMillis(leaseMillis);
+        this.waitMillis = waitMillis;
+        this.completed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedOutcome> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Run the action once for this scope and key, or return the response of the run that already
+     * happened. The request is fingerprinted so a key reused for a different request is rejected.
+     *
+     * @param scope operation and caller the key is valid for, e.g. "orders.create:42"
+     */
+    public <T> T execute(String scope, String key, Object request, Class<T> responseType, Supplier<T> action) {
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String cacheKey = scope + "\n" + key;
+        String requestHash = fingerprint(request);
+
+        CachedOutcome cached = cachedOutcome(cacheKey);
+        if (cached != null) {
+            return replay(cached.outcome, key, requestHash, responseType);
+        }
+
+        CompletableFuture<Outcome> mine = new CompletableFuture<>();
+        CompletableFuture<Outcome> running = inFlight.putIfAbsent(cacheKey, mine);
+        if (running != null) {
+            return replay(await(running, key), key, requestHash, responseType);
+        }
+
+        try {
+            Outcome outcome = runOnce(scope, key, requestHash, action);
+            synchronized (completed) {
+                completed.put(cacheKey, new CachedOutcome(outcome, System.currentTimeMillis() + ttl.toMillis()));
+            }
+            mine.complete(outcome);
+            return replay(outcome, key, requestHash, responseType);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, mine);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int deleted = transaction.execute(status -> idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+        long now = System.currentTimeMillis();
+        synchronized (completed) {
+            completed.values().removeIf(cached -> cached.expiresAtMillis < now);
+        }
+        if (deleted > 0) {
+            log.info(LogCategory.system("Purged " + deleted + " expired idempotency records"));
+        }
+    }
+
+    /**
+     * Extend the lease of every claim this instance is still working on. The interval must stay
+     * well below the lease, or a slow operation's claim can be taken over while it runs.
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.renew-interval-ms:10000}")
+    public void renewLeases() {
+        List<Long> recordIds = List.copyOf(heldClaims);
+        if (recordIds.isEmpty()) {
+            return;
+        }
+        int renewed = claimTransaction.execute(status ->
+                idempotencyRecordRepository.renewLeases(recordIds, LocalDateTime.now().plus(lease)));
+        if (renewed < recordIds.size()) {
+            // Completed meanwhile, or released by a failed run; either way no longer ours to renew
+            log.debug(LogCategory.system("Renewed " + renewed + " of " + recordIds.size() + " idempotency leases"));
+        }
+    }
+
+    private <T> Outcome runOnce(String scope, String key, String requestHash, Supplier<T> action) {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        while (true) {
+            Claim claim;
+            try {
+                claim = claimTransaction.execute(status -> claim(scope, key, requestHash));
+            } catch (DataIntegrityViolationException e) {
+                // Another instance claimed the key first; the next round sees its claim
+                claim = new Claim(null, null);
+            }
+            if (claim.outcome != null) {
+                return claim.outcome;
+            }
+            if (claim.recordId != null) {
+                return run(claim.recordId, requestHash, action);
+            }
+            // Another instance holds a live claim: wait for its response
+            if (System.currentTimeMillis() >= deadline) {
+                throw new IdempotencyKeyInUseException(key);
+            }
+            sleep();
+        }
+    }
+
+    /**
+     * Claim the key, or report the finished outcome, or neither while someone else holds it
+     */
+    private Claim claim(String scope, String key, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord record = idempotencyRecordRepository.findByScopeAndIdempotencyKey(scope, key).orElse(null);
+        if (record == null) {
+            // An explicit INSERT, so a concurrent claimer fails on the unique key instead of both running
+            idempotencyRecordRepository.claim(scope, key, requestHash, now,
+                    now.plus(lease), now.plus(ttl));
+            return new Claim(idempotencyRecordRepository.findByScopeAndIdempotencyKey(scope, key)
+                    .orElseThrow().getId(), null);
+        }
+        if (record.getStatus() == IdempotencyRecordStatus.COMPLETED) {
+            return new Claim(null, new Outcome(record.getRequestHash(), record.getResponse()));
+        }
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReusedException(key);
+        }
+        boolean takenOver = idempotencyRecordRepository.takeOverStale(
+                record.getId(), now, now.plus(lease)) == 1;
+        return new Claim(takenOver ? record.getId() : null, null);
+    }
+
+    private <T> Outcome run(Long recordId, String requestHash, Supplier<T> action) {
+        heldClaims.add(recordId);
+        try {
+            return transaction.execute(status -> {
+                T result = action.get();
+                String response = serialize(result);
+                idempotencyRecordRepository.complete(recordId, response,
+                        LocalDateTime.now().plus(ttl));
+                return new Outcome(requestHash, response);
+            });
+        } catch (RuntimeException e) {
+            // Nothing was committed, so free the key for the client's next attempt
+            claimTransaction.executeWithoutResult(status ->
+                    idempotencyRecordRepository.deleteByIdAndStatus(recordId, IdempotencyRecordStatus.IN_PROGRESS));
+            throw e;
+        } finally {
+            heldClaims.remove(recordId);
+        }
+    }
+
+    private CachedOutcome cachedOutcome(String cacheKey) {
+        synchronized (completed) {
+            CachedOutcome cached = completed.get(cacheKey);
+            if (cached != null && cached.expiresAtMillis < System.currentTimeMillis()) {
+                completed.remove(cacheKey);
+                return null;
+            }
+            return cached;
+        }
+    }
+
+    private Outcome await(CompletableFuture<Outcome> running, String key) {
+        try {
+            return running.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyInUseException(key);
+        } catch (ExecutionException e) {
+            // The first attempt failed and released the key; surface the same failure to its duplicates
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInUseException(key);
+        }
+    }
+
+    private <T> T replay(Outcome outcome, String key, String requestHash, Class<T> responseType) {
+        if (!outcome.requestHash.equals(requestHash)) {
+            throw new IdempotencyKeyReusedException(key);
+        }
+        try {
+            return objectMapper.readValue(outcome.response, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable idempotent response for key " + key, e);
+        }
+    }
+
+    private String serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize idempotent response", e);
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(serialize(request).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an idempotent request", e);
+        }
+    }
+
+    private record Claim(Long recordId, Outcome outcome) {
+    }
+
+    private record Outcome(String requestHash, String response) {
+    }
+
+    private record CachedOutcome(Outcome outcome, long expiresAtMillis) {
+    }
+}
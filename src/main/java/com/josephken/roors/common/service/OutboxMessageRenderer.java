@@ -0,0 +1,25 @@
+package com.josephken.roors.common.service;
+
+import com.josephken.roors.common.entity.OutboxMessage;
+import com.josephken.roors.common.entity.OutboxMessageType;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns outbox messages of some types into emails, loading what they refer to in bulk.
+ * Each module that writes to the outbox provides one.
+ */
+public interface OutboxMessageRenderer {
+
+    Set<OutboxMessageType> supportedTypes();
+
+    /**
+     * Render a batch of messages of the supported types.
+     *
+     * @return emails keyed by outbox message id; messages whose order or reservation no longer exists are left out
+     */
+    Map<Long, SimpleMailMessage> render(List<OutboxMessage> messages);
+}
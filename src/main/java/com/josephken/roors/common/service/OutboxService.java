@@ -0,0 +1,33 @@
+package com.josephken.roors.common.service;
+
+import com.josephken.roors.common.entity.OutboxMessage;
+import com.josephken.roors.common.entity.OutboxMessageType;
+import com.josephken.roors.common.repository.OutboxMessageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+/**
+ * Records side effects in the caller's transaction, so they are delivered if and only if it commits
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(OutboxMessageType type, Long aggregateId) {
+        outboxMessageRepository.save(new OutboxMessage(type, aggregateId));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(OutboxMessageType type, Collection<Long> aggregateIds) {
+        outboxMessageRepository.saveAll(aggregateIds.stream()
+                .map(aggregateId -> new OutboxMessage(type, aggregateId))
+                .toList());
+    }
+}
@@ -0,0 +1,28 @@
+package com.josephken.roors.common.util;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+
+/**
+ * Tells startup initializers which database they run against, so PostgreSQL-only DDL is
+ * skipped on the H2 database used by tests and local runs.
+ */
+public final class DatabaseProduct {
+
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    private DatabaseProduct() {
+    }
+
+    /**
+     * Product name reported by the JDBC driver, e.g. "PostgreSQL" or "H2"
+     */
+    public static String name(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.execute((Connection connection) -> connection.getMetaData().getDatabaseProductName());
+    }
+
+    public static boolean isPostgreSql(String name) {
+        return POSTGRESQL.equalsIgnoreCase(name);
+    }
+}
@@ -0,0 +1,47 @@
+package com.josephken.roors.common.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Folds free text into the form stored in search columns and used for search terms,
+ * so that "Nguyễn Văn Đức", "nguyen van duc" and "NGUYEN VAN DUC" all compare equal.
+ */
+public final class SearchText {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NON_DIGITS = Pattern.compile("\\D+");
+    private static final Pattern PHONE_LIKE = Pattern.compile("[+\\d][\\d\\s.()-]*");
+
+    private SearchText() {
+    }
+
+    /**
+     * Lower-cases, strips diacritics (including the Vietnamese đ, which has no decomposition)
+     * and collapses whitespace. Returns an empty string for null.
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String folded = COMBINING_MARKS.matcher(decomposed).replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT);
+        return WHITESPACE.matcher(folded).replaceAll(" ").trim();
+    }
+
+    /**
+     * Keeps only the digits, so phone numbers match regardless of spacing or punctuation.
+     */
+    public static String digits(String text) {
+        return text == null ? "" : NON_DIGITS.matcher(text).replaceAll("");
+    }
+
+    public static boolean looksLikePhone(String text) {
+        return text != null && PHONE_LIKE.matcher(text.trim()).matches();
+    }
+}
@@ -0,0 +1,86 @@
+package com.josephken.roors.common.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of Vietnamese dong.
+ * <p>
+ * VND has no minor unit, so an amount is a whole number of dong held in a {@code long}:
+ * arithmetic is exact, overflow throws {@link ArithmeticException}, and short-lived values
+ * in pricing loops are scalar-replaced by the JIT instead of allocating like BigDecimal
+ * temporaries do. Entities and JSON keep BigDecimal; convert with {@link #of(BigDecimal)}
+ * and {@link #toBigDecimal()} at those boundaries only.
+ */
+public record Vnd(long amount) implements Comparable<Vnd> {
+
+    public static final Vnd ZERO = new Vnd(0);
+
+    private static final long BASIS_POINTS = 10_000;
+    private static final double MAX_EXACT_DOUBLE = 1e12;
+
+    public static Vnd of(long amount) {
+        return amount == 0 ? ZERO : new Vnd(amount);
+    }
+
+    /**
+     * Amounts are stored as numeric(10,2); a stray fraction of a dong is rounded half up
+     *
+     * @throws ArithmeticException if the amount does not fit in a long
+     */
+    public static Vnd of(BigDecimal amount) {
+        if (amount.scale() == 0) {
+            return of(amount.longValueExact());
+        }
+        // doubleValue() of a small scaled BigDecimal divides its compact long without allocating,
+        // and is exact when the quotient is a whole number well inside double precision
+        double value = amount.doubleValue();
+        if (Math.abs(value) < MAX_EXACT_DOUBLE && value == Math.rint(value)) {
+            return of((long) value);
+        }
+        return of(amount.setScale(0, RoundingMode.HALF_UP).longValueExact());
+    }
+
+    public Vnd plus(Vnd other) {
+        return new Vnd(Math.addExact(amount, other.amount));
+    }
+
+    public Vnd minus(Vnd other) {
+        return new Vnd(Math.subtractExact(amount, other.amount));
+    }
+
+    public Vnd times(long quantity) {
+        return new Vnd(Math.multiplyExact(amount, quantity));
+    }
+
+    /**
+     * This amount scaled by a rate in basis points (1/100 of a percent), rounded half up to the dong
+     */
+    public Vnd basisPoints(int rate) {
+        long scaled = Math.multiplyExact(amount, rate);
+        long half = scaled >= 0 ? BASIS_POINTS / 2 : -BASIS_POINTS / 2;
+        return new Vnd((scaled + half) / BASIS_POINTS);
+    }
+
+    public boolean isPositive() {
+        return amount > 0;
+    }
+
+    /**
+     * Scale 2, matching the numeric(10,2) money columns, so a converted amount equals one read back.
+     * Built from the unscaled value directly, which allocates one BigDecimal instead of two.
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(Math.multiplyExact(amount, 100), 2);
+    }
+
+    @Override
+    public int compareTo(Vnd other) {
+        return Long.compare(amount, other.amount);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(amount);
+    }
+}
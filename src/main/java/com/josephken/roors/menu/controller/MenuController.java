@@ -4,12 +4,14 @@ import com.josephken.roors.auth.dto.MessageResponse;
 import com.josephken.roors.menu.dto.MenuItemRequest;
 import com.josephken.roors.menu.dto.MenuItemResponse;
 import com.josephken.roors.menu.dto.DishRatingResponse;
+import com.josephken.roors.menu.service.MenuItemOrderCounter;
 import com.josephken.roors.menu.service.MenuItemService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
@@ -25,6 +27,7 @@ import lombok.extern.slf4j.Slf4j;
 public class MenuController {
 
     private final MenuItemService menuItemService;
+    private final MenuItemOrderCounter menuItemOrderCounter;
 
     @GetMapping
     public ResponseEntity<Page<MenuItemResponse>> getAllMenuItems(
@@ -137,6 +140,20 @@ public class MenuController {
         return ResponseEntity.ok(new MessageResponse("Menu item deleted successfully"));
     }
 
+    @PostMapping("/admin/ratings/rebuild")
+    @PreAuthorize("hasRole('MANAGER')")
+    public ResponseEntity<MessageResponse> rebuildRatingAggregates() {
+        int repaired = menuItemService.rebuildRatingAggregates();
+        return ResponseEntity.ok(new MessageResponse("Rating aggregates rebuilt, " + repaired + " menu items corrected"));
+    }
+
+    @PostMapping("/admin/order-counts/recount")
+    @PreAuthorize("hasRole('MANAGER')")
+    public ResponseEntity<MessageResponse> recountOrderCounts() {
+        int recounted = menuItemOrderCounter.recount();
+        return ResponseEntity.ok(new MessageResponse("Order counts recounted for " + recounted + " menu items"));
+    }
+
     @GetMapping("/{id}/ratings")
     public ResponseEntity<List<DishRatingResponse>> getDishRatings(
             @PathVariable Long id,
@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -28,6 +29,8 @@ public class MenuItemResponse {
     private String servingSize;
     private Double rating;
     private Integer reviewCount;
+    // Rating counts per star, index 0 = 1 star
+    private List<Integer> ratingHistogram;
     private Integer orderCount;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
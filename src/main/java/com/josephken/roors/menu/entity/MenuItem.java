@@ -5,9 +5,11 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Entity
 @Table(name = "menu_items")
@@ -70,6 +72,31 @@ public class MenuItem {
     @Column(name = "review_count")
     private Integer reviewCount = 0;
 
+    // Running rating aggregates, maintained incrementally by MenuItemRepository.applyRatingChange
+    @ColumnDefault("0")
+    @Column(name = "rating_sum", nullable = false)
+    private Long ratingSum = 0L;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_1_count", nullable = false)
+    private Integer rating1Count = 0;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_2_count", nullable = false)
+    private Integer rating2Count = 0;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_3_count", nullable = false)
+    private Integer rating3Count = 0;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_4_count", nullable = false)
+    private Integer rating4Count = 0;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_5_count", nullable = false)
+    private Integer rating5Count = 0;
+
     @Column(name = "order_count")
     private Integer orderCount = 0;
 
@@ -93,6 +120,13 @@ public class MenuItem {
         updatedAt = LocalDateTime.now();
     }
 
+    /**
+     * Number of ratings per star, index 0 holding the 1-star count.
+     */
+    public List<Integer> getRatingHistogram() {
+        return List.of(rating1Count, rating2Count, rating3Count, rating4Count, rating5Count);
+    }
+
     private String generateSlug(String name) {
         return name.toLowerCase()
                 .replaceAll("[^a-z0-9\\s-]", "")
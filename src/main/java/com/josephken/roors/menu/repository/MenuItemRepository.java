@@ -2,9 +2,12 @@ package com.josephken.roors.menu.repository;
 
 import com.josephken.roors.menu.entity.Category;
 import com.josephken.roors.menu.entity.MenuItem;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -57,4 +60,53 @@ public interface MenuItemRepository extends JpaRepository<MenuItem, Long> {
     List<MenuItem> findTop10ByIsAvailableTrueOrderByOrderCountDesc();
     
     boolean existsBySlug(String slug);
+
+    /**
+     * Applies one dish rating to the running aggregates in a single statement.
+     * A previous rating of 0 means the dish is rated for the first time; otherwise
+     * the previous star is swapped for the new one and the review count is unchanged.
+     * Every SET expression reads the pre-update column values, so concurrent ratings
+     * serialize on the row lock instead of overwriting each other.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE MenuItem m SET " +
+           "m.ratingSum = m.ratingSum + :newRating - :previousRating, " +
+           "m.reviewCount = COALESCE(m.reviewCount, 0) + CASE WHEN :previousRating = 0 THEN 1 ELSE 0 END, " +
+           "m.rating1Count = m.rating1Count + CASE WHEN :newRating = 1 THEN 1 ELSE 0 END - CASE WHEN :previousRating = 1 THEN 1 ELSE 0 END, " +
+           "m.rating2Count = m.rating2Count + CASE WHEN :newRating = 2 THEN 1 ELSE 0 END - CASE WHEN :previousRating = 2 THEN 1 ELSE 0 END, " +
+           "m.rating3Count = m.rating3Count + CASE WHEN :newRating = 3 THEN 1 ELSE 0 END - CASE WHEN :previousRating = 3 THEN 1 ELSE 0 END, " +
+           "m.rating4Count = m.rating4Count + CASE WHEN :newRating = 4 THEN 1 ELSE 0 END - CASE WHEN :previousRating = 4 THEN 1 ELSE 0 END, " +
+           "m.rating5Count = m.rating5Count + CASE WHEN :newRating = 5 THEN 1 ELSE 0 END - CASE WHEN :previousRating = 5 THEN 1 ELSE 0 END, " +
+           "m.rating = ROUND(1.0 * (m.ratingSum + :newRating - :previousRating) / " +
+           "(COALESCE(m.reviewCount, 0) + CASE WHEN :previousRating = 0 THEN 1 ELSE 0 END), 2) " +
+           "WHERE m.id = :id")
+    int applyRatingChange(@Param("id") Long id,
+                          @Param("previousRating") int previousRating,
+                          @Param("newRating") int newRating);
+
+    /**
+     * Resets every order count to the units sold in completed orders, archived ones included,
+     * the value that MenuItemOrderCounter keeps up to date incrementally.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE MenuItem m SET m.orderCount = (" +
+           "SELECT COALESCE(SUM(oi.quantity), 0) FROM OrderItem oi " +
+           "WHERE oi.menuItem = m AND oi.order.status = com.josephken.roors.order.entity.OrderStatus.COMPLETED) + (" +
+           "SELECT COALESCE(SUM(ai.quantity), 0) FROM ArchivedOrderItem ai " +
+           "WHERE ai.menuItemId = m.id AND ai.order.status = com.josephken.roors.order.entity.OrderStatus.COMPLETED)")
+    int recountOrderCounts();
+
+    /**
+     * Locks one menu item so no rating can be applied while its aggregates are rebuilt.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM MenuItem m WHERE m.id = :id")
+    Optional<MenuItem> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Menu items whose rating histogram does not add up to their review count
+     */
+    @Query("SELECT m.id FROM MenuItem m WHERE COALESCE(m.reviewCount, 0) <> " +
+           "m.rating1Count + m.rating2Count + m.rating3Count + m.rating4Count + m.rating5Count")
+    List<Long> findIdsWithInconsistentRatingAggregates();
 }
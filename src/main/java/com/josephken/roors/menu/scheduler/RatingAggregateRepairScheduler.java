@@ -0,0 +1,29 @@
+package com.josephken.roors.menu.scheduler;
+
+import com.josephken.roors.menu.service.MenuItemService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Nightly safety net for the incrementally maintained dish rating aggregates, plus a startup
+ * backfill for items whose aggregates were never filled in.
+ */
+@Component
+@RequiredArgsConstructor
+public class RatingAggregateRepairScheduler {
+
+    private final MenuItemService menuItemService;
+
+    @Scheduled(cron = "${app.menu.rating-repair-cron:0 30 3 * * ?}")
+    public void repair() {
+        menuItemService.rebuildRatingAggregates();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        menuItemService.backfillRatingAggregates();
+    }
+}
@@ -0,0 +1,140 @@
+package com.josephken.roors.menu.service;
+
+import com.josephken.roors.common.util.LogCategory;
+import com.josephken.roors.menu.repository.MenuItemRepository;
+import com.josephken.roors.order.dto.OrderItemsCompletedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind aggregator for {@code MenuItem.orderCount}, the units sold in completed orders
+ * that ranks {@code /api/menu/popular}.
+ * <p>
+ * Completions only bump an in-memory {@link LongAdder} per menu item, so the best sellers' rows
+ * are not locked by every order. The accumulated deltas are written periodically in one JDBC
+ * batch. Counts not yet flushed when an instance dies are lost; an admin can recount them from
+ * {@code order_items}. That is not done on every start: other instances' unflushed deltas would
+ * be counted by the recount and then added again by their next flush.
+ */
+@Slf4j
+@Component
+public class MenuItemOrderCounter {
+
+    private static final String INCREMENT_SQL =
+            "UPDATE menu_items SET order_count = COALESCE(order_count, 0) + ? WHERE id = ?";
+
+    private final MenuItemRepository menuItemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final boolean recountOnStartup;
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    public MenuItemOrderCounter(
+            MenuItemRepository menuItemRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.menu.order-counter.recount-on-startup:false}") boolean recountOnStartup
+    ) {
+        this.menuItemRepository = menuItemRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.recountOnStartup = recountOnStartup;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderItemsCompleted(OrderItemsCompletedEvent event) {
+        event.getQuantitiesByMenuItemId().forEach(this::increment);
+    }
+
+    public void increment(Long menuItemId, long quantity) {
+        counters.computeIfAbsent(menuItemId, id -> new Counter()).total.add(quantity);
+    }
+
+    /**
+     * Writes the deltas accumulated since the last flush, one batched UPDATE per menu item,
+     * in id order so concurrent flushes from several instances cannot deadlock.
+     *
+     * @return number of menu items updated
+     */
+    @Scheduled(fixedDelayString = "${app.menu.order-counter.flush-ms:10000}",
+            initialDelayString = "${app.menu.order-counter.flush-ms:10000}")
+    public synchronized int flush() {
+        // A delta is the adder's running total minus what was already written; unlike
+        // sumThenReset this never drops an increment racing with the flush
+        Map<Long, Long> deltas = new TreeMap<>();
+        counters.forEach((id, counter) -> {
+            long delta = counter.total.sum() - counter.flushed;
+            if (delta != 0) {
+                deltas.put(id, delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> batch = new ArrayList<>(deltas.size());
+        deltas.forEach((id, delta) -> batch.add(new Object[]{delta, id}));
+        try {
+            transaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INCREMENT_SQL, batch));
+        } catch (RuntimeException e) {
+            log.error(LogCategory.error("Failed to flush order counts, will retry: " + e.getMessage()));
+            return 0;
+        }
+
+        deltas.forEach((id, delta) -> counters.get(id).flushed += delta);
+        log.debug(LogCategory.menu("Flushed order counts for " + deltas.size() + " menu items"));
+        return deltas.size();
+    }
+
+    /**
+     * Recomputes every order count from completed orders. Increments are only counted after their
+     * transaction commits, so whatever is pending in this instance is already part of the recount
+     * and is dropped. Deltas pending in other instances cannot be dropped and end up counted twice,
+     * so this is a repair for lost counts, best run while a single instance is serving.
+     *
+     * @return number of menu items recounted
+     */
+    public synchronized int recount() {
+        int updated = transaction.execute(status -> menuItemRepository.recountOrderCounts());
+        counters.values().forEach(counter -> counter.flushed = counter.total.sum());
+        log.info(LogCategory.menu("Recounted order counts for " + updated + " menu items"));
+        return updated;
+    }
+
+    /**
+     * Opt-in, for single-instance deployments where no other instance can hold pending deltas
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recountOnStartup() {
+        if (recountOnStartup) {
+            recount();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static final class Counter {
+        private final LongAdder total = new LongAdder();
+        // Only read and written under the flush/recount monitor
+        private long flushed;
+    }
+}
@@ -8,30 +8,51 @@ import com.josephken.roors.menu.entity.Category;
 import com.josephken.roors.menu.entity.MenuItem;
 import com.josephken.roors.menu.repository.CategoryRepository;
 import com.josephken.roors.menu.repository.MenuItemRepository;
+import com.josephken.roors.order.repository.ArchivedOrderItemRepository;
 import com.josephken.roors.order.repository.OrderItemRepository;
 import com.josephken.roors.common.util.LogCategory;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import org.springframework.data.domain.PageRequest;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class MenuItemService {
 
     private final MenuItemRepository menuItemRepository;
     private final CategoryRepository categoryRepository;
     private final OrderItemRepository orderItemRepository;
+    private final ArchivedOrderItemRepository archivedOrderItemRepository;
+    private final TransactionTemplate transaction;
+
+    public MenuItemService(
+            MenuItemRepository menuItemRepository,
+            CategoryRepository categoryRepository,
+            OrderItemRepository orderItemRepository,
+            ArchivedOrderItemRepository archivedOrderItemRepository,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.menuItemRepository = menuItemRepository;
+        this.categoryRepository = categoryRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.archivedOrderItemRepository = archivedOrderItemRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
 
     @Transactional(readOnly = true)
     public Page<MenuItemResponse> getAllMenuItems(int page, int size, String sortBy, String sortDir) {
@@ -263,6 +284,124 @@ public class MenuItemService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Rebuilds every menu item's rating sum, count, histogram and average from the rated
+     * order items, archived ones included. Drift is found from one unlocked scan; only the
+     * drifted items are then locked and recomputed, one short transaction each.
+     *
+     * @return number of menu items whose aggregates had drifted and were corrected
+     */
+    public int rebuildRatingAggregates() {
+        List<Object[]> rows = new ArrayList<>(orderItemRepository.countRatingsByMenuItemAndStars());
+        rows.addAll(archivedOrderItemRepository.countRatingsByMenuItemAndStars());
+        Map<Long, long[]> histograms = ratingHistograms(rows);
+
+        List<MenuItem> menuItems = menuItemRepository.findAll();
+        int repaired = 0;
+        for (MenuItem menuItem : menuItems) {
+            if (!hasRatingAggregates(menuItem, histograms.getOrDefault(menuItem.getId(), new long[5]))
+                    && repairRatingAggregates(menuItem.getId())) {
+                repaired++;
+            }
+        }
+
+        log.info(LogCategory.menu("Rebuilt rating aggregates: " + repaired + " of " +
+                menuItems.size() + " menu items corrected"));
+        return repaired;
+    }
+
+    /**
+     * Fills in the aggregates of menu items whose histogram does not add up to their review
+     * count, such as items rated before the aggregate columns existed and backfilled with zeros.
+     * Consistent items are not touched, so this only does work once.
+     *
+     * @return number of menu items corrected
+     */
+    public int backfillRatingAggregates() {
+        List<Long> menuItemIds = menuItemRepository.findIdsWithInconsistentRatingAggregates();
+        int repaired = 0;
+        for (Long menuItemId : menuItemIds) {
+            if (repairRatingAggregates(menuItemId)) {
+                repaired++;
+            }
+        }
+        if (!menuItemIds.isEmpty()) {
+            log.info(LogCategory.menu("Backfilled rating aggregates of " + repaired + " menu items"));
+        }
+        return repaired;
+    }
+
+    /**
+     * Locks one menu item and recomputes its aggregates from its rated order items. A rating
+     * submitted meanwhile either committed before the lock and is counted, or is applied on top
+     * of the rebuilt values once the lock is released.
+     *
+     * @return whether the stored aggregates had drifted
+     */
+    private boolean repairRatingAggregates(Long menuItemId) {
+        return Boolean.TRUE.equals(transaction.execute(status -> {
+            MenuItem menuItem = menuItemRepository.findByIdForUpdate(menuItemId).orElse(null);
+            if (menuItem == null) {
+                return false;
+            }
+            List<Object[]> rows = new ArrayList<>(orderItemRepository.countRatingsByStarsForMenuItem(menuItemId));
+            rows.addAll(archivedOrderItemRepository.countRatingsByStarsForMenuItem(menuItemId));
+            long[] histogram = ratingHistograms(rows).getOrDefault(menuItemId, new long[5]);
+            if (hasRatingAggregates(menuItem, histogram)) {
+                return false;
+            }
+
+            List<Integer> counts = Arrays.stream(histogram).mapToObj(c -> (int) c).toList();
+            long count = Arrays.stream(histogram).sum();
+            long sum = ratingSum(histogram);
+            menuItem.setRatingSum(sum);
+            menuItem.setReviewCount((int) count);
+            menuItem.setRating1Count(counts.get(0));
+            menuItem.setRating2Count(counts.get(1));
+            menuItem.setRating3Count(counts.get(2));
+            menuItem.setRating4Count(counts.get(3));
+            menuItem.setRating5Count(counts.get(4));
+            menuItem.setRating(averageRating(sum, count));
+            return true;
+        }));
+    }
+
+    /**
+     * Folds (menuItemId, dishRating, count) rows into a five-slot histogram per menu item
+     */
+    private static Map<Long, long[]> ratingHistograms(List<Object[]> rows) {
+        Map<Long, long[]> histograms = new HashMap<>();
+        for (Object[] row : rows) {
+            int stars = ((Number) row[1]).intValue();
+            if (row[0] == null || stars < 1 || stars > 5) {
+                continue;
+            }
+            histograms.computeIfAbsent((Long) row[0], id -> new long[5])[stars - 1] += ((Number) row[2]).longValue();
+        }
+        return histograms;
+    }
+
+    private static boolean hasRatingAggregates(MenuItem menuItem, long[] histogram) {
+        long count = Arrays.stream(histogram).sum();
+        long sum = ratingSum(histogram);
+        return menuItem.getRatingSum() == sum
+                && menuItem.getReviewCount() != null && menuItem.getReviewCount() == count
+                && menuItem.getRatingHistogram().equals(Arrays.stream(histogram).mapToObj(c -> (int) c).toList())
+                && menuItem.getRating() != null && menuItem.getRating() == averageRating(sum, count);
+    }
+
+    private static long ratingSum(long[] histogram) {
+        long sum = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            sum += histogram[i] * (i + 1);
+        }
+        return sum;
+    }
+
+    private static double averageRating(long sum, long count) {
+        return count > 0 ? Math.round(sum * 100.0 / count) / 100.0 : 0.0;
+    }
+
     public MenuItemResponse mapToResponse(MenuItem menuItem) {
         CategoryResponse categoryResponse = new CategoryResponse(
                 menuItem.getCategory().getId(),
@@ -294,6 +433,7 @@ public class MenuItemService {
                 menuItem.getServingSize(),
                 menuItem.getRating(),
                 menuItem.getReviewCount(),
+                menuItem.getRatingHistogram(),
                 menuItem.getOrderCount(),
                 menuItem.getCreatedAt(),
                 menuItem.getUpdatedAt(),
@@ -0,0 +1,103 @@
+package com.josephken.roors.order.config;
+
+import com.josephken.roors.common.util.DatabaseProduct;
+import com.josephken.roors.common.util.LogCategory;
+import com.josephken.roors.order.entity.Order;
+import com.josephken.roors.order.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Prepares the indexes behind the admin order search.
+ * <p>
+ * JPA cannot declare them: on PostgreSQL, {@code search_text} gets a pg_trgm GIN index so
+ * {@code LIKE '%term%'} is answered from the index, and {@code order_number} gets a
+ * {@code varchar_pattern_ops} index so prefix {@code LIKE 'ORD12%'} works under any collation.
+ * Both are built {@code CONCURRENTLY} so startup does not block order writes. On other databases
+ * (H2 in tests) the search still works, just without these indexes.
+ * <p>
+ * Orders written before {@code search_text} existed are backfilled in batches.
+ */
+@Slf4j
+@Component
+public class OrderSearchIndexInitializer {
+
+    private static final List<String> POSTGRES_DDL = List.of(
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_search_text_trgm " +
+                    "ON orders USING gin (search_text gin_trgm_ops)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_order_number_prefix " +
+                    "ON orders (order_number varchar_pattern_ops)"
+    );
+
+    private final OrderRepository orderRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final int backfillBatchSize;
+
+    public OrderSearchIndexInitializer(
+            OrderRepository orderRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.orders.search.backfill-batch-size:500}") int backfillBatchSize
+    ) {
+        this.orderRepository = orderRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.backfillBatchSize = backfillBatchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        createIndexes();
+        backfillSearchText();
+    }
+
+    private void createIndexes() {
+        String database = DatabaseProduct.name(jdbcTemplate);
+        if (!DatabaseProduct.isPostgreSql(database)) {
+            log.info(LogCategory.system("Order search indexes skipped on " + database));
+            return;
+        }
+
+        for (String ddl : POSTGRES_DDL) {
+            try {
+                jdbcTemplate.execute(ddl);
+            } catch (RuntimeException e) {
+                // e.g. no permission to create the extension; search falls back to sequential scans
+                log.warn(LogCategory.system("Order search index statement failed: " + ddl + ": " + e.getMessage()));
+            }
+        }
+        log.info(LogCategory.system("Order search indexes ready"));
+    }
+
+    /**
+     * @return number of orders whose search text was filled in
+     */
+    public int backfillSearchText() {
+        int total = 0;
+        int filled;
+        do {
+            filled = transaction.execute(status -> {
+                List<Order> orders = orderRepository.findBySearchTextIsNull(PageRequest.of(0, backfillBatchSize));
+                orders.forEach(Order::refreshSearchText);
+                return orders.size();
+            });
+            total += filled;
+        } while (filled == backfillBatchSize);
+
+        if (total > 0) {
+            log.info(LogCategory.system("Backfilled search text for " + total + " orders"));
+        }
+        return total;
+    }
+}
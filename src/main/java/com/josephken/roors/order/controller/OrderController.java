@@ -1,24 +1,40 @@
 package com.josephken.roors.order.controller;
 
 import com.josephken.roors.auth.entity.User;
+import com.josephken.roors.auth.dto.ErrorResponse;
+import com.josephken.roors.common.dto.CursorPage;
+import com.josephken.roors.common.exception.IdempotencyKeyInUseException;
+import com.josephken.roors.common.exception.IdempotencyKeyReusedException;
+import com.josephken.roors.common.service.IdempotencyService;
 import com.josephken.roors.order.dto.*;
 import com.josephken.roors.order.entity.OrderStatus;
+import com.josephken.roors.order.entity.OrderType;
+import com.josephken.roors.order.exception.InvalidStatusTransitionException;
+import com.josephken.roors.order.exception.OrderStatusConflictException;
+import com.josephken.roors.order.service.OrderEventStream;
 import com.josephken.roors.order.service.OrderService;
+import com.josephken.roors.order.service.OrderStatusHistoryService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import lombok.extern.slf4j.Slf4j;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Set;
 
 @Slf4j
 @RestController
@@ -26,14 +42,26 @@ import java.util.HashMap;
 @RequiredArgsConstructor
 public class OrderController {
 
+    // Retried POSTs carrying the same key replay the first response instead of creating another order
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    // Every preparation in the window is loaded to compute percentiles
+    private static final int MAX_PREPARATION_STATS_DAYS = 90;
+
     private final OrderService orderService;
+    private final OrderEventStream orderEventStream;
+    private final OrderStatusHistoryService orderStatusHistoryService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping
     public ResponseEntity<OrderResponse> createOrder(
             @AuthenticationPrincipal Long userId,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody CreateOrderRequest request) {
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(orderService.createOrder(userId, request));
+        OrderResponse order = idempotencyKey == null
+                ? orderService.createOrder(userId, request)
+                : idempotencyService.execute("orders.create:" + userId, idempotencyKey, request,
+                        OrderResponse.class, () -> orderService.createOrder(userId, request));
+        return ResponseEntity.status(HttpStatus.CREATED).body(order);
     }
 
     @GetMapping("/date/{date}")
@@ -56,6 +84,26 @@ public class OrderController {
         }
     }
 
+    /**
+     * Keyset mode: selected whenever a cursor parameter is present (send it empty for the first page)
+     */
+    @GetMapping(value = "/date/{date}", params = "cursor")
+    public ResponseEntity<CursorPage<OrderResponse>> getOrdersByDateAfter(
+            @PathVariable String date,
+            @RequestParam(defaultValue = "") String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(defaultValue = "false") boolean withCount) {
+
+        try {
+            LocalDate orderDate = LocalDate.parse(date);
+            return ResponseEntity.ok(orderService.getOrdersByDateAfter(orderDate, status, cursor, size, withCount));
+        } catch (DateTimeParseException e) {
+            log.error("Invalid date format provided: {}", date);
+            throw new IllegalArgumentException("Invalid date format. Please use YYYY-MM-DD");
+        }
+    }
+
     @GetMapping("/me")
     public ResponseEntity<Page<OrderResponse>> getUserOrders(
             @AuthenticationPrincipal Long userId,
@@ -68,6 +116,16 @@ public class OrderController {
         return ResponseEntity.ok(orderPage);
     }
     
+    @GetMapping(value = "/me", params = "cursor")
+    public ResponseEntity<CursorPage<OrderResponse>> getUserOrdersAfter(
+            @AuthenticationPrincipal Long userId,
+            @RequestParam(defaultValue = "") String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(defaultValue = "false") boolean withCount) {
+        return ResponseEntity.ok(orderService.getUserOrdersAfter(userId, status, cursor, size, withCount));
+    }
+
     @GetMapping
     public ResponseEntity<Page<OrderResponse>> listOrders(
             @RequestParam(required = false) OrderStatus status,
@@ -84,6 +142,30 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
     
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPage<OrderResponse>> listOrdersAfter(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "") String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean withCount
+    ) {
+        return ResponseEntity.ok(orderService.listOrdersAfter(status, search, cursor, size, withCount));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<CursorPage<OrderResponse>> searchOrders(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "") String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean withCount
+    ) {
+        return ResponseEntity.ok(orderService.searchOrders(q, status, from, to, cursor, size, withCount));
+    }
+
     @GetMapping("/status/{status}")
     public ResponseEntity<Page<OrderResponse>> getOrdersByStatus(
             @PathVariable OrderStatus status,
@@ -99,6 +181,16 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    @GetMapping(value = "/status/{status}", params = "cursor")
+    public ResponseEntity<CursorPage<OrderResponse>> getOrdersByStatusAfter(
+            @PathVariable OrderStatus status,
+            @RequestParam(defaultValue = "") String cursor,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(defaultValue = "false") boolean withCount
+    ) {
+        return ResponseEntity.ok(orderService.getOrdersByStatusAfter(status, cursor, size, withCount));
+    }
+
     // NEW: Get orders with ratings
     @GetMapping("/with-ratings")
     public ResponseEntity<Page<OrderResponse>> getOrdersWithRatings(
@@ -115,6 +207,42 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    /**
+     * Work order for kitchen displays: cooking orders first, then the queue by deadline
+     */
+    @GetMapping("/kitchen/queue")
+    public ResponseEntity<List<KitchenQueueEntry>> getKitchenQueue() {
+        return ResponseEntity.ok(orderService.getKitchenQueue());
+    }
+
+    /**
+     * Preparation-time percentiles per dish and hour of day, over the last {@code days} days (at most 90)
+     */
+    @GetMapping("/kitchen/preparation-times")
+    public ResponseEntity<List<PreparationTimeStats>> getPreparationTimeStats(
+            @RequestParam(defaultValue = "30") int days) {
+        if (days < 1 || days > MAX_PREPARATION_STATS_DAYS) {
+            throw new IllegalArgumentException("days must be between 1 and " + MAX_PREPARATION_STATS_DAYS);
+        }
+        return ResponseEntity.ok(orderStatusHistoryService.getPreparationTimeStats(
+                LocalDate.now().minusDays(days).atStartOfDay()));
+    }
+
+    /**
+     * Push channel for kitchen displays: one "order" event per committed create, update,
+     * status change or cancellation. Reconnecting clients resume from Last-Event-ID
+     * (or the lastEventId parameter, for clients that cannot set headers).
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrderEvents(
+            @RequestParam(required = false) Set<OrderStatus> status,
+            @RequestParam(required = false) Set<OrderType> orderType,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(required = false) String lastEventId) {
+        return orderEventStream.subscribe(status, orderType,
+                lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<OrderResponse> getOrderById(
             @AuthenticationPrincipal Long userId,
@@ -122,6 +250,16 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getOrderById(userId, id));
     }
 
+    /**
+     * Every status the order went through, oldest first, with who changed it. Staff only,
+     * since it names the staff members involved.
+     */
+    @GetMapping("/{id}/status-history")
+    @PreAuthorize("hasAnyRole('STAFF', 'MANAGER')")
+    public ResponseEntity<List<OrderStatusHistoryResponse>> getStatusHistory(@PathVariable Long id) {
+        return ResponseEntity.ok(orderStatusHistoryService.getTimeline(id));
+    }
+
     @PatchMapping("/{id}")
     public ResponseEntity<OrderResponse> updateOrder(
             @AuthenticationPrincipal Long userId,
@@ -141,9 +279,13 @@ public class OrderController {
     @PostMapping("/{id}/reorder")
     public ResponseEntity<OrderResponse> reorder(
             @AuthenticationPrincipal Long userId,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @PathVariable Long id) {
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(orderService.reorder(userId, id));
+        OrderResponse order = idempotencyKey == null
+                ? orderService.reorder(userId, id)
+                : idempotencyService.execute("orders.reorder:" + userId, idempotencyKey, id,
+                        OrderResponse.class, () -> orderService.reorder(userId, id));
+        return ResponseEntity.status(HttpStatus.CREATED).body(order);
     }
 
     @PutMapping("/{orderId}/status")    
@@ -153,10 +295,24 @@ public class OrderController {
 
         Map<String, Object> response = new HashMap<>();
         try {
-            var updatedOrder = orderService.updateOrderStatus(orderId, request.getStatus());
+            orderService.updateOrderStatus(orderId, request.getStatus(), request.getExpectedStatus());
             response.put("success", true);
             response.put("message", "Order status updated");
+            response.put("status", request.getStatus());
             return ResponseEntity.ok(response);
+        } catch (OrderStatusConflictException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            response.put("status", e.getCurrentStatus());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (InvalidStatusTransitionException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", e.getMessage());
@@ -167,6 +323,16 @@ public class OrderController {
         }
     }
 
+    /**
+     * Apply one status to many orders at once; per-order outcomes are returned even when some fail
+     */
+    @PutMapping("/status")
+    public ResponseEntity<BulkUpdateOrderStatusResponse> updateStatuses(
+            @Valid @RequestBody BulkUpdateOrderStatusRequest request) {
+        return ResponseEntity.ok(orderService.updateOrderStatuses(
+                request.getOrderIds(), request.getStatus(), request.getExpectedStatus()));
+    }
+
     // NEW: Submit order rating
     @PostMapping("/{orderId}/rating")
     public ResponseEntity<OrderResponse> submitOrderRating(
@@ -202,4 +368,22 @@ public class OrderController {
             @Valid @RequestBody AdminResponseRequest request) {
         return ResponseEntity.ok(orderService.respondToDishFeedback(orderId, itemId, request));
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler(OrderStatusConflictException.class)
+    public ResponseEntity<ErrorResponse> handleOrderStatusConflict(OrderStatusConflictException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), HttpStatus.CONFLICT.value());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
+    @ExceptionHandler(IdempotencyKeyInUseException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyInUse(IdempotencyKeyInUseException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), HttpStatus.CONFLICT.value());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyReused(IdempotencyKeyReusedException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY.value());
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(errorResponse);
+    }
+}
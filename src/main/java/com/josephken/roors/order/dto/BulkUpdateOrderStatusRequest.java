@@ -0,0 +1,27 @@
+package com.josephken.roors.order.dto;
+
+import com.josephken.roors.order.entity.OrderStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUpdateOrderStatusRequest {
+
+    @NotEmpty(message = "At least one order id is required")
+    @Size(max = 100, message = "At most 100 orders can be updated at once")
+    private List<Long> orderIds;
+
+    @NotNull(message = "Status is required")
+    private OrderStatus status;
+
+    // Optional: applied to every order, as in UpdateOrderStatusRequest
+    private OrderStatus expectedStatus;
+}
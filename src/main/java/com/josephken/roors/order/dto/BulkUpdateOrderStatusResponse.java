@@ -0,0 +1,16 @@
+package com.josephken.roors.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUpdateOrderStatusResponse {
+    private int requested;
+    private int updated;
+    private List<OrderStatusOutcome> results;
+}
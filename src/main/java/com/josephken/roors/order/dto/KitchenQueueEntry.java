@@ -0,0 +1,20 @@
+package com.josephken.roors.order.dto;
+
+import com.josephken.roors.order.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One active order on the kitchen display, in the order the kitchen should work on it
+ */
+@Getter
+@AllArgsConstructor
+public class KitchenQueueEntry {
+    private Long orderId;
+    private OrderStatus status;
+    private Integer preparationMinutes;
+    private LocalDateTime deadline; // earliest the order could be ready; the queue is sorted by it
+    private LocalDateTime expectedReadyAt;
+}
@@ -0,0 +1,36 @@
+package com.josephken.roors.order.dto;
+
+import com.josephken.roors.order.entity.Order;
+import com.josephken.roors.order.entity.OrderStatus;
+import com.josephken.roors.order.entity.OrderType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A committed change to an order, as pushed to /api/orders/stream subscribers.
+ * Kept small on purpose; displays that need the full order fetch it by id.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderEvent {
+    private OrderEventType type;
+    private Long orderId;
+    private String orderNumber;
+    private OrderStatus status;
+    private OrderStatus previousStatus;
+    private OrderType orderType;
+    private LocalDateTime occurredAt;
+    private Integer preparationMinutes;
+
+    public static OrderEvent of(OrderEventType type, Order order) {
+        return of(type, order, order.getStatus());
+    }
+
+    public static OrderEvent of(OrderEventType type, Order order, OrderStatus previousStatus) {
+        return new OrderEvent(type, order.getId(), order.getOrderNumber(),
+                order.getStatus(), previousStatus, order.getOrderType(), LocalDateTime.now(),
+                order.getPreparationMinutes());
+    }
+}
@@ -0,0 +1,8 @@
+package com.josephken.roors.order.dto;
+
+public enum OrderEventType {
+    CREATED,
+    UPDATED,
+    STATUS_CHANGED,
+    CANCELLED
+}
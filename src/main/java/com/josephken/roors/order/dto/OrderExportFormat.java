@@ -0,0 +1,16 @@
+package com.josephken.roors.order.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum OrderExportFormat {
+    // One row per order item, order columns repeated
+    CSV("text/csv", "csv"),
+    // One JSON object per order, items nested
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+}
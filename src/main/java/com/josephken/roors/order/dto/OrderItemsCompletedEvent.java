@@ -0,0 +1,15 @@
+package com.josephken.roors.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Units sold per menu item id by orders that just moved to COMPLETED.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderItemsCompletedEvent {
+    private Map<Long, Long> quantitiesByMenuItemId;
+}
@@ -0,0 +1,16 @@
+package com.josephken.roors.order.dto;
+
+import com.josephken.roors.order.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+public class OrderStatusHistoryResponse {
+    private OrderStatus fromStatus;
+    private OrderStatus toStatus;
+    private Long actorId;
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,29 @@
+package com.josephken.roors.order.dto;
+
+import com.josephken.roors.order.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of a status transition for one order of a bulk request
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusOutcome {
+
+    public enum Result {
+        UPDATED,
+        INVALID_TRANSITION,
+        CONFLICT,
+        NOT_FOUND
+    }
+
+    private Long orderId;
+    private Result result;
+    private OrderStatus previousStatus;
+    // Status of the order after the request, whether or not it changed
+    private OrderStatus status;
+    private String message;
+}
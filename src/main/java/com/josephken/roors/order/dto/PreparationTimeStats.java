@@ -0,0 +1,20 @@
+package com.josephken.roors.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Time from PREPARING to READY of the orders containing a menu item, for orders that went on
+ * the line in one hour of the day
+ */
+@Getter
+@AllArgsConstructor
+public class PreparationTimeStats {
+    private Long menuItemId;
+    private String menuItemName;
+    private int hourOfDay;
+    private int orders;
+    private double p50Minutes;
+    private double p90Minutes;
+    private double p95Minutes;
+}
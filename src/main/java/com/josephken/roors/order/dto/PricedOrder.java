@@ -0,0 +1,42 @@
+package com.josephken.roors.order.dto;
+
+import com.josephken.roors.common.util.Vnd;
+import com.josephken.roors.order.entity.Order;
+import com.josephken.roors.order.entity.OrderItem;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Result of running a list of order lines through the pricing pipeline.
+ * Holds the priced order items and every total needed to fill in an Order;
+ * totals become BigDecimal only when copied onto the entity.
+ */
+@Getter
+@AllArgsConstructor
+public class PricedOrder {
+    private List<OrderItem> items;
+    private Vnd subtotal;
+    private Vnd taxAmount;
+    private Vnd deliveryFee;
+    private Vnd discountAmount;
+    private Vnd totalAmount;
+    private Integer estimatedPreparationTime; // minutes of cooking, before any kitchen queue
+
+    /**
+     * Replace the items of the given order and copy the computed totals onto it
+     */
+    public void applyTo(Order order) {
+        order.getOrderItems().clear();
+        items.forEach(order::addOrderItem);
+
+        order.setSubtotal(subtotal.toBigDecimal());
+        order.setTaxAmount(taxAmount.toBigDecimal());
+        order.setDeliveryFee(deliveryFee.toBigDecimal());
+        order.setDiscountAmount(discountAmount.toBigDecimal());
+        order.setTotalAmount(totalAmount.toBigDecimal());
+        order.setPreparationMinutes(estimatedPreparationTime);
+        order.setEstimatedPreparationTime(estimatedPreparationTime);
+    }
+}
@@ -1,15 +1,12 @@
 package com.josephken.roors.order.dto;
 import com.josephken.roors.order.entity.OrderStatus;
 
-import jakarta.validation.constraints.NotEmpty;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
 import lombok.Getter;
 
-import java.util.List;
 @Getter
 public class UpdateOrderStatusRequest {
     private OrderStatus status;
 
-}
\ No newline at end of file
+    // Optional: the status the caller last saw; the update is rejected if the order has moved on since
+    private OrderStatus expectedStatus;
+}
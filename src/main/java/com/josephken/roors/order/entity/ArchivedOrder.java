@@ -0,0 +1,58 @@
+package com.josephken.roors.order.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A completed or cancelled order moved out of the hot {@code orders} table by OrderArchiveService.
+ * It keeps its original id and order number. The columns needed to find and page through a customer's
+ * history are stored as-is; the full order as last shown to the customer (items and payment included)
+ * is kept as a JSON OrderResponse in {@code snapshot}.
+ */
+@Entity
+@Table(name = "orders_archive", indexes = {
+        @Index(name = "idx_orders_archive_user_created_at", columnList = "user_id, created_at, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedOrder {
+
+    @Id
+    private Long id;
+
+    @Column(name = "order_number", unique = true, nullable = false)
+    private String orderNumber;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderStatus status;
+
+    @Column(name = "total_amount", nullable = false, precision = 10, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String snapshot;
+
+    // Kept relational so menu rating and order count rebuilds still see archived sales
+    @OneToMany(mappedBy = "order", cascade = CascadeType.PERSIST)
+    private List<ArchivedOrderItem> items = new ArrayList<>();
+}
@@ -0,0 +1,43 @@
+package com.josephken.roors.order.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * The per-dish facts of an archived order line that menu aggregates and sales statistics are built from.
+ */
+@Entity
+@Table(name = "order_items_archive", indexes = {
+        @Index(name = "idx_order_items_archive_menu_item", columnList = "menu_item_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedOrderItem {
+
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    private ArchivedOrder order;
+
+    @Column(name = "menu_item_id", nullable = false)
+    private Long menuItemId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    // Nullable only because rows archived before it was added have none
+    @Column(precision = 10, scale = 2)
+    private BigDecimal subtotal;
+
+    @Column(name = "dish_rating")
+    private Integer dishRating;
+}
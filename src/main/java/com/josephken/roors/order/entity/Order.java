@@ -3,11 +3,13 @@
 package com.josephken.roors.order.entity;
 
 import com.josephken.roors.auth.entity.User;
+import com.josephken.roors.common.util.SearchText;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -15,15 +17,26 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Keyset listings seek on (created_at, id), optionally narrowed by user or status
+        @Index(name = "idx_orders_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_orders_user_created_at", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_orders_status_created_at", columnList = "status, created_at, id")
+        // search_text and the order number prefix get PostgreSQL-specific indexes from OrderSearchIndexInitializer
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
+
+    // Order numbers are ORD + digits; SePayWebhookService parses this shape from transfer contents
+    public static final String ORDER_NUMBER_PREFIX = "ORD";
     
+    // Pooled sequence rather than IDENTITY, so an order, its items and its payment insert in JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "order_number", unique = true, nullable = false)
@@ -33,7 +46,9 @@ public class Order {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    // Listing pages initialize items for many orders at once instead of one query per order
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     private List<OrderItem> orderItems = new ArrayList<>();
 
     @Enumerated(EnumType.STRING)
@@ -68,6 +83,10 @@ public class Order {
     @Column(name = "customer_email")
     private String customerEmail;
 
+    // Folded customer name, phone digits and email; trigram-indexed for the admin search box
+    @Column(name = "search_text", length = 1024)
+    private String searchText;
+
     @Column(name = "delivery_address", columnDefinition = "TEXT")
     private String deliveryAddress;
 
@@ -77,9 +96,14 @@ public class Order {
     @Column(name = "table_number")
     private String tableNumber;
 
+    // Quoted to the customer: own cooking time plus the kitchen queue ahead at order time
     @Column(name = "estimated_preparation_time")
     private Integer estimatedPreparationTime; // minutes
 
+    // Cooking time of this order alone; KitchenScheduler rebuilds the kitchen load from it
+    @Column(name = "preparation_minutes")
+    private Integer preparationMinutes;
+
     @Column(name = "preparation_started_at")
     private LocalDateTime preparationStartedAt;
 
@@ -122,18 +146,20 @@ public class Order {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
-        if (orderNumber == null) {
-            orderNumber = generateOrderNumber();
-        }
+        refreshSearchText();
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        refreshSearchText();
     }
 
-    private String generateOrderNumber() {
-        return "ORD" + System.currentTimeMillis();
+    public void refreshSearchText() {
+        searchText = String.join(" ",
+                SearchText.fold(customerName),
+                SearchText.digits(customerPhone),
+                SearchText.fold(customerEmail)).trim();
     }
 
     public void addOrderItem(OrderItem item) {
@@ -1,5 +1,8 @@
 package com.josephken.roors.order.entity;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum OrderStatus {
     PENDING,        // Order placed, waiting for confirmation
     //CONFIRMED,      // Order confirmed by restaurant
@@ -7,5 +10,22 @@ public enum OrderStatus {
     READY,          // Order is ready for pickup/delivery
     DELIVERING, // For delivery orders only
     COMPLETED,      // Order delivered/picked up
-    CANCELLED       // Order cancelled
+    CANCELLED;      // Order cancelled
+
+    /**
+     * Statuses this one may move to; COMPLETED and CANCELLED are final
+     */
+    public Set<OrderStatus> nextStatuses() {
+        return switch (this) {
+            case PENDING -> EnumSet.of(PREPARING, CANCELLED);
+            case PREPARING -> EnumSet.of(READY, CANCELLED);
+            case READY -> EnumSet.of(DELIVERING, COMPLETED, CANCELLED);
+            case DELIVERING -> EnumSet.of(COMPLETED);
+            case COMPLETED, CANCELLED -> EnumSet.noneOf(OrderStatus.class);
+        };
+    }
+
+    public boolean canTransitionTo(OrderStatus next) {
+        return nextStatuses().contains(next);
+    }
 }
@@ -0,0 +1,48 @@
+package com.josephken.roors.order.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One status transition of an order. Rows are only ever inserted, in batches, by
+ * OrderStatusHistoryService. There is no foreign key to orders so the timeline outlives archival.
+ */
+@Entity
+@Table(name = "order_status_history", indexes = {
+        @Index(name = "idx_order_status_history_order", columnList = "order_id, changed_at"),
+        @Index(name = "idx_order_status_history_to_status", columnList = "to_status, changed_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusHistory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    // Null for the PENDING row written when the order is placed
+    @Enumerated(EnumType.STRING)
+    @Column(name = "from_status", length = 20)
+    private OrderStatus fromStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "to_status", nullable = false, length = 20)
+    private OrderStatus toStatus;
+
+    // User who made the change; null when the system did (schedulers, webhooks)
+    @Column(name = "actor_id")
+    private Long actorId;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,10 @@
+package com.josephken.roors.order.exception;
+
+import com.josephken.roors.common.exception.BusinessException;
+import com.josephken.roors.order.entity.OrderStatus;
+
+public class InvalidStatusTransitionException extends BusinessException {
+    public InvalidStatusTransitionException(OrderStatus from, OrderStatus to) {
+        super("Order status cannot change from " + from + " to " + to);
+    }
+}
@@ -0,0 +1,21 @@
+package com.josephken.roors.order.exception;
+
+import com.josephken.roors.common.exception.BusinessException;
+import com.josephken.roors.order.entity.OrderStatus;
+import lombok.Getter;
+
+/**
+ * The order was no longer in the expected status when the transition was applied,
+ * typically because another device changed it first.
+ */
+@Getter
+public class OrderStatusConflictException extends BusinessException {
+    private final OrderStatus expectedStatus;
+    private final OrderStatus currentStatus;
+
+    public OrderStatusConflictException(Long orderId, OrderStatus expectedStatus, OrderStatus currentStatus) {
+        super("Order " + orderId + " is " + currentStatus + ", expected " + expectedStatus);
+        this.expectedStatus = expectedStatus;
+        this.currentStatus = currentStatus;
+    }
+}
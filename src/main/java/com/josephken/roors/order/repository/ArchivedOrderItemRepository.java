@@ -0,0 +1,51 @@
+package com.josephken.roors.order.repository;
+
+import com.josephken.roors.order.entity.ArchivedOrderItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ArchivedOrderItemRepository extends JpaRepository<ArchivedOrderItem, Long> {
+
+    /**
+     * Archived counterpart of OrderItemRepository.countRatingsByMenuItemAndStars
+     */
+    @Query("SELECT ai.menuItemId, ai.dishRating, COUNT(ai) FROM ArchivedOrderItem ai " +
+           "WHERE ai.dishRating IS NOT NULL GROUP BY ai.menuItemId, ai.dishRating")
+    List<Object[]> countRatingsByMenuItemAndStars();
+
+    /**
+     * Archived counterpart of OrderItemRepository.countRatingsByStarsForMenuItem
+     */
+    @Query("SELECT ai.menuItemId, ai.dishRating, COUNT(ai) FROM ArchivedOrderItem ai " +
+           "WHERE ai.menuItemId = :menuItemId AND ai.dishRating IS NOT NULL " +
+           "GROUP BY ai.menuItemId, ai.dishRating")
+    List<Object[]> countRatingsByStarsForMenuItem(@Param("menuItemId") Long menuItemId);
+
+    /**
+     * Archived counterpart of OrderItemRepository.findTopSellingItems
+     */
+    @Query("SELECT new com.josephken.roors.admin.dto.TopSellingItem(" +
+           "m.id, " +
+           "m.name, " +
+           "SUM(ai.quantity), " +
+           "COALESCE(SUM(ai.subtotal), 0)) " +
+           "FROM ArchivedOrderItem ai JOIN MenuItem m ON m.id = ai.menuItemId " +
+           "GROUP BY m.id, m.name")
+    List<com.josephken.roors.admin.dto.TopSellingItem> findTopSellingItems();
+
+    /**
+     * Archived counterpart of OrderItemRepository.findCategorySales
+     */
+    @Query("SELECT new com.josephken.roors.admin.dto.CategorySales(" +
+           "COALESCE(m.category.name, 'Uncategorized'), " +
+           "SUM(ai.quantity), " +
+           "COALESCE(SUM(ai.subtotal), 0)) " +
+           "FROM ArchivedOrderItem ai JOIN MenuItem m ON m.id = ai.menuItemId " +
+           "GROUP BY m.category.name")
+    List<com.josephken.roors.admin.dto.CategorySales> findCategorySales();
+}
@@ -0,0 +1,58 @@
+package com.josephken.roors.order.repository;
+
+import com.josephken.roors.order.entity.ArchivedOrder;
+import com.josephken.roors.order.entity.OrderStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    Optional<ArchivedOrder> findByIdAndUserId(Long id, Long userId);
+
+    Page<ArchivedOrder> findByUserId(Long userId, Pageable pageable);
+
+    Page<ArchivedOrder> findByUserIdAndStatus(Long userId, OrderStatus status, Pageable pageable);
+
+    long countByUserId(Long userId);
+
+    long countByUserIdAndStatus(Long userId, OrderStatus status);
+
+    /**
+     * Newest-first keyset page of a customer's archived orders, mirroring OrderSpecifications.olderThan
+     */
+    @Query("SELECT a FROM ArchivedOrder a WHERE a.userId = :userId " +
+           "AND (:status IS NULL OR a.status = :status) " +
+           "AND (:createdAt IS NULL OR a.createdAt < :createdAt OR (a.createdAt = :createdAt AND a.id < :id)) " +
+           "ORDER BY a.createdAt DESC, a.id DESC")
+    List<ArchivedOrder> findUserPageOlderThan(
+            @Param("userId") Long userId,
+            @Param("status") OrderStatus status,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable
+    );
+
+    // Archived counterparts of the OrderRepository aggregates behind the admin dashboard
+
+    @Query("SELECT new com.josephken.roors.admin.dto.OrderStatsByDate(CAST(a.createdAt AS LocalDate), COUNT(a), SUM(a.totalAmount)) " +
+           "FROM ArchivedOrder a " +
+           "WHERE a.createdAt >= :since " +
+           "GROUP BY CAST(a.createdAt AS LocalDate)")
+    List<com.josephken.roors.admin.dto.OrderStatsByDate> findOrderStatsByDate(@Param("since") LocalDateTime since);
+
+    @Query("SELECT a.status, COUNT(a) FROM ArchivedOrder a GROUP BY a.status")
+    List<Object[]> countOrdersByStatus();
+
+    @Query("SELECT COALESCE(SUM(a.totalAmount), 0) FROM ArchivedOrder a WHERE a.status = :status")
+    BigDecimal sumTotalAmountByStatus(@Param("status") OrderStatus status);
+}
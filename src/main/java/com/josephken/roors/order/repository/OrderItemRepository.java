@@ -4,10 +4,12 @@ import com.josephken.roors.order.entity.OrderItem;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -32,17 +34,32 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
            "ORDER BY SUM(oi.subtotal) DESC")
     List<com.josephken.roors.admin.dto.CategorySales> findCategorySales();
 
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM OrderItem oi WHERE oi.order.id IN :orderIds")
+    int deleteByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
     /**
-     * Calculate average rating for a menu item from all rated order items
+     * Units ordered per menu item across the given orders as (menuItemId, quantity) rows
      */
-    @Query("SELECT AVG(oi.dishRating) FROM OrderItem oi WHERE oi.menuItem.id = :menuItemId AND oi.dishRating IS NOT NULL")
-    Double calculateAverageRatingByMenuItemId(@Param("menuItemId") Long menuItemId);
+    @Query("SELECT oi.menuItem.id, SUM(oi.quantity) FROM OrderItem oi " +
+           "WHERE oi.order.id IN :orderIds GROUP BY oi.menuItem.id")
+    List<Object[]> sumQuantitiesByMenuItemForOrders(@Param("orderIds") Collection<Long> orderIds);
 
     /**
-     * Count total number of ratings for a menu item
+     * Rating histogram of every rated dish as (menuItemId, dishRating, count) rows,
+     * used to rebuild the running aggregates on MenuItem
      */
-    @Query("SELECT COUNT(oi) FROM OrderItem oi WHERE oi.menuItem.id = :menuItemId AND oi.dishRating IS NOT NULL")
-    Long countRatingsByMenuItemId(@Param("menuItemId") Long menuItemId);
+    @Query("SELECT oi.menuItem.id, oi.dishRating, COUNT(oi) FROM OrderItem oi " +
+           "WHERE oi.dishRating IS NOT NULL GROUP BY oi.menuItem.id, oi.dishRating")
+    List<Object[]> countRatingsByMenuItemAndStars();
+
+    /**
+     * countRatingsByMenuItemAndStars for a single menu item
+     */
+    @Query("SELECT oi.menuItem.id, oi.dishRating, COUNT(oi) FROM OrderItem oi " +
+           "WHERE oi.menuItem.id = :menuItemId AND oi.dishRating IS NOT NULL " +
+           "GROUP BY oi.menuItem.id, oi.dishRating")
+    List<Object[]> countRatingsByStarsForMenuItem(@Param("menuItemId") Long menuItemId);
 
     /**
      * Get recent dish ratings for a menu item, ordered by rating date descending
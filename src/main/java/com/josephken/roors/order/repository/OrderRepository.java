@@ -3,31 +3,118 @@ package com.josephken.roors.order.repository;
 import com.josephken.roors.auth.entity.User;
 import com.josephken.roors.order.entity.Order;
 import com.josephken.roors.order.entity.OrderStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
     
     Optional<Order> findByOrderNumber(String orderNumber);
+
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids")
+    List<Order> findWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT o.status FROM Order o WHERE o.id = :id")
+    Optional<OrderStatus> findStatusById(@Param("id") Long id);
+
+    // Pairs of [id, status]
+    @Query("SELECT o.id, o.status FROM Order o WHERE o.id IN :ids")
+    List<Object[]> findStatusesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Rows of [status, orderNumber, orderType, preparationMinutes]: what a status change event carries
+    @Query("SELECT o.status, o.orderNumber, o.orderType, o.preparationMinutes FROM Order o WHERE o.id = :id")
+    List<Object[]> findStatusEventFieldsById(@Param("id") Long id);
+
+    /**
+     * Move orders from one status to another in a single conditional statement.
+     * Milestone timestamps and the cancellation reason are only written when a non-null value is
+     * passed for them.
+     *
+     * @return number of orders that were in status {@code from} and have been moved
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :to, o.updatedAt = :now, " +
+           "o.preparationStartedAt = COALESCE(:preparationStartedAt, o.preparationStartedAt), " +
+           "o.readyAt = COALESCE(:readyAt, o.readyAt), " +
+           "o.completedAt = COALESCE(:completedAt, o.completedAt), " +
+           "o.cancelledAt = COALESCE(:cancelledAt, o.cancelledAt), " +
+           "o.cancellationReason = COALESCE(:cancellationReason, o.cancellationReason) " +
+           "WHERE o.id IN :ids AND o.status = :from")
+    int transitionStatus(
+            @Param("ids") Collection<Long> ids,
+            @Param("from") OrderStatus from,
+            @Param("to") OrderStatus to,
+            @Param("now") LocalDateTime now,
+            @Param("preparationStartedAt") LocalDateTime preparationStartedAt,
+            @Param("readyAt") LocalDateTime readyAt,
+            @Param("completedAt") LocalDateTime completedAt,
+            @Param("cancelledAt") LocalDateTime cancelledAt,
+            @Param("cancellationReason") String cancellationReason
+    );
+
+    /**
+     * Orders among the given ids that a transitionStatus call stamped with {@code now} moved to
+     * {@code status}, as opposed to ones another transaction moved there first
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.id IN :ids AND o.status = :status AND o.updatedAt = :now")
+    List<Long> findIdsTransitionedAt(
+            @Param("ids") Collection<Long> ids,
+            @Param("status") OrderStatus status,
+            @Param("now") LocalDateTime now
+    );
+
+    /**
+     * Load orders together with their items in one statement.
+     * Used to initialize the items of a whole listing page after the page query itself.
+     */
+    @EntityGraph(attributePaths = "orderItems")
+    @Query("SELECT DISTINCT o FROM Order o WHERE o.id IN :ids")
+    List<Order> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
     
     Page<Order> findByStatus(OrderStatus status, Pageable pageable);
 
-    Page<Order> findByCustomerNameContainingOrOrderNumberContaining(
-            String customerName, 
-            String orderNumber, 
+    List<Order> findBySearchTextIsNull(Pageable pageable);
+
+    // Rows of [id, status, createdAt, preparationStartedAt, preparationMinutes, estimatedPreparationTime]
+    @Query("SELECT o.id, o.status, o.createdAt, o.preparationStartedAt, o.preparationMinutes, " +
+           "o.estimatedPreparationTime FROM Order o WHERE o.status IN :statuses")
+    List<Object[]> findKitchenLoadByStatusIn(@Param("statuses") Collection<OrderStatus> statuses);
+
+    /**
+     * Lock a batch of closed orders created before the cutoff for archiving.
+     * Rows locked by another archiver are skipped (FOR UPDATE SKIP LOCKED on PostgreSQL).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM Order o WHERE o.status IN :statuses AND o.createdAt < :cutoff ORDER BY o.createdAt, o.id")
+    List<Order> findArchivableForUpdate(
+            @Param("statuses") Collection<OrderStatus> statuses,
+            @Param("cutoff") LocalDateTime cutoff,
             Pageable pageable
     );
 
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Order o WHERE o.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
     Page<Order> findByUser(User user, Pageable pageable);
     
     Page<Order> findByUserAndStatus(User user, OrderStatus status, Pageable pageable);
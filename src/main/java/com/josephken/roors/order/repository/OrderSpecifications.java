@@ -0,0 +1,87 @@
+package com.josephken.roors.order.repository;
+
+import com.josephken.roors.auth.entity.User;
+import com.josephken.roors.common.util.SearchText;
+import com.josephken.roors.order.dto.OrderCursor;
+import com.josephken.roors.order.entity.Order;
+import com.josephken.roors.order.entity.OrderStatus;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Composable filters for order listings.
+ * Every method returns null when its argument is null, so unused filters simply drop out.
+ */
+public class OrderSpecifications {
+
+    private static final int MIN_SUBSTRING_LENGTH = 3;
+    private static final char LIKE_ESCAPE = '\\';
+
+    private OrderSpecifications() {
+    }
+
+    public static Specification<Order> hasStatus(OrderStatus status) {
+        return status == null ? null : (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Order> belongsTo(User user) {
+        return user == null ? null : (root, query, cb) -> cb.equal(root.get("user"), user);
+    }
+
+    /**
+     * Either bound may be null for an open-ended range
+     */
+    public static Specification<Order> createdBetween(LocalDateTime start, LocalDateTime end) {
+        if (start == null && end == null) {
+            return null;
+        }
+        if (start == null) {
+            return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("createdAt"), end);
+        }
+        if (end == null) {
+            return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdAt"), start);
+        }
+        return (root, query, cb) -> cb.between(root.get("createdAt"), start, end);
+    }
+
+    /**
+     * Admin search box: order number prefix, or a diacritic-insensitive substring of the customer's
+     * name, phone or email. Both sides are index-backed on PostgreSQL (see OrderSearchIndexInitializer);
+     * terms shorter than a trigram only match order numbers, as a substring that short cannot use the index.
+     */
+    public static Specification<Order> matchesSearch(String search) {
+        if (search == null || search.isBlank()) {
+            return null;
+        }
+        String numberPrefix = escapeLike(search.trim().toUpperCase(Locale.ROOT)) + "%";
+        String term = SearchText.looksLikePhone(search) ? SearchText.digits(search) : SearchText.fold(search);
+        if (term.length() < MIN_SUBSTRING_LENGTH) {
+            return (root, query, cb) -> cb.like(root.get("orderNumber"), numberPrefix, LIKE_ESCAPE);
+        }
+        String substring = "%" + escapeLike(term) + "%";
+        return (root, query, cb) -> cb.or(
+                cb.like(root.get("orderNumber"), numberPrefix, LIKE_ESCAPE),
+                cb.like(root.get("searchText"), substring, LIKE_ESCAPE)
+        );
+    }
+
+    /**
+     * Seek predicate for newest-first keyset pagination:
+     * createdAt < cursor.createdAt OR (createdAt = cursor.createdAt AND id < cursor.id)
+     */
+    public static Specification<Order> olderThan(OrderCursor cursor) {
+        return cursor == null ? null : (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("createdAt"), cursor.getCreatedAt()),
+                cb.and(
+                        cb.equal(root.get("createdAt"), cursor.getCreatedAt()),
+                        cb.lessThan(root.get("id"), cursor.getId())
+                )
+        );
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
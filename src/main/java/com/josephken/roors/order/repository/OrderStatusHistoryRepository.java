@@ -0,0 +1,29 @@
+package com.josephken.roors.order.repository;
+
+import com.josephken.roors.order.entity.OrderStatusHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderStatusHistoryRepository extends JpaRepository<OrderStatusHistory, Long> {
+
+    List<OrderStatusHistory> findByOrderIdOrderByChangedAtAscIdAsc(Long orderId);
+
+    /**
+     * One row per menu item of every order that went from PREPARING to READY, with preparation
+     * started at or after {@code since}: [menuItemId, menuItemName, preparingAt, readyAt]
+     */
+    @Query("SELECT oi.menuItem.id, oi.menuItemName, preparing.changedAt, ready.changedAt " +
+           "FROM OrderStatusHistory preparing, OrderStatusHistory ready, OrderItem oi " +
+           "WHERE preparing.toStatus = com.josephken.roors.order.entity.OrderStatus.PREPARING " +
+           "AND ready.toStatus = com.josephken.roors.order.entity.OrderStatus.READY " +
+           "AND ready.orderId = preparing.orderId " +
+           "AND oi.order.id = preparing.orderId " +
+           "AND preparing.changedAt >= :since")
+    List<Object[]> findPreparationTimesByMenuItem(@Param("since") LocalDateTime since);
+}
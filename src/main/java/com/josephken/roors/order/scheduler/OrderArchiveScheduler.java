@@ -0,0 +1,20 @@
+package com.josephken.roors.order.scheduler;
+
+import com.josephken.roors.order.service.OrderArchiveService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.orders.archive.enabled", havingValue = "true")
+public class OrderArchiveScheduler {
+
+    private final OrderArchiveService orderArchiveService;
+
+    @Scheduled(cron = "${app.orders.archive.cron:0 0 4 * * ?}")
+    public void archive() {
+        orderArchiveService.archiveExpiredOrders();
+    }
+}
@@ -0,0 +1,339 @@
+package com.josephken.roors.order.service;
+
+import com.josephken.roors.common.util.LogCategory;
+import com.josephken.roors.order.dto.KitchenQueueEntry;
+import com.josephken.roors.order.dto.OrderEvent;
+import com.josephken.roors.order.entity.OrderStatus;
+import com.josephken.roors.order.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+/**
+ * In-memory model of the kitchen's outstanding work, used to quote load-aware preparation
+ * estimates at order time and to give kitchen displays their work order.
+ * <p>
+ * PENDING orders wait in earliest-deadline-first order, an order's deadline being the earliest
+ * it could be ready (created at + its own cooking time). A Fenwick tree over deadline minutes
+ * holds the queued cooking minutes, so the work a new order would have to wait behind is one
+ * prefix sum. PREPARING orders are already on the line; a second tree over their expected
+ * finishing minute gives the work they have left without walking them. Quotes are therefore
+ * O(log n) in the number of active orders. The kitchen is modelled as {@code stations}
+ * cooks sharing the work ahead evenly.
+ * <p>
+ * Only committed changes reach the model (it listens to OrderEvent after commit) and it is
+ * rebuilt from the orders table on startup, so none of it is persisted. Two orders quoted
+ * concurrently do not see each other until both have committed.
+ */
+@Slf4j
+@Component
+public class KitchenScheduler {
+
+    private static final List<OrderStatus> ACTIVE_STATUSES = List.of(OrderStatus.PENDING, OrderStatus.PREPARING);
+    private static final Comparator<Job> BY_KEY = Comparator.comparingLong(Job::key).thenComparing(Job::orderId);
+
+    // Keys further back than this share the first bucket; every query is at or after "now"
+    private static final long MAX_LOOKBACK_MINUTES = 24 * 60;
+    private static final long REINDEX_SLACK_MINUTES = 60;
+    private static final int MIN_CAPACITY = 4096;
+
+    private final OrderRepository orderRepository;
+    private final int stations;
+    private final int defaultPreparationMinutes;
+
+    private final Map<Long, Job> jobs = new HashMap<>();
+    private final NavigableSet<Job> queued = new TreeSet<>(BY_KEY);  // PENDING, keyed by deadline
+    private final NavigableSet<Job> cooking = new TreeSet<>(BY_KEY); // PREPARING, keyed by expected end
+    private final MinuteIndex queuedWork = new MinuteIndex();
+    private final MinuteIndex cookingEnds = new MinuteIndex();
+
+    public KitchenScheduler(
+            OrderRepository orderRepository,
+            @Value("${app.kitchen.stations:4}") int stations,
+            @Value("${app.kitchen.default-preparation-minutes:15}") int defaultPreparationMinutes
+    ) {
+        this.orderRepository = orderRepository;
+        this.stations = Math.max(1, stations);
+        this.defaultPreparationMinutes = defaultPreparationMinutes;
+    }
+
+    /**
+     * Minutes until an order needing the given cooking time would be ready if placed now.
+     * Pass the order's id when re-quoting an order the kitchen already knows, so it does not
+     * wait behind itself.
+     */
+    public int quote(Long orderId, int preparationMinutes) {
+        return quote(orderId, preparationMinutes, LocalDateTime.now());
+    }
+
+    synchronized int quote(Long orderId, int preparationMinutes, LocalDateTime now) {
+        long nowMinute = minuteOf(now);
+        long deadline = nowMinute + preparationMinutes;
+        long ahead = queuedWork.sumUpTo(deadline) + cookingRemaining(nowMinute);
+        Job own = orderId != null ? jobs.get(orderId) : null;
+        if (own != null && own.status() == OrderStatus.PENDING && own.key() <= deadline) {
+            ahead -= own.minutes();
+        }
+        return preparationMinutes + (int) ((ahead + stations - 1) / stations);
+    }
+
+    /**
+     * Active orders in the order the kitchen should work on them: what is cooking, soonest done
+     * first, then the queue by deadline. Ready times come from handing each order to the
+     * station that frees up first.
+     */
+    public List<KitchenQueueEntry> getWorkQueue() {
+        return getWorkQueue(LocalDateTime.now());
+    }
+
+    synchronized List<KitchenQueueEntry> getWorkQueue(LocalDateTime now) {
+        long nowMinute = minuteOf(now);
+        PriorityQueue<Long> stationFreeAt = new PriorityQueue<>();
+        for (int i = 0; i < stations; i++) {
+            stationFreeAt.add(nowMinute);
+        }
+
+        List<KitchenQueueEntry> entries = new ArrayList<>(jobs.size());
+        for (Job job : cooking) {
+            long readyAt = Math.max(job.key(), nowMinute);
+            stationFreeAt.add(Math.max(stationFreeAt.poll(), readyAt));
+            entries.add(toEntry(job, job.start() + job.minutes(), readyAt));
+        }
+        for (Job job : queued) {
+            long readyAt = stationFreeAt.poll() + job.minutes();
+            stationFreeAt.add(readyAt);
+            entries.add(toEntry(job, job.key(), readyAt));
+        }
+        return entries;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        onOrderEvent(event, LocalDateTime.now());
+    }
+
+    synchronized void onOrderEvent(OrderEvent event, LocalDateTime now) {
+        int minutes = toMinutes(event.getPreparationMinutes(), null);
+        long occurredAt = minuteOf(event.getOccurredAt() != null ? event.getOccurredAt() : now);
+        Job previous = remove(event.getOrderId());
+
+        switch (event.getStatus()) {
+            // Created, or its items changed: an edit keeps the order's place in time
+            case PENDING -> add(Job.pending(event.getOrderId(),
+                    previous != null ? previous.start() : occurredAt, minutes), minuteOf(now));
+            case PREPARING -> add(Job.cooking(event.getOrderId(),
+                    previous != null && previous.status() == OrderStatus.PREPARING ? previous.start() : occurredAt,
+                    minutes), minuteOf(now));
+            default -> {
+                // READY and beyond, or cancelled: no longer kitchen work
+            }
+        }
+    }
+
+    /**
+     * Reload the active orders from the database, replacing whatever the model held
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Object[]> rows = orderRepository.findKitchenLoadByStatusIn(ACTIVE_STATUSES);
+        LocalDateTime now = LocalDateTime.now();
+
+        synchronized (this) {
+            jobs.clear();
+            queued.clear();
+            cooking.clear();
+            for (Object[] row : rows) {
+                Long orderId = (Long) row[0];
+                OrderStatus status = (OrderStatus) row[1];
+                LocalDateTime createdAt = row[2] != null ? (LocalDateTime) row[2] : now;
+                LocalDateTime startedAt = row[3] != null ? (LocalDateTime) row[3] : createdAt;
+                // Orders placed before preparation_minutes existed only have their quoted estimate
+                int minutes = toMinutes((Integer) row[4], (Integer) row[5]);
+                Job job = status == OrderStatus.PENDING
+                        ? Job.pending(orderId, minuteOf(createdAt), minutes)
+                        : Job.cooking(orderId, minuteOf(startedAt), minutes);
+                jobs.put(orderId, job);
+                (status == OrderStatus.PENDING ? queued : cooking).add(job);
+            }
+            reindex(queuedWork, queued, minuteOf(now));
+            reindex(cookingEnds, cooking, minuteOf(now));
+        }
+
+        log.info(LogCategory.order("Kitchen scheduler rebuilt: {} pending, {} preparing"),
+                queued.size(), cooking.size());
+    }
+
+    private void add(Job job, long nowMinute) {
+        jobs.put(job.orderId(), job);
+        boolean pending = job.status() == OrderStatus.PENDING;
+        NavigableSet<Job> set = pending ? queued : cooking;
+        MinuteIndex index = pending ? queuedWork : cookingEnds;
+        set.add(job);
+        if (index.covers(job.key())) {
+            index.add(job.key(), job.weight(), 1);
+        } else {
+            reindex(index, set, nowMinute);
+        }
+    }
+
+    private Job remove(Long orderId) {
+        Job job = jobs.remove(orderId);
+        if (job != null) {
+            boolean pending = job.status() == OrderStatus.PENDING;
+            (pending ? queued : cooking).remove(job);
+            (pending ? queuedWork : cookingEnds).add(job.key(), job.weight(), -1);
+        }
+        return job;
+    }
+
+    /**
+     * Cooking minutes left on orders already on the line; orders past their expected end count as done
+     */
+    private long cookingRemaining(long nowMinute) {
+        long unfinished = cookingEnds.totalCount() - cookingEnds.countUpTo(nowMinute);
+        long endsSum = cookingEnds.totalSum() - cookingEnds.sumUpTo(nowMinute);
+        return endsSum - nowMinute * unfinished;
+    }
+
+    /**
+     * Re-base a tree so it covers every key in the set from (at most a day before) now onwards
+     */
+    private void reindex(MinuteIndex index, NavigableSet<Job> set, long nowMinute) {
+        long min = nowMinute;
+        long max = nowMinute;
+        for (Job job : set) {
+            min = Math.min(min, job.key());
+            max = Math.max(max, job.key());
+        }
+        long base = Math.max(min - REINDEX_SLACK_MINUTES, nowMinute - MAX_LOOKBACK_MINUTES);
+        int capacity = MIN_CAPACITY;
+        while (capacity < 2 * (max - base + 1)) {
+            capacity <<= 1;
+        }
+        index.reset(base, capacity);
+        for (Job job : set) {
+            index.add(job.key(), job.weight(), 1);
+        }
+    }
+
+    private int toMinutes(Integer preparationMinutes, Integer fallback) {
+        int minutes = preparationMinutes != null ? preparationMinutes
+                : fallback != null ? fallback
+                : defaultPreparationMinutes;
+        return (int) Math.min(Math.max(minutes, 0), MAX_LOOKBACK_MINUTES);
+    }
+
+    private static KitchenQueueEntry toEntry(Job job, long deadline, long readyAt) {
+        return new KitchenQueueEntry(job.orderId(), job.status(), job.minutes(),
+                timeOf(deadline), timeOf(readyAt));
+    }
+
+    private static long minuteOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static LocalDateTime timeOf(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * @param start created-at minute while queued, preparation start once cooking
+     * @param key   deadline while queued, expected end once cooking
+     */
+    private record Job(Long orderId, OrderStatus status, long start, int minutes, long key) {
+
+        static Job pending(Long orderId, long createdAt, int minutes) {
+            return new Job(orderId, OrderStatus.PENDING, createdAt, minutes, createdAt + minutes);
+        }
+
+        static Job cooking(Long orderId, long startedAt, int minutes) {
+            return new Job(orderId, OrderStatus.PREPARING, startedAt, minutes, startedAt + minutes);
+        }
+
+        // Queued orders weigh their cooking minutes; cooking ones their end minute, see cookingRemaining
+        long weight() {
+            return status == OrderStatus.PENDING ? minutes : key;
+        }
+    }
+
+    /**
+     * Fenwick tree of weights and counts bucketed by minute, over [base, base + capacity).
+     * Keys before base fall into the first bucket.
+     */
+    private static final class MinuteIndex {
+        private long base;
+        private long[] sums = new long[1];
+        private long[] counts = new long[1];
+        private long totalSum;
+        private long totalCount;
+
+        void reset(long base, int capacity) {
+            this.base = base;
+            this.sums = new long[capacity + 1];
+            this.counts = new long[capacity + 1];
+            this.totalSum = 0;
+            this.totalCount = 0;
+        }
+
+        boolean covers(long minute) {
+            return minute - base < sums.length - 1;
+        }
+
+        void add(long minute, long weight, int sign) {
+            for (int i = slot(minute); i < sums.length; i += i & -i) {
+                sums[i] += sign * weight;
+                counts[i] += sign;
+            }
+            totalSum += sign * weight;
+            totalCount += sign;
+        }
+
+        long sumUpTo(long minute) {
+            return prefix(sums, minute, totalSum);
+        }
+
+        long countUpTo(long minute) {
+            return prefix(counts, minute, totalCount);
+        }
+
+        long totalSum() {
+            return totalSum;
+        }
+
+        long totalCount() {
+            return totalCount;
+        }
+
+        private long prefix(long[] tree, long minute, long total) {
+            if (!covers(minute)) {
+                return total;
+            }
+            if (minute < base) {
+                return 0;
+            }
+            long sum = 0;
+            for (int i = slot(minute); i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+
+        private int slot(long minute) {
+            return (int) Math.max(0, minute - base) + 1;
+        }
+    }
+}
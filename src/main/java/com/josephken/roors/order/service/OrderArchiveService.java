@@ -0,0 +1,149 @@
+package com.josephken.roors.order.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.josephken.roors.common.util.LogCategory;
+import com.josephken.roors.order.dto.OrderResponse;
+import com.josephken.roors.order.entity.ArchivedOrder;
+import com.josephken.roors.order.entity.ArchivedOrderItem;
+import com.josephken.roors.order.entity.Order;
+import com.josephken.roors.order.entity.OrderItem;
+import com.josephken.roors.order.entity.OrderStatus;
+import com.josephken.roors.order.repository.OrderItemRepository;
+import com.josephken.roors.order.repository.OrderRepository;
+import com.josephken.roors.payment.repository.PaymentRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Moves closed orders out of the hot tables.
+ * <p>
+ * Completed and cancelled orders older than {@code app.orders.archive.age-days} are copied into
+ * {@code orders_archive}/{@code order_items_archive} and their {@code orders}, {@code order_items}
+ * and {@code payments} rows deleted, one chunk per short transaction, so listings, search and
+ * statistics only ever scan the recent working set. Customers still see archived orders through
+ * OrderService's history endpoints.
+ */
+@Slf4j
+@Service
+public class OrderArchiveService {
+
+    private static final Set<OrderStatus> ARCHIVABLE_STATUSES = EnumSet.of(OrderStatus.COMPLETED, OrderStatus.CANCELLED);
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final PaymentRepository paymentRepository;
+    private final OrderService orderService;
+    private final OrderResponseCache orderResponseCache;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaction;
+    private final int ageDays;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    public OrderArchiveService(
+            OrderRepository orderRepository,
+            OrderItemRepository orderItemRepository,
+            PaymentRepository paymentRepository,
+            OrderService orderService,
+            OrderResponseCache orderResponseCache,
+            ObjectMapper objectMapper,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.orders.archive.age-days:90}") int ageDays,
+            @Value("${app.orders.archive.batch-size:500}") int batchSize,
+            @Value("${app.orders.archive.max-batches-per-run:200}") int maxBatchesPerRun
+    ) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.paymentRepository = paymentRepository;
+        this.orderService = orderService;
+        this.orderResponseCache = orderResponseCache;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.ageDays = ageDays;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    /**
+     * Archives closed orders older than the configured age, chunk by chunk.
+     *
+     * @return number of orders archived
+     */
+    public int archiveExpiredOrders() {
+        return archiveOrdersCreatedBefore(LocalDateTime.now().minusDays(ageDays));
+    }
+
+    public int archiveOrdersCreatedBefore(LocalDateTime cutoff) {
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int archived = transaction.execute(status -> archiveBatch(cutoff));
+            total += archived;
+            if (archived < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info(LogCategory.order("Archived " + total + " orders created before " + cutoff));
+        }
+        return total;
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Order> orders = orderRepository.findArchivableForUpdate(
+                ARCHIVABLE_STATUSES, cutoff, PageRequest.of(0, batchSize));
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = orders.stream().map(Order::getId).toList();
+        orderRepository.findWithItemsByIdIn(ids);
+        Map<Long, OrderResponse> snapshots = orderService.snapshotsOf(orders);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Order order : orders) {
+            entityManager.persist(toArchived(order, snapshots.get(order.getId()), now));
+        }
+
+        paymentRepository.deleteByOrderIdIn(ids);
+        orderItemRepository.deleteByOrderIdIn(ids);
+        orderRepository.deleteByIdIn(ids);
+        orderResponseCache.invalidateAll(ids);
+        return orders.size();
+    }
+
+    private ArchivedOrder toArchived(Order order, OrderResponse snapshot, LocalDateTime archivedAt) {
+        ArchivedOrder archived = new ArchivedOrder();
+        archived.setId(order.getId());
+        archived.setOrderNumber(order.getOrderNumber());
+        archived.setUserId(order.getUser().getId());
+        archived.setStatus(order.getStatus());
+        archived.setTotalAmount(order.getTotalAmount());
+        archived.setCreatedAt(order.getCreatedAt());
+        archived.setArchivedAt(archivedAt);
+        try {
+            archived.setSnapshot(objectMapper.writeValueAsString(snapshot));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize order " + order.getId() + " for archiving", e);
+        }
+        for (OrderItem item : order.getOrderItems()) {
+            archived.getItems().add(new ArchivedOrderItem(
+                    item.getId(), archived, item.getMenuItem().getId(), item.getQuantity(), item.getSubtotal(),
+                    item.getDishRating()));
+        }
+        return archived;
+    }
+}
@@ -0,0 +1,219 @@
+package com.josephken.roors.order.service;
+
+import com.josephken.roors.common.util.LogCategory;
+import com.josephken.roors.order.dto.OrderEvent;
+import com.josephken.roors.order.entity.OrderStatus;
+import com.josephken.roors.order.entity.OrderType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fan-out of committed order changes to Server-Sent Events subscribers.
+ * <p>
+ * Events are numbered in commit order and the most recent {@code replaySize} are kept in
+ * memory, so a client reconnecting with Last-Event-ID receives what it missed. Ids are
+ * {@code <epoch>-<sequence>}, the epoch being drawn when this instance starts: an id from
+ * before a restart, or from another instance behind the same load balancer, never matches a
+ * buffered event by accident. If the id is from another epoch or has already fallen out of
+ * the buffer the client gets a single "reset" event and should reload from the listing endpoints.
+ * <p>
+ * All writes to emitters happen on one dispatcher thread: committing requests never block on
+ * slow clients, and every subscriber sees events in id order with replay before live events.
+ */
+@Slf4j
+@Component
+public class OrderEventStream {
+
+    private static final String EVENT_NAME = "order";
+    private static final String RESET_EVENT_NAME = "reset";
+
+    private final int replaySize;
+    private final long timeoutMillis;
+    private final Deque<BufferedEvent> buffer = new ArrayDeque<>();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-event-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+    private long lastEventId;
+
+    public OrderEventStream(
+            @Value("${app.orders.stream.replay-size:500}") int replaySize,
+            @Value("${app.orders.stream.timeout-ms:1800000}") long timeoutMillis
+    ) {
+        this.replaySize = replaySize;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Open a stream of events matching the filters; null or empty filters match everything
+     */
+    public SseEmitter subscribe(Set<OrderStatus> statuses, Set<OrderType> orderTypes, String lastSeenEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, statuses, orderTypes);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+
+        synchronized (buffer) {
+            List<BufferedEvent> missed = lastSeenEventId == null ? List.of() : eventsAfter(lastSeenEventId);
+            boolean gap = lastSeenEventId != null && missed == null;
+            String resetId = eventId(lastEventId);
+            subscribers.add(subscriber);
+            // Queued under the lock so no live event can be dispatched ahead of the replay
+            dispatcher.execute(() -> {
+                if (gap) {
+                    send(subscriber, SseEmitter.event().name(RESET_EVENT_NAME).id(resetId).data(""));
+                } else {
+                    missed.forEach(event -> deliver(subscriber, event));
+                }
+            });
+        }
+
+        log.debug(LogCategory.order("Order stream subscribed (last event id {}), {} subscriber(s)"),
+                lastSeenEventId, subscribers.size());
+        return emitter;
+    }
+
+    /**
+     * Publish an order change once its transaction has committed.
+     * Falls back to immediate publication when there is no surrounding transaction.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        synchronized (buffer) {
+            BufferedEvent buffered = new BufferedEvent(++lastEventId, event);
+            buffer.addLast(buffered);
+            if (buffer.size() > replaySize) {
+                buffer.removeFirst();
+            }
+            // Recipients are fixed now: a client subscribing later gets this event through its replay instead
+            List<Subscriber> recipients = List.copyOf(subscribers);
+            dispatcher.execute(() -> recipients.forEach(subscriber -> deliver(subscriber, buffered)));
+        }
+    }
+
+    /**
+     * Keeps idle connections open through proxies and prunes clients that went away
+     */
+    @Scheduled(fixedRateString = "${app.orders.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        if (!subscribers.isEmpty()) {
+            dispatcher.execute(() -> subscribers.forEach(subscriber ->
+                    send(subscriber, SseEmitter.event().comment("heartbeat"))));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /**
+     * Buffered events newer than the given id, or null when it is from another epoch or some of
+     * them are no longer buffered
+     */
+    private List<BufferedEvent> eventsAfter(String lastSeenEventId) {
+        String prefix = epoch + "-";
+        if (!lastSeenEventId.startsWith(prefix)) {
+            return null;
+        }
+        long eventId;
+        try {
+            eventId = Long.parseLong(lastSeenEventId.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (eventId < 0 || eventId > lastEventId) {
+            return null;
+        }
+        BufferedEvent oldest = buffer.peekFirst();
+        long oldestBufferedId = oldest != null ? oldest.id : lastEventId + 1;
+        if (eventId + 1 < oldestBufferedId) {
+            return null;
+        }
+        List<BufferedEvent> missed = new ArrayList<>();
+        for (BufferedEvent event : buffer) {
+            if (event.id > eventId) {
+                missed.add(event);
+            }
+        }
+        return missed;
+    }
+
+    private void deliver(Subscriber subscriber, BufferedEvent buffered) {
+        if (subscriber.accepts(buffered.event)) {
+            send(subscriber, SseEmitter.event()
+                    .id(eventId(buffered.id))
+                    .name(EVENT_NAME)
+                    .data(buffered.event, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        try {
+            subscriber.emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private static final class BufferedEvent {
+        private final long id;
+        private final OrderEvent event;
+
+        private BufferedEvent(long id, OrderEvent event) {
+            this.id = id;
+            this.event = event;
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<OrderStatus> statuses;
+        private final Set<OrderType> orderTypes;
+
+        private Subscriber(SseEmitter emitter, Set<OrderStatus> statuses, Set<OrderType> orderTypes) {
+            this.emitter = emitter;
+            this.statuses = statuses;
+            this.orderTypes = orderTypes;
+        }
+
+        /**
+         * An order leaving a watched status is delivered too, so displays can drop it
+         */
+        private boolean accepts(OrderEvent event) {
+            boolean statusMatches = statuses == null || statuses.isEmpty()
+                    || statuses.contains(event.getStatus())
+                    || (event.getPreviousStatus() != null && statuses.contains(event.getPreviousStatus()));
+            boolean typeMatches = orderTypes == null || orderTypes.isEmpty()
+                    || orderTypes.contains(event.getOrderType());
+            return statusMatches && typeMatches;
+        }
+    }
+}
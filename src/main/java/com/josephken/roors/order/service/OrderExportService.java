@@ -0,0 +1,327 @@
+package com.josephken.roors.order.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.josephken.roors.common.util.LogCategory;
+import com.josephken.roors.order.dto.OrderExportFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Streams orders and their items for accounting, straight from a forward-only JDBC cursor to
+ * the response.
+ * <p>
+ * Rows are read {@code app.orders.export.fetch-size} at a time and written as they arrive, so
+ * memory use does not depend on the size of the range: nothing enters the persistence context
+ * and no page or count queries are run. The cursor needs a transaction (PostgreSQL only streams
+ * with autocommit off), held read-only for the length of the download. Archived orders are not
+ * included; they keep only a snapshot of their totals.
+ */
+@Slf4j
+@Service
+public class OrderExportService {
+
+    private static final String EXPORT_SQL =
+            "SELECT o.id, o.order_number, o.created_at, o.status, o.order_type, o.customer_name, " +
+            "o.subtotal, o.tax_amount, o.delivery_fee, o.discount_amount, o.total_amount, " +
+            "p.payment_method, p.status AS payment_status, p.paid_at, " +
+            "oi.id AS item_id, oi.menu_item_id, oi.menu_item_name, oi.unit_price, oi.quantity, " +
+            "oi.subtotal AS item_subtotal " +
+            "FROM orders o " +
+            "LEFT JOIN payments p ON p.order_id = o.id " +
+            "LEFT JOIN order_items oi ON oi.order_id = o.id " +
+            "WHERE o.created_at >= ? AND o.created_at < ? " +
+            "ORDER BY o.created_at, o.id, oi.id";
+
+    private static final String[] CSV_HEADER = {
+            "order_id", "order_number", "created_at", "status", "order_type", "customer_name",
+            "subtotal", "tax_amount", "delivery_fee", "discount_amount", "total_amount",
+            "payment_method", "payment_status", "paid_at",
+            "item_id", "menu_item_id", "menu_item_name", "unit_price", "quantity", "item_subtotal"
+    };
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final int WRITE_BUFFER_CHARS = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final ObjectMapper objectMapper;
+
+    public OrderExportService(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${app.orders.export.fetch-size:1000}") int fetchSize
+    ) {
+        // A template of its own: the fetch size would otherwise apply to every query of the shared one
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write every order created in [from, to) to the stream, oldest first. The stream is flushed
+     * but not closed.
+     *
+     * @return number of orders written
+     */
+    public long export(LocalDateTime from, LocalDateTime to, OrderExportFormat format, OutputStream out)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_CHARS);
+        RowWriter rows = format == OrderExportFormat.CSV
+                ? new CsvRowWriter(writer)
+                : new NdjsonRowWriter(objectMapper.getFactory().createGenerator(writer));
+
+        long started = System.currentTimeMillis();
+        rows.begin();
+        transaction.executeWithoutResult(status -> jdbcTemplate.query(EXPORT_SQL, resultSet -> {
+            try {
+                rows.write(resultSet);
+            } catch (IOException e) {
+                // Usually the client went away; abandon the cursor
+                throw new UncheckedIOException(e);
+            }
+        }, from, to));
+        rows.finish();
+        writer.flush();
+
+        log.info(LogCategory.order("Exported {} orders created in [{}, {}) as {} in {} ms"),
+                rows.orders, from, to, format, System.currentTimeMillis() - started);
+        return rows.orders;
+    }
+
+    private static String timestamp(ResultSet resultSet, String column) throws SQLException {
+        LocalDateTime value = resultSet.getObject(column, LocalDateTime.class);
+        return value != null ? TIMESTAMP.format(value) : null;
+    }
+
+    /**
+     * Rows arrive ordered by order, so an order is complete as soon as the next one starts
+     */
+    private abstract static class RowWriter {
+
+        long orders;
+        private long currentOrderId;
+
+        void begin() throws IOException {
+        }
+
+        void write(ResultSet resultSet) throws SQLException, IOException {
+            long orderId = resultSet.getLong("id");
+            if (orders == 0 || orderId != currentOrderId) {
+                if (orders > 0) {
+                    endOrder();
+                }
+                orders++;
+                currentOrderId = orderId;
+                startOrder(resultSet);
+            }
+            resultSet.getLong("item_id");
+            if (!resultSet.wasNull()) {
+                item(resultSet);
+            }
+        }
+
+        void finish() throws IOException {
+            if (orders > 0) {
+                endOrder();
+            }
+        }
+
+        abstract void startOrder(ResultSet resultSet) throws SQLException, IOException;
+
+        abstract void item(ResultSet resultSet) throws SQLException, IOException;
+
+        abstract void endOrder() throws IOException;
+    }
+
+    /**
+     * RFC 4180 CSV, one line per item with the order's columns repeated. An order without
+     * items still gets one line, with the item columns empty.
+     */
+    private static final class CsvRowWriter extends RowWriter {
+
+        private final Writer writer;
+        private final String[] orderColumns = new String[14];
+        private boolean orderHasItems;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        void begin() throws IOException {
+            for (int i = 0; i < CSV_HEADER.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(CSV_HEADER[i]);
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        void startOrder(ResultSet resultSet) throws SQLException {
+            orderColumns[0] = resultSet.getString("id");
+            orderColumns[1] = resultSet.getString("order_number");
+            orderColumns[2] = timestamp(resultSet, "created_at");
+            orderColumns[3] = resultSet.getString("status");
+            orderColumns[4] = resultSet.getString("order_type");
+            orderColumns[5] = userText(resultSet.getString("customer_name"));
+            orderColumns[6] = amount(resultSet, "subtotal");
+            orderColumns[7] = amount(resultSet, "tax_amount");
+            orderColumns[8] = amount(resultSet, "delivery_fee");
+            orderColumns[9] = amount(resultSet, "discount_amount");
+            orderColumns[10] = amount(resultSet, "total_amount");
+            orderColumns[11] = resultSet.getString("payment_method");
+            orderColumns[12] = resultSet.getString("payment_status");
+            orderColumns[13] = timestamp(resultSet, "paid_at");
+            orderHasItems = false;
+        }
+
+        @Override
+        void item(ResultSet resultSet) throws SQLException, IOException {
+            orderHasItems = true;
+            writeOrderColumns();
+            writer.write(',');
+            writer.write(resultSet.getString("item_id"));
+            writer.write(',');
+            writer.write(resultSet.getString("menu_item_id"));
+            writer.write(',');
+            writeText(userText(resultSet.getString("menu_item_name")));
+            writer.write(',');
+            writeText(amount(resultSet, "unit_price"));
+            writer.write(',');
+            writeText(resultSet.getString("quantity"));
+            writer.write(',');
+            writeText(amount(resultSet, "item_subtotal"));
+            writer.write("\r\n");
+        }
+
+        @Override
+        void endOrder() throws IOException {
+            if (!orderHasItems) {
+                writeOrderColumns();
+                writer.write(",,,,,,\r\n");
+            }
+        }
+
+        private void writeOrderColumns() throws IOException {
+            for (int i = 0; i < orderColumns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeText(orderColumns[i]);
+            }
+        }
+
+        private void writeText(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        /**
+         * Spreadsheets evaluate cells starting with these as formulas; names typed by customers
+         * or staff are prefixed with a quote so they open as plain text
+         */
+        private static String userText(String value) {
+            if (value != null && !value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+                return "'" + value;
+            }
+            return value;
+        }
+
+        private static String amount(ResultSet resultSet, String column) throws SQLException {
+            BigDecimal value = resultSet.getBigDecimal(column);
+            return value != null ? value.toPlainString() : null;
+        }
+    }
+
+    /**
+     * Newline-delimited JSON, one object per order with its items nested, field names as in
+     * {@code OrderResponse}
+     */
+    private static final class NdjsonRowWriter extends RowWriter {
+
+        private final JsonGenerator json;
+
+        NdjsonRowWriter(JsonGenerator json) {
+            this.json = json;
+            // Lines are separated by the newline written after each order, not the default space
+            this.json.setRootValueSeparator(null);
+        }
+
+        @Override
+        void startOrder(ResultSet resultSet) throws SQLException, IOException {
+            json.writeStartObject();
+            json.writeNumberField("id", resultSet.getLong("id"));
+            json.writeStringField("orderNumber", resultSet.getString("order_number"));
+            json.writeStringField("createdAt", timestamp(resultSet, "created_at"));
+            json.writeStringField("status", resultSet.getString("status"));
+            json.writeStringField("orderType", resultSet.getString("order_type"));
+            json.writeStringField("customerName", resultSet.getString("customer_name"));
+            json.writeNumberField("subtotal", resultSet.getBigDecimal("subtotal"));
+            json.writeNumberField("taxAmount", resultSet.getBigDecimal("tax_amount"));
+            json.writeNumberField("deliveryFee", resultSet.getBigDecimal("delivery_fee"));
+            json.writeNumberField("discountAmount", resultSet.getBigDecimal("discount_amount"));
+            json.writeNumberField("totalAmount", resultSet.getBigDecimal("total_amount"));
+            json.writeStringField("paymentMethod", resultSet.getString("payment_method"));
+            json.writeStringField("paymentStatus", resultSet.getString("payment_status"));
+            json.writeStringField("paidAt", timestamp(resultSet, "paid_at"));
+            json.writeArrayFieldStart("items");
+        }
+
+        @Override
+        void item(ResultSet resultSet) throws SQLException, IOException {
+            json.writeStartObject();
+            json.writeNumberField("id", resultSet.getLong("item_id"));
+            json.writeNumberField("menuItemId", resultSet.getLong("menu_item_id"));
+            json.writeStringField("menuItemName", resultSet.getString("menu_item_name"));
+            json.writeNumberField("unitPrice", resultSet.getBigDecimal("unit_price"));
+            json.writeNumberField("quantity", resultSet.getInt("quantity"));
+            json.writeNumberField("subtotal", resultSet.getBigDecimal("item_subtotal"));
+            json.writeEndObject();
+        }
+
+        @Override
+        void endOrder() throws IOException {
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        void finish() throws IOException {
+            super.finish();
+            json.flush();
+        }
+    }
+}
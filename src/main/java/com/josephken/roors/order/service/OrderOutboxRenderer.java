@@ -0,0 +1,65 @@
+package com.josephken.roors.order.service;
+
+import com.josephken.roors.auth.service.EmailService;
+import com.josephken.roors.common.entity.OutboxMessage;
+import com.josephken.roors.common.entity.OutboxMessageType;
+import com.josephken.roors.common.service.OutboxMessageRenderer;
+import com.josephken.roors.order.entity.Order;
+import com.josephken.roors.order.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Renders order emails queued in the outbox, loading all referenced orders (and their users) in one query
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderOutboxRenderer implements OutboxMessageRenderer {
+
+    private final OrderRepository orderRepository;
+    private final EmailService emailService;
+
+    @Override
+    public Set<OutboxMessageType> supportedTypes() {
+        return EnumSet.of(
+                OutboxMessageType.ORDER_CONFIRMATION,
+                OutboxMessageType.ORDER_CANCELLED,
+                OutboxMessageType.ORDER_COMPLETED_RATING_REQUEST
+        );
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, SimpleMailMessage> render(List<OutboxMessage> messages) {
+        Map<Long, Order> orders = orderRepository.findWithUserByIdIn(messages.stream()
+                        .map(OutboxMessage::getAggregateId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+
+        Map<Long, SimpleMailMessage> emails = new HashMap<>();
+        for (OutboxMessage message : messages) {
+            Order order = orders.get(message.getAggregateId());
+            if (order == null) {
+                continue;
+            }
+            emails.put(message.getId(), switch (message.getType()) {
+                case ORDER_CONFIRMATION -> emailService.buildOrderConfirmationMessage(order.getUser(), order);
+                case ORDER_CANCELLED -> emailService.buildOrderCancelledMessage(order.getUser(), order);
+                case ORDER_COMPLETED_RATING_REQUEST -> emailService.buildOrderCompletedRatingRequestMessage(order.getUser(), order);
+                default -> throw new IllegalArgumentException("Unsupported outbox message type: " + message.getType());
+            });
+        }
+        return emails;
+    }
+}
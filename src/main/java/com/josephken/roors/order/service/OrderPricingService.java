@@ -0,0 +1,110 @@
+package com.josephken.roors.order.service;
+
+import com.josephken.roors.common.util.LogCategory;
+import com.josephken.roors.common.util.Vnd;
+import com.josephken.roors.menu.entity.MenuItem;
+import com.josephken.roors.menu.repository.MenuItemRepository;
+import com.josephken.roors.order.dto.OrderItemRequest;
+import com.josephken.roors.order.dto.PricedOrder;
+import com.josephken.roors.order.entity.OrderItem;
+import com.josephken.roors.order.entity.OrderType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Pricing pipeline stage for order creation and update.
+ * Resolves every requested menu item with a single batched lookup, then validates
+ * availability and computes subtotal, fees and preparation estimate in one pass.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class OrderPricingService {
+
+    private static final Vnd DELIVERY_FEE = Vnd.of(8000);
+    private static final int TAX_RATE_BASIS_POINTS = 0;
+    private static final int DEFAULT_ITEM_PREPARATION_TIME = 15; // minutes
+    private static final int DEFAULT_ORDER_PREPARATION_TIME = 30; // minutes
+
+    private final MenuItemRepository menuItemRepository;
+
+    @Transactional(readOnly = true)
+    public PricedOrder price(OrderType orderType, List<OrderItemRequest> itemRequests) {
+        Map<Long, MenuItem> menuItems = resolveMenuItems(itemRequests);
+
+        List<OrderItem> orderItems = new ArrayList<>(itemRequests.size());
+        Vnd subtotal = Vnd.ZERO;
+        int preparationTime = 0;
+
+        for (OrderItemRequest itemRequest : itemRequests) {
+            MenuItem menuItem = menuItems.get(itemRequest.getMenuItemId());
+            if (menuItem == null) {
+                throw new RuntimeException("Menu item not found: " + itemRequest.getMenuItemId());
+            }
+
+            if (!Boolean.TRUE.equals(menuItem.getIsAvailable())) {
+                throw new RuntimeException("Menu item is not available: " + menuItem.getName());
+            }
+
+            OrderItem orderItem = new OrderItem();
+            orderItem.setMenuItem(menuItem);
+            orderItem.setMenuItemName(menuItem.getName());
+            orderItem.setUnitPrice(menuItem.getPrice());
+            orderItem.setQuantity(itemRequest.getQuantity());
+            orderItem.setSpecialInstructions(itemRequest.getSpecialInstructions());
+
+            Vnd itemSubtotal = Vnd.of(menuItem.getPrice()).times(itemRequest.getQuantity());
+            orderItem.setSubtotal(itemSubtotal.toBigDecimal());
+            subtotal = subtotal.plus(itemSubtotal);
+
+            // Items are cooked in parallel, so the slowest dish drives the estimate
+            Integer itemPreparationTime = menuItem.getPreparationTime();
+            preparationTime = Math.max(preparationTime,
+                    itemPreparationTime != null ? itemPreparationTime : DEFAULT_ITEM_PREPARATION_TIME);
+
+            orderItems.add(orderItem);
+        }
+
+        Vnd taxAmount = subtotal.basisPoints(TAX_RATE_BASIS_POINTS);
+        Vnd deliveryFee = orderType == OrderType.DELIVERY ? DELIVERY_FEE : Vnd.ZERO;
+        Vnd discountAmount = Vnd.ZERO;
+        Vnd totalAmount = subtotal
+                .plus(taxAmount)
+                .plus(deliveryFee)
+                .minus(discountAmount);
+
+        return new PricedOrder(
+                orderItems,
+                subtotal,
+                taxAmount,
+                deliveryFee,
+                discountAmount,
+                totalAmount,
+                orderItems.isEmpty() ? DEFAULT_ORDER_PREPARATION_TIME : preparationTime
+        );
+    }
+
+    /**
+     * Load all distinct menu items referenced by the request in one query
+     */
+    private Map<Long, MenuItem> resolveMenuItems(List<OrderItemRequest> itemRequests) {
+        Set<Long> menuItemIds = itemRequests.stream()
+                .map(OrderItemRequest::getMenuItemId)
+                .collect(Collectors.toSet());
+
+        Map<Long, MenuItem> menuItems = menuItemRepository.findAllById(menuItemIds).stream()
+                .collect(Collectors.toMap(MenuItem::getId, Function.identity()));
+
+        log.debug(LogCategory.order("Resolved {} of {} requested menu items"), menuItems.size(), menuItemIds.size());
+        return menuItems;
+    }
+}
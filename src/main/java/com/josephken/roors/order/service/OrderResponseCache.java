@@ -0,0 +1,130 @@
+package com.josephken.roors.order.service;
+
+import com.josephken.roors.order.dto.OrderResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, in-memory cache of rendered order details, so a customer refreshing an order page
+ * is answered without touching the database.
+ * <p>
+ * Every write to an order (or its payment) must call {@link #invalidate}. Invalidation evicts
+ * the entry right away and once more when the writing transaction completes, and bumps a
+ * version counter for the order. A reader takes a {@link #ticket} before loading and may only
+ * store what it loaded if the version has not moved since, so a load that raced a write can
+ * never put the pre-write response back. Versions are striped by order id, so an unrelated
+ * write to the same stripe occasionally costs a reader its put, never correctness.
+ * <p>
+ * Writes made by other instances are not seen here; entries expire after
+ * {@code app.orders.response-cache.ttl-ms} to bound how stale such a read can be.
+ */
+@Component
+public class OrderResponseCache {
+
+    private static final int STRIPES = 1024;
+
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    private final Map<Long, CachedOrder> entries;
+    private final long ttlMillis;
+
+    public OrderResponseCache(
+            @Value("${app.orders.response-cache.size:10000}") int size,
+            @Value("${app.orders.response-cache.ttl-ms:30000}") long ttlMillis
+    ) {
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedOrder> eldest) {
+                return size() > size;
+            }
+        };
+    }
+
+    /**
+     * The cached response for this order, or null on a miss
+     *
+     * @throws RuntimeException if the order is cached and belongs to another user
+     */
+    public OrderResponse get(Long orderId, Long userId) {
+        CachedOrder cached;
+        synchronized (entries) {
+            cached = entries.get(orderId);
+            if (cached != null && cached.expiresAtMillis < System.currentTimeMillis()) {
+                entries.remove(orderId);
+                cached = null;
+            }
+        }
+        if (cached == null) {
+            return null;
+        }
+        if (!cached.ownerId.equals(userId)) {
+            throw new RuntimeException("Unauthorized access to order");
+        }
+        return cached.response;
+    }
+
+    /**
+     * Version of the order to pass to {@link #put}; take it before reading the order from the database
+     */
+    public long ticket(Long orderId) {
+        return versions.get(stripe(orderId));
+    }
+
+    /**
+     * Cache a response loaded after {@code ticket} was taken, unless the order was written since
+     */
+    public void put(Long orderId, Long ownerId, long ticket, OrderResponse response) {
+        CachedOrder cached = new CachedOrder(ownerId, response, System.currentTimeMillis() + ttlMillis);
+        synchronized (entries) {
+            // Checked under the lock so an eviction cannot slip in between the check and the put
+            if (versions.get(stripe(orderId)) == ticket) {
+                entries.put(orderId, cached);
+            }
+        }
+    }
+
+    public void invalidate(Long orderId) {
+        invalidateAll(List.of(orderId));
+    }
+
+    public void invalidateAll(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        evict(orderIds);
+        // Until the write commits, a reader still sees the old row and may cache it again
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<Long> ids = List.copyOf(orderIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(ids);
+                }
+            });
+        }
+    }
+
+    private void evict(Collection<Long> orderIds) {
+        synchronized (entries) {
+            for (Long orderId : orderIds) {
+                versions.incrementAndGet(stripe(orderId));
+                entries.remove(orderId);
+            }
+        }
+    }
+
+    private static int stripe(Long orderId) {
+        return (int) (orderId & (STRIPES - 1));
+    }
+
+    private record CachedOrder(Long ownerId, OrderResponse response, long expiresAtMillis) {
+    }
+}
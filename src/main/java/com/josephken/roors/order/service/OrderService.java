@@ -5,47 +5,85 @@ import com.josephken.roors.auth.service.UserService;
 import com.josephken.roors.menu.entity.MenuItem;
 import com.josephken.roors.menu.repository.MenuItemRepository;
 import com.josephken.roors.order.dto.*;
+import com.josephken.roors.order.entity.ArchivedOrder;
 import com.josephken.roors.order.entity.Order;
 import com.josephken.roors.order.entity.OrderItem;
 import com.josephken.roors.order.entity.OrderStatus;
+import com.josephken.roors.order.entity.OrderType;
+import com.josephken.roors.order.exception.InvalidStatusTransitionException;
+import com.josephken.roors.order.exception.OrderStatusConflictException;
+import com.josephken.roors.order.repository.ArchivedOrderRepository;
 import com.josephken.roors.order.repository.OrderRepository;
 import com.josephken.roors.order.repository.OrderItemRepository;
 import com.josephken.roors.payment.dto.PaymentResponse;
 import com.josephken.roors.payment.entity.Payment;
 import com.josephken.roors.payment.service.PaymentService;
+import com.josephken.roors.common.dto.CursorPage;
+import com.josephken.roors.common.entity.OutboxMessageType;
+import com.josephken.roors.common.service.IdAllocator;
+import com.josephken.roors.common.service.OutboxService;
 import com.josephken.roors.common.util.LogCategory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-import com.josephken.roors.auth.service.EmailService;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.Collections;
 import jakarta.persistence.EntityNotFoundException;
 
+import static com.josephken.roors.order.repository.OrderSpecifications.*;
+
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class OrderService {
 
+    // Keyset pages seek on (createdAt, id); id breaks ties between orders created in the same instant
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final UserService userService;
     private final MenuItemRepository menuItemRepository;
+    private final OrderPricingService orderPricingService;
     private final PaymentService paymentService;
-    private final EmailService emailService;
+    private final OutboxService outboxService;
+    private final IdAllocator idAllocator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ObjectMapper objectMapper;
+    private final KitchenScheduler kitchenScheduler;
+    private final OrderResponseCache orderResponseCache;
+    private final PlatformTransactionManager transactionManager;
 
 
 
@@ -54,10 +92,8 @@ public class OrderService {
             User user = userService.findById(userId);
         log.info(LogCategory.order("Creating order for user: " + user.getEmail()));
 
-        // Validate menu items and calculate totals
-        BigDecimal subtotal = BigDecimal.ZERO;
-        
         Order order = new Order();
+        order.setOrderNumber(idAllocator.nextCode(Order.ORDER_NUMBER_PREFIX));
         order.setUser(user);
         order.setOrderType(request.getOrderType());
         order.setStatus(OrderStatus.PENDING);
@@ -68,57 +104,12 @@ public class OrderService {
         order.setSpecialInstructions(request.getSpecialInstructions());
         order.setTableNumber(request.getTableNumber());
 
-        // Add order items
-        for (OrderItemRequest itemRequest : request.getItems()) {
-            MenuItem menuItem = menuItemRepository.findById(itemRequest.getMenuItemId())
-                    .orElseThrow(() -> new RuntimeException("Menu item not found: " + itemRequest.getMenuItemId()));
-
-            if (!menuItem.getIsAvailable()) {
-                throw new RuntimeException("Menu item is not available: " + menuItem.getName());
-            }
-
-            OrderItem orderItem = new OrderItem();
-            orderItem.setMenuItem(menuItem);
-            orderItem.setMenuItemName(menuItem.getName());
-            orderItem.setUnitPrice(menuItem.getPrice());
-            orderItem.setQuantity(itemRequest.getQuantity());
-            orderItem.setSpecialInstructions(itemRequest.getSpecialInstructions());
-            
-            BigDecimal itemSubtotal = menuItem.getPrice().multiply(BigDecimal.valueOf(itemRequest.getQuantity()));
-            orderItem.setSubtotal(itemSubtotal);
-            subtotal = subtotal.add(itemSubtotal);
+        // Validate menu items, add order items and calculate totals in one pass
+        PricedOrder pricedOrder = orderPricingService.price(request.getOrderType(), request.getItems());
+        pricedOrder.applyTo(order);
 
-            order.addOrderItem(orderItem);
-        }
-
-        // Calculate totals
-        order.setSubtotal(subtotal);
-        order.setTaxAmount(subtotal.multiply(BigDecimal.valueOf(0))); // 10% tax
-        
-        // Delivery fee (if delivery type)
-        if (request.getOrderType().name().equals("DELIVERY")) {
-            order.setDeliveryFee(BigDecimal.valueOf(8000)); // 20,000 VND
-        } else {
-            order.setDeliveryFee(BigDecimal.ZERO);
-        }
-        
-        order.setDiscountAmount(BigDecimal.ZERO);
-        
-        BigDecimal total = subtotal
-                .add(order.getTaxAmount())
-                .add(order.getDeliveryFee())
-                .subtract(order.getDiscountAmount());
-        order.setTotalAmount(total);
-
-        // Estimate preparation time
-        int totalPrepTime = order.getOrderItems().stream()
-                .mapToInt(item -> {
-                    Integer prepTime = item.getMenuItem().getPreparationTime();
-                    return prepTime != null ? prepTime : 15;
-                })
-                .max()
-                .orElse(30);
-        order.setEstimatedPreparationTime(totalPrepTime);
+        // Quote against the orders already in the kitchen, not just this order's own cooking time
+        order.setEstimatedPreparationTime(kitchenScheduler.quote(null, order.getPreparationMinutes()));
 
         // Save order
         Order savedOrder = orderRepository.save(order);
@@ -126,7 +117,8 @@ public class OrderService {
         // Create payment
         Payment payment = paymentService.createPayment(savedOrder, request.getPaymentMethod());
         
-        emailService.sendEmailOrderConfirmation(user, savedOrder);
+        outboxService.enqueue(OutboxMessageType.ORDER_CONFIRMATION, savedOrder.getId());
+        eventPublisher.publishEvent(OrderEvent.of(OrderEventType.CREATED, savedOrder, null));
 
         log.info(LogCategory.order("Order created successfully: " + savedOrder.getOrderNumber()));
 
@@ -153,14 +145,89 @@ public class OrderService {
         log.info(LogCategory.order("Fetched " + orders.getTotalElements() + " orders for user: " + user.getEmail()));
             
         
-        return orders.map(order -> {
-            try {
-                PaymentResponse payment = paymentService.getPaymentByOrder(order);
-                return mapToResponseWithPayment(order, payment);
-            } catch (Exception e) {
-                return mapToResponseWithPayment(order, null);
-            }
-        });
+        // One query for the payments of the whole page, joined in memory
+        Map<Long, PaymentResponse> payments = paymentService.getPaymentsByOrders(orders.getContent());
+        return withArchivedOrders(user.getId(), status,
+                orders.map(order -> mapToResponseWithPayment(order, payments.get(order.getId()))));
+    }
+
+    /**
+     * Extends a page of live orders with the customer's archived ones. Archived orders are listed
+     * after all live ones, which keeps offsets stable; they are older than the archive age anyway.
+     */
+    private Page<OrderResponse> withArchivedOrders(Long userId, OrderStatus status, Page<OrderResponse> live) {
+        long archivedTotal = status != null
+                ? archivedOrderRepository.countByUserIdAndStatus(userId, status)
+                : archivedOrderRepository.countByUserId(userId);
+        if (archivedTotal == 0) {
+            return live;
+        }
+
+        Pageable pageable = live.getPageable();
+        List<OrderResponse> content = new ArrayList<>(live.getContent());
+        int missing = pageable.getPageSize() - content.size();
+        if (missing > 0) {
+            long archiveOffset = Math.max(0, pageable.getOffset() - live.getTotalElements());
+            int window = (int) Math.min(archiveOffset + missing, Integer.MAX_VALUE);
+            archivedOrderRepository.findUserPageOlderThan(userId, status, null, null, PageRequest.of(0, window))
+                    .stream()
+                    .skip(archiveOffset)
+                    .map(this::fromArchive)
+                    .forEach(content::add);
+        }
+        return new PageImpl<>(content, pageable, live.getTotalElements() + archivedTotal);
+    }
+
+    /**
+     * Merges a keyset page of live orders with the archived orders past the same cursor. The newest
+     * size orders of the union are always among the newest size of each side, so one extra bounded
+     * query per page keeps the merged listing exact.
+     */
+    private CursorPage<OrderResponse> withArchivedOrders(Long userId, OrderStatus status, String cursor,
+                                                         CursorPage<OrderResponse> live, boolean withCount) {
+        OrderCursor position = OrderCursor.decode(cursor);
+        int size = live.getSize();
+        List<ArchivedOrder> archived = archivedOrderRepository.findUserPageOlderThan(userId, status,
+                position != null ? position.getCreatedAt() : null,
+                position != null ? position.getId() : null,
+                PageRequest.of(0, size + 1));
+        Long totalElements = !withCount ? null : live.getTotalElements() + (status != null
+                ? archivedOrderRepository.countByUserIdAndStatus(userId, status)
+                : archivedOrderRepository.countByUserId(userId));
+        if (archived.isEmpty()) {
+            live.setTotalElements(totalElements);
+            return live;
+        }
+
+        List<OrderResponse> merged = new ArrayList<>(live.getContent());
+        archived.forEach(order -> merged.add(fromArchive(order)));
+        merged.sort(Comparator.comparing(OrderResponse::getCreatedAt)
+                .thenComparing(OrderResponse::getId)
+                .reversed());
+
+        boolean hasNext = live.isHasNext() || merged.size() > size;
+        List<OrderResponse> content = merged.size() > size ? merged.subList(0, size) : merged;
+        OrderResponse last = content.get(content.size() - 1);
+        String nextCursor = hasNext ? new OrderCursor(last.getCreatedAt(), last.getId()).encode() : null;
+        return new CursorPage<>(content, size, hasNext, nextCursor, totalElements);
+    }
+
+    private OrderResponse fromArchive(ArchivedOrder archived) {
+        try {
+            return objectMapper.readValue(archived.getSnapshot(), OrderResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable snapshot for archived order " + archived.getId(), e);
+        }
+    }
+
+    /**
+     * Orders as their customers see them, items and payment included; what gets archived.
+     * The orders' items must already be initialized.
+     */
+    Map<Long, OrderResponse> snapshotsOf(List<Order> orders) {
+        Map<Long, PaymentResponse> payments = paymentService.getPaymentsByOrders(orders);
+        return orders.stream().collect(Collectors.toMap(Order::getId,
+                order -> mapToResponseWithPayment(order, payments.get(order.getId()))));
     }
 
     public Order getOrderByOrderNumber(String orderNumber) {
@@ -168,25 +235,48 @@ public class OrderService {
                 .orElseThrow(() -> new EntityNotFoundException("Order not found with order number: " + orderNumber));
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Order detail for its owner. Served from the response cache when warm; otherwise loaded in a
+     * read-only transaction of its own, so a cache hit does not even borrow a connection.
+     */
     public OrderResponse getOrderById(Long userId, Long orderId) {
-        User user = userService.findById(userId);
         log.info(LogCategory.order("Fetching order: " + orderId));
 
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found: " + orderId));
+        OrderResponse cached = orderResponseCache.get(orderId, userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long ticket = orderResponseCache.ticket(orderId);
+        OrderResponse response = readOnlyTransaction().execute(status -> loadOrderById(userId, orderId));
+        orderResponseCache.put(orderId, userId, ticket, response);
+        return response;
+    }
+
+    private OrderResponse loadOrderById(Long userId, Long orderId) {
+        User user = userService.findById(userId);
+
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null) {
+            // Old closed orders live in the archive; customers can still open them
+            return archivedOrderRepository.findByIdAndUserId(orderId, user.getId())
+                    .map(this::fromArchive)
+                    .orElseThrow(() -> new RuntimeException("Order not found: " + orderId));
+        }
 
         // Verify order belongs to user
         if (!order.getUser().getId().equals(user.getId())) {
             throw new RuntimeException("Unauthorized access to order");
         }
 
-        try {
-            PaymentResponse payment = paymentService.getPaymentByOrder(order);
-            return mapToResponseWithPayment(order, payment);
-        } catch (Exception e) {
-            return mapToResponseWithPayment(order, null);
-        }
+        PaymentResponse payment = paymentService.getPaymentsByOrders(List.of(order)).get(order.getId());
+        return mapToResponseWithPayment(order, payment);
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction;
     }
 
     @Transactional
@@ -207,38 +297,16 @@ public class OrderService {
             throw new RuntimeException("Order cannot be modified in current status: " + order.getStatus());
         }
 
-        // Clear existing items
-        order.getOrderItems().clear();
-
-        // Add new items and recalculate
-        BigDecimal subtotal = BigDecimal.ZERO;
-        for (OrderItemRequest itemRequest : request.getItems()) {
-            MenuItem menuItem = menuItemRepository.findById(itemRequest.getMenuItemId())
-                    .orElseThrow(() -> new RuntimeException("Menu item not found: " + itemRequest.getMenuItemId()));
+        // Replace items and recalculate totals
+        PricedOrder pricedOrder = orderPricingService.price(order.getOrderType(), request.getItems());
+        pricedOrder.applyTo(order);
 
-            OrderItem orderItem = new OrderItem();
-            orderItem.setMenuItem(menuItem);
-            orderItem.setMenuItemName(menuItem.getName());
-            orderItem.setUnitPrice(menuItem.getPrice());
-            orderItem.setQuantity(itemRequest.getQuantity());
-            orderItem.setSpecialInstructions(itemRequest.getSpecialInstructions());
-            
-            BigDecimal itemSubtotal = menuItem.getPrice().multiply(BigDecimal.valueOf(itemRequest.getQuantity()));
-            orderItem.setSubtotal(itemSubtotal);
-            subtotal = subtotal.add(itemSubtotal);
-
-            order.addOrderItem(orderItem);
-        }
-
-        // Update totals
-        order.setSubtotal(subtotal);
-        order.setTaxAmount(subtotal.multiply(BigDecimal.valueOf(0)));
-        
-        BigDecimal total = subtotal
-                .add(order.getTaxAmount())
-                .add(order.getDeliveryFee())
-                .subtract(order.getDiscountAmount());
-        order.setTotalAmount(total);
+        // The estimate counts from when the order was placed; re-quote from now with the new items
+        long minutesSincePlaced = order.getCreatedAt() != null
+                ? Math.max(0, Duration.between(order.getCreatedAt(), LocalDateTime.now()).toMinutes())
+                : 0;
+        order.setEstimatedPreparationTime((int) minutesSincePlaced
+                + kitchenScheduler.quote(order.getId(), order.getPreparationMinutes()));
 
         // Update other fields
         if (request.getSpecialInstructions() != null) {
@@ -249,6 +317,8 @@ public class OrderService {
         }
 
         Order updatedOrder = orderRepository.save(order);
+        orderResponseCache.invalidate(orderId);
+        eventPublisher.publishEvent(OrderEvent.of(OrderEventType.UPDATED, updatedOrder));
         log.info(LogCategory.order("Order updated successfully: " + orderId));
 
         return mapToResponse(updatedOrder, null);
@@ -282,20 +352,31 @@ public class OrderService {
             throw new RuntimeException("Order is already being prepared and cannot be cancelled");
         }
 
-        order.setStatus(OrderStatus.CANCELLED);
-        order.setCancelledAt(LocalDateTime.now());
-        order.setCancellationReason(request.getReason());
+        // Same conditional UPDATE as staff transitions, so a concurrent move to PREPARING is not overwritten
+        OrderStatus previousStatus = order.getStatus();
+        if (!previousStatus.canTransitionTo(OrderStatus.CANCELLED)) {
+            throw new InvalidStatusTransitionException(previousStatus, OrderStatus.CANCELLED);
+        }
+        int updated = transitionStatus(List.of(orderId), previousStatus, OrderStatus.CANCELLED,
+                LocalDateTime.now(), request.getReason());
+        orderResponseCache.invalidate(orderId);
+        if (updated == 0) {
+            throw statusConflict(orderId, previousStatus);
+        }
 
-        Order cancelledOrder = orderRepository.save(order);
+        Order cancelledOrder = orderRepository.findById(orderId)
+                .orElseThrow(() -> new EntityNotFoundException("Order not found with ID: " + orderId));
+        eventPublisher.publishEvent(OrderEvent.of(OrderEventType.CANCELLED, cancelledOrder, previousStatus));
 
         // Send order cancelled email
-        emailService.sendOrderCancelledEmail(user, cancelledOrder);
+        outboxService.enqueue(OutboxMessageType.ORDER_CANCELLED, cancelledOrder.getId());
 
         log.info(LogCategory.order("Order cancelled successfully: " + orderId));
 
         return mapToResponse(cancelledOrder, null);
     }
 
+    @Transactional(readOnly = true)
     public Page<OrderResponse> getOrdersByDate(LocalDate date, int page, int size, OrderStatus status) {
         // Create Pageable object (Sort by newest first)
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
@@ -320,7 +401,7 @@ public class OrderService {
         orders = orderRepository.findByCreatedAtBetween(startOfDay, endOfDay, pageable);
 
         // Convert Entity to DTO
-        return orders.map(this::convertToResponse); 
+        return toResponsePage(orders);
     }
 
 
@@ -408,25 +489,122 @@ public class OrderService {
     }
 
     /**
-     * List orders with filters and pagination
+     * Map a listing page to responses in a bounded number of statements:
+     * the items of every order on the page are fetched with one extra query
+     * instead of being lazily loaded row by row.
      */
-    public Page<OrderResponse> listOrders(OrderStatus status, String search, Pageable pageable) {
-        Page<Order> orders;
-        
-       if (status != null) {
-            orders = orderRepository.findByStatus(status, pageable);
-        } else if (search != null && !search.isEmpty()) {
-            orders = orderRepository.findByCustomerNameContainingOrOrderNumberContaining(search, search, pageable);
-        } else {
-            orders = orderRepository.findAll(pageable);
+    private Page<OrderResponse> toResponsePage(Page<Order> orders) {
+        if (orders.hasContent()) {
+            List<Long> orderIds = orders.getContent().stream()
+                    .map(Order::getId)
+                    .toList();
+            orderRepository.findWithItemsByIdIn(orderIds);
         }
-        
         return orders.map(this::convertToResponse);
     }
 
+    /**
+     * Fetch one keyset page of orders matching the filter, newest first.
+     * Reads size + 1 rows to learn whether another page follows, so no COUNT query
+     * is issued unless the caller asks for the total.
+     */
+    private CursorPage<Order> seekOrders(Specification<Order> filter, String cursor, int size, boolean withCount) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        Specification<Order> seek = Specification.allOf(filter, olderThan(OrderCursor.decode(cursor)));
+
+        List<Order> rows = orderRepository.findBy(seek, query -> query
+                .sortBy(NEWEST_FIRST)
+                .limit(size + 1)
+                .all());
+
+        boolean hasNext = rows.size() > size;
+        List<Order> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? OrderCursor.of(content.get(content.size() - 1)).encode() : null;
+        Long totalElements = withCount ? orderRepository.count(filter) : null;
+
+        if (!content.isEmpty()) {
+            orderRepository.findWithItemsByIdIn(content.stream().map(Order::getId).toList());
+        }
+        return new CursorPage<>(content, size, hasNext, nextCursor, totalElements);
+    }
+
+    /**
+     * Keyset variant of listOrders
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResponse> listOrdersAfter(OrderStatus status, String search, String cursor,
+                                                     int size, boolean withCount) {
+        Specification<Order> filter = Specification.allOf(hasStatus(status), matchesSearch(search));
+        return seekOrders(filter, cursor, size, withCount).map(this::convertToResponse);
+    }
+
+    /**
+     * Keyset variant of getUserOrders
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResponse> getUserOrdersAfter(Long userId, OrderStatus status, String cursor,
+                                                        int size, boolean withCount) {
+        User user = userService.findById(userId);
+        Specification<Order> filter = Specification.allOf(belongsTo(user), hasStatus(status));
+
+        CursorPage<Order> orders = seekOrders(filter, cursor, size, withCount);
+        Map<Long, PaymentResponse> payments = paymentService.getPaymentsByOrders(orders.getContent());
+        return withArchivedOrders(user.getId(), status, cursor,
+                orders.map(order -> mapToResponseWithPayment(order, payments.get(order.getId()))), withCount);
+    }
+
+    /**
+     * Keyset variant of getOrdersByStatus
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResponse> getOrdersByStatusAfter(OrderStatus status, String cursor,
+                                                            int size, boolean withCount) {
+        return seekOrders(hasStatus(status), cursor, size, withCount).map(this::convertToResponse);
+    }
+
+    /**
+     * Keyset variant of getOrdersByDate
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResponse> getOrdersByDateAfter(LocalDate date, OrderStatus status, String cursor,
+                                                          int size, boolean withCount) {
+        Specification<Order> filter = Specification.allOf(
+                createdBetween(date.atStartOfDay(), date.atTime(LocalTime.MAX)),
+                hasStatus(status)
+        );
+        return seekOrders(filter, cursor, size, withCount).map(this::convertToResponse);
+    }
+
+    /**
+     * List orders with filters and pagination
+     */
+    @Transactional(readOnly = true)
+    public Page<OrderResponse> listOrders(OrderStatus status, String search, Pageable pageable) {
+        Specification<Order> filter = Specification.allOf(hasStatus(status), matchesSearch(search));
+        return toResponsePage(orderRepository.findAll(filter, pageable));
+    }
+
+    /**
+     * Admin console search, newest first: order number prefix or customer name/phone/email
+     * substring (see OrderSpecifications.matchesSearch), narrowed by status and creation date range
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResponse> searchOrders(String query, OrderStatus status, LocalDate from, LocalDate to,
+                                                  String cursor, int size, boolean withCount) {
+        Specification<Order> filter = Specification.allOf(
+                matchesSearch(query),
+                hasStatus(status),
+                createdBetween(from != null ? from.atStartOfDay() : null, to != null ? to.atTime(LocalTime.MAX) : null)
+        );
+        return seekOrders(filter, cursor, size, withCount).map(this::convertToResponse);
+    }
+
     /**
      * Get orders by specific status (NEW METHOD)
      */
+    @Transactional(readOnly = true)
     public Page<OrderResponse> getOrdersByStatus(OrderStatus status, Pageable pageable) {
         Page<Order> orders;
         
@@ -434,28 +612,183 @@ public class OrderService {
         orders = orderRepository.findByStatus(status, pageable);
         
         
-        return orders.map(this::convertToResponse);
+        return toResponsePage(orders);
     }
 
-    public Order updateOrderStatus(Long orderId, OrderStatus newStatus) {
-        // 1. Find the order or throw an error if not found
-        Order order = orderRepository.findById(orderId)
+    /**
+     * Active orders in the order the kitchen should work on them, with expected ready times
+     */
+    public List<KitchenQueueEntry> getKitchenQueue() {
+        return kitchenScheduler.getWorkQueue();
+    }
+
+    @Transactional
+    public void updateOrderStatus(Long orderId, OrderStatus newStatus) {
+        updateOrderStatus(orderId, newStatus, null);
+    }
+
+    /**
+     * Apply a status transition with one conditional UPDATE, without loading or rewriting the row.
+     * The move must be allowed by the OrderStatus state machine. When expectedStatus is given it is
+     * used as the precondition, so a device acting on stale data gets a conflict instead of silently
+     * overwriting a newer status.
+     */
+    @Transactional
+    public void updateOrderStatus(Long orderId, OrderStatus newStatus, OrderStatus expectedStatus) {
+        if (newStatus == null) {
+            throw new IllegalArgumentException("Status is required");
+        }
+
+        // Only the fields the status change event carries; none of them change with the status
+        Object[] fields = orderRepository.findStatusEventFieldsById(orderId).stream()
+                .findFirst()
                 .orElseThrow(() -> new EntityNotFoundException("Order not found with ID: " + orderId));
+        OrderStatus previousStatus = expectedStatus != null ? expectedStatus : (OrderStatus) fields[0];
 
-        OrderStatus previousStatus = order.getStatus();
+        if (!previousStatus.canTransitionTo(newStatus)) {
+            throw new InvalidStatusTransitionException(previousStatus, newStatus);
+        }
 
-        // 2. Update the status
-        order.setStatus(newStatus);
+        int updated = transitionStatus(List.of(orderId), previousStatus, newStatus, LocalDateTime.now());
+        orderResponseCache.invalidate(orderId);
 
-        // 3. Save and return the updated order
-        Order savedOrder = orderRepository.save(order);
+        if (updated == 0) {
+            throw statusConflict(orderId, previousStatus);
+        }
+
+        eventPublisher.publishEvent(new OrderEvent(OrderEventType.STATUS_CHANGED, orderId, (String) fields[1],
+                newStatus, previousStatus, (OrderType) fields[2], LocalDateTime.now(), (Integer) fields[3]));
 
         // When order transitions to COMPLETED, send rating request email
-        if (previousStatus != OrderStatus.COMPLETED && newStatus == OrderStatus.COMPLETED) {
-            emailService.sendOrderCompletedRatingRequestEmail(order.getUser(), savedOrder);
+        if (newStatus == OrderStatus.COMPLETED) {
+            outboxService.enqueue(OutboxMessageType.ORDER_COMPLETED_RATING_REQUEST, orderId);
+            publishItemsCompleted(List.of(orderId));
+        }
+
+        log.info(LogCategory.order("Order {} moved from {} to {}"), orderId, previousStatus, newStatus);
+    }
+
+    private OrderStatusConflictException statusConflict(Long orderId, OrderStatus expectedStatus) {
+        OrderStatus currentStatus = orderRepository.findStatusById(orderId)
+                .orElseThrow(() -> new EntityNotFoundException("Order not found with ID: " + orderId));
+        log.warn(LogCategory.order("Status conflict on order {}: expected {}, found {}"),
+                orderId, expectedStatus, currentStatus);
+        return new OrderStatusConflictException(orderId, expectedStatus, currentStatus);
+    }
+
+    /**
+     * Apply one status transition to many orders in a single transaction, e.g. when the kitchen
+     * pass marks a burst of orders READY. Orders are updated with one conditional UPDATE per
+     * starting status; orders that cannot move are reported per order instead of failing the batch.
+     * Rating request emails for completed orders are queued in the outbox together and go out in one batch.
+     */
+    @Transactional
+    public BulkUpdateOrderStatusResponse updateOrderStatuses(List<Long> orderIds, OrderStatus newStatus,
+                                                             OrderStatus expectedStatus) {
+        List<Long> ids = orderIds.stream().distinct().toList();
+        Map<Long, OrderStatus> statusesBefore = findStatuses(ids);
+        Map<Long, OrderStatusOutcome> outcomes = new HashMap<>();
+        Map<OrderStatus, List<Long>> eligibleByStatus = new EnumMap<>(OrderStatus.class);
+
+        for (Long id : ids) {
+            OrderStatus currentStatus = statusesBefore.get(id);
+            OrderStatus fromStatus = expectedStatus != null ? expectedStatus : currentStatus;
+            if (currentStatus == null) {
+                outcomes.put(id, new OrderStatusOutcome(id, OrderStatusOutcome.Result.NOT_FOUND, null, null,
+                        "Order not found with ID: " + id));
+            } else if (!fromStatus.canTransitionTo(newStatus)) {
+                outcomes.put(id, new OrderStatusOutcome(id, OrderStatusOutcome.Result.INVALID_TRANSITION,
+                        currentStatus, currentStatus,
+                        new InvalidStatusTransitionException(fromStatus, newStatus).getMessage()));
+            } else if (fromStatus != currentStatus) {
+                outcomes.put(id, conflict(id, fromStatus, currentStatus));
+            } else {
+                eligibleByStatus.computeIfAbsent(fromStatus, status -> new ArrayList<>()).add(id);
+            }
+        }
+
+        // Truncated to what the column stores, so the rows stamped below can be found by it
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        List<Long> updatedIds = new ArrayList<>();
+        for (Map.Entry<OrderStatus, List<Long>> group : eligibleByStatus.entrySet()) {
+            List<Long> groupIds = group.getValue();
+            int updated = transitionStatus(groupIds, group.getKey(), newStatus, now);
+            orderResponseCache.invalidateAll(groupIds);
+            // Only when another device won a race do we need to find out which orders this statement moved
+            updatedIds.addAll(updated == groupIds.size()
+                    ? groupIds
+                    : orderRepository.findIdsTransitionedAt(groupIds, newStatus, now));
+        }
+
+        Set<Long> moved = new HashSet<>(updatedIds);
+        List<Long> lostIds = eligibleByStatus.values().stream()
+                .flatMap(List::stream)
+                .filter(id -> !moved.contains(id))
+                .toList();
+        Map<Long, OrderStatus> statusesAfter = lostIds.isEmpty() ? Map.of() : findStatuses(lostIds);
+        for (Long id : updatedIds) {
+            outcomes.put(id, new OrderStatusOutcome(id, OrderStatusOutcome.Result.UPDATED,
+                    statusesBefore.get(id), newStatus, null));
+        }
+        for (Long id : lostIds) {
+            outcomes.put(id, conflict(id, statusesBefore.get(id), statusesAfter.get(id)));
+        }
+
+        if (!updatedIds.isEmpty()) {
+            List<Order> updatedOrders = orderRepository.findAllById(updatedIds);
+            updatedOrders.forEach(order -> eventPublisher.publishEvent(
+                    OrderEvent.of(OrderEventType.STATUS_CHANGED, order, statusesBefore.get(order.getId()))));
+            if (newStatus == OrderStatus.COMPLETED) {
+                outboxService.enqueueAll(OutboxMessageType.ORDER_COMPLETED_RATING_REQUEST, updatedIds);
+                publishItemsCompleted(updatedIds);
+            }
         }
 
-        return savedOrder;
+        log.info(LogCategory.order("Bulk status update to {}: {} of {} orders updated"),
+                newStatus, updatedIds.size(), ids.size());
+        return new BulkUpdateOrderStatusResponse(ids.size(), updatedIds.size(),
+                ids.stream().map(outcomes::get).toList());
+    }
+
+    private OrderStatusOutcome conflict(Long orderId, OrderStatus expectedStatus, OrderStatus currentStatus) {
+        return new OrderStatusOutcome(orderId, OrderStatusOutcome.Result.CONFLICT, currentStatus, currentStatus,
+                new OrderStatusConflictException(orderId, expectedStatus, currentStatus).getMessage());
+    }
+
+    /**
+     * Feed the units sold to the popular-items counter once the transaction commits
+     */
+    private void publishItemsCompleted(Collection<Long> orderIds) {
+        Map<Long, Long> quantities = orderItemRepository.sumQuantitiesByMenuItemForOrders(orderIds).stream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> ((Number) row[1]).longValue()));
+        eventPublisher.publishEvent(new OrderItemsCompletedEvent(quantities));
+    }
+
+    private Map<Long, OrderStatus> findStatuses(Collection<Long> orderIds) {
+        return orderRepository.findStatusesByIdIn(orderIds).stream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> (OrderStatus) row[1]));
+    }
+
+    /**
+     * Conditionally move orders from one status to another, stamping the milestone the new status marks
+     */
+    private int transitionStatus(Collection<Long> orderIds, OrderStatus from, OrderStatus to, LocalDateTime now) {
+        return transitionStatus(orderIds, from, to, now, null);
+    }
+
+    private int transitionStatus(Collection<Long> orderIds, OrderStatus from, OrderStatus to, LocalDateTime now,
+                                 String cancellationReason) {
+        return orderRepository.transitionStatus(
+                orderIds,
+                from,
+                to,
+                now,
+                to == OrderStatus.PREPARING ? now : null,
+                to == OrderStatus.READY ? now : null,
+                to == OrderStatus.COMPLETED ? now : null,
+                to == OrderStatus.CANCELLED ? now : null,
+                cancellationReason
+        );
     }
 
     // NEW: Get orders with ratings
@@ -470,7 +803,7 @@ public class OrderService {
             orders = orderRepository.findByRatingIsNotNull(pageable);
         }
         
-        return orders.map(this::convertToResponse);
+        return toResponsePage(orders);
     }
 
     // NEW: Submit order rating
@@ -495,6 +828,7 @@ public class OrderService {
         order.setRatedAt(LocalDateTime.now());
         
         Order savedOrder = orderRepository.save(order);
+        orderResponseCache.invalidate(orderId);
         return convertToResponse(savedOrder);
     }
 
@@ -520,30 +854,22 @@ public class OrderService {
                 .findFirst()
                 .orElseThrow(() -> new RuntimeException("Order item not found: " + itemId));
         
+        Integer previousRating = item.getDishRating();
         item.setDishRating(request.getDishRating());
         item.setDishFeedback(request.getDishFeedback());
         item.setDishRatedAt(LocalDateTime.now());
         
         Order savedOrder = orderRepository.save(order);
+        orderResponseCache.invalidate(orderId);
 
-        // Update menu item rating based on average of all dish ratings
+        // Fold the rating into the menu item's running aggregates; a re-rating swaps stars
         MenuItem menuItem = item.getMenuItem();
-        if (menuItem != null) {
-            Double averageRating = orderItemRepository.calculateAverageRatingByMenuItemId(menuItem.getId());
-            Long reviewCount = orderItemRepository.countRatingsByMenuItemId(menuItem.getId());
-
-            // Round to 2 decimal places
-            if (averageRating != null) {
-                menuItem.setRating(Math.round(averageRating * 100.0) / 100.0);
-            } else {
-                menuItem.setRating(0.0);
-            }
-
-            menuItem.setReviewCount(reviewCount != null ? reviewCount.intValue() : 0);
-            menuItemRepository.save(menuItem);
+        if (menuItem != null && !request.getDishRating().equals(previousRating)) {
+            menuItemRepository.applyRatingChange(menuItem.getId(),
+                    previousRating != null ? previousRating : 0, request.getDishRating());
 
             log.info(LogCategory.order("Updated menu item rating for " + menuItem.getName() +
-                    ": " + menuItem.getRating() + " (from " + reviewCount + " reviews)"));
+                    ": " + previousRating + " -> " + request.getDishRating()));
         }
 
         return convertToResponse(savedOrder);
@@ -565,6 +891,7 @@ public class OrderService {
         order.setRespondedAt(LocalDateTime.now());
         
         Order savedOrder = orderRepository.save(order);
+        orderResponseCache.invalidate(orderId);
         return convertToResponse(savedOrder);
     }
 
@@ -589,6 +916,7 @@ public class OrderService {
         item.setDishRespondedAt(LocalDateTime.now());
         
         Order savedOrder = orderRepository.save(order);
+        orderResponseCache.invalidate(orderId);
         return convertToResponse(savedOrder);
     }
 
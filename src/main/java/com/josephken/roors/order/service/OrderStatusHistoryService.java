@@ -0,0 +1,180 @@
+package com.josephken.roors.order.service;
+
+import com.josephken.roors.common.util.LogCategory;
+import com.josephken.roors.order.dto.OrderEvent;
+import com.josephken.roors.order.dto.OrderEventType;
+import com.josephken.roors.order.dto.OrderStatusHistoryResponse;
+import com.josephken.roors.order.dto.PreparationTimeStats;
+import com.josephken.roors.order.entity.OrderStatus;
+import com.josephken.roors.order.repository.OrderStatusHistoryRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Append-only timeline of order status changes in {@code order_status_history}.
+ * <p>
+ * Every committed create, status change and cancellation published by OrderService is queued
+ * in memory with the user who made it, and the queue is written periodically in JDBC batches,
+ * so a transition does not wait for its history row. Rows still queued when the instance dies
+ * are lost; the milestone columns on the order itself remain authoritative for its current
+ * state. Reads flush the queue first, so this instance's own changes are always visible; they
+ * run outside any transaction so that flush is not pulled into a read-only one.
+ */
+@Slf4j
+@Service
+public class OrderStatusHistoryService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO order_status_history (order_id, from_status, to_status, actor_id, changed_at) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private final OrderStatusHistoryRepository orderStatusHistoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+    private final BlockingQueue<Object[]> pending;
+
+    public OrderStatusHistoryService(
+            OrderStatusHistoryRepository orderStatusHistoryRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.orders.status-history.batch-size:500}") int batchSize,
+            @Value("${app.orders.status-history.queue-capacity:100000}") int queueCapacity
+    ) {
+        this.orderStatusHistoryRepository = orderStatusHistoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.pending = new LinkedBlockingQueue<>(queueCapacity);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        if (event.getType() == OrderEventType.UPDATED) {
+            return;
+        }
+        // After-commit listeners run on the thread that made the change, so its user is still current
+        Object[] row = {
+                event.getOrderId(),
+                event.getType() == OrderEventType.CREATED ? null : name(event.getPreviousStatus()),
+                event.getStatus().name(),
+                currentUserId(),
+                Timestamp.valueOf(event.getOccurredAt())
+        };
+        if (!pending.offer(row)) {
+            log.warn(LogCategory.order("Status history queue full, dropped {} -> {} of order {}"),
+                    row[1], row[2], event.getOrderId());
+        }
+    }
+
+    /**
+     * Writes everything queued so far, in batches of {@code app.orders.status-history.batch-size}
+     *
+     * @return number of rows written
+     */
+    @Scheduled(fixedDelayString = "${app.orders.status-history.flush-ms:1000}")
+    public synchronized int flush() {
+        int written = 0;
+        List<Object[]> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+        while (pending.drainTo(batch, batchSize) > 0) {
+            try {
+                transaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch));
+            } catch (RuntimeException e) {
+                // Rows are independent and carry their own timestamps, so requeueing out of order is fine
+                batch.forEach(pending::offer);
+                log.error(LogCategory.error("Failed to write status history, will retry: " + e.getMessage()));
+                return written;
+            }
+            written += batch.size();
+            batch.clear();
+        }
+        if (written > 0) {
+            log.debug(LogCategory.order("Wrote " + written + " status history rows"));
+        }
+        return written;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public List<OrderStatusHistoryResponse> getTimeline(Long orderId) {
+        flush();
+        return orderStatusHistoryRepository.findByOrderIdOrderByChangedAtAscIdAsc(orderId).stream()
+                .map(row -> new OrderStatusHistoryResponse(row.getFromStatus(), row.getToStatus(),
+                        row.getActorId(), row.getChangedAt()))
+                .toList();
+    }
+
+    /**
+     * Preparation-time percentiles per menu item and hour of day (of going on the line), over
+     * orders that started preparing at or after {@code since}. An order counts towards every
+     * dish on it.
+     */
+    public List<PreparationTimeStats> getPreparationTimeStats(LocalDateTime since) {
+        flush();
+        Map<Bucket, List<Long>> secondsByBucket = new HashMap<>();
+        Map<Long, String> names = new HashMap<>();
+        for (Object[] row : orderStatusHistoryRepository.findPreparationTimesByMenuItem(since)) {
+            Long menuItemId = (Long) row[0];
+            LocalDateTime preparingAt = (LocalDateTime) row[2];
+            LocalDateTime readyAt = (LocalDateTime) row[3];
+            names.putIfAbsent(menuItemId, (String) row[1]);
+            secondsByBucket.computeIfAbsent(new Bucket(menuItemId, preparingAt.getHour()), bucket -> new ArrayList<>())
+                    .add(Duration.between(preparingAt, readyAt).getSeconds());
+        }
+
+        List<PreparationTimeStats> stats = new ArrayList<>(secondsByBucket.size());
+        secondsByBucket.forEach((bucket, seconds) -> {
+            seconds.sort(null);
+            stats.add(new PreparationTimeStats(bucket.menuItemId, names.get(bucket.menuItemId), bucket.hourOfDay,
+                    seconds.size(), percentileMinutes(seconds, 50), percentileMinutes(seconds, 90),
+                    percentileMinutes(seconds, 95)));
+        });
+        stats.sort(Comparator.comparing(PreparationTimeStats::getMenuItemId)
+                .thenComparingInt(PreparationTimeStats::getHourOfDay));
+        return stats;
+    }
+
+    /**
+     * Nearest-rank percentile of sorted durations, in minutes
+     */
+    private static double percentileMinutes(List<Long> sortedSeconds, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sortedSeconds.size());
+        return sortedSeconds.get(Math.max(rank, 1) - 1) / 60.0;
+    }
+
+    private static String name(OrderStatus status) {
+        return status != null ? status.name() : null;
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        // JwtTokenFilter authenticates requests with the user id as principal
+        return authentication != null && authentication.getPrincipal() instanceof Long userId ? userId : null;
+    }
+
+    private record Bucket(Long menuItemId, int hourOfDay) {
+    }
+}
@@ -20,7 +20,8 @@ import java.time.Instant;
 public class SePayTransaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sepay_transactions_seq")
+    @SequenceGenerator(name = "sepay_transactions_seq", sequenceName = "sepay_transactions_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "sepay_id", unique = true, nullable = false)
@@ -4,9 +4,13 @@ import com.josephken.roors.order.entity.Order;
 import com.josephken.roors.payment.entity.Payment;
 import com.josephken.roors.payment.entity.PaymentStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,10 +20,16 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Payment> findByPaymentCode(String paymentCode);
     
     Optional<Payment> findByOrder(Order order);
+
+    List<Payment> findByOrderIdIn(Collection<Long> orderIds);
     
     List<Payment> findByStatus(PaymentStatus status);
     
     List<Payment> findByStatusAndExpiresAtBefore(PaymentStatus status, LocalDateTime expiresAt);
     
     boolean existsByPaymentCode(String paymentCode);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Payment p WHERE p.order.id IN :orderIds")
+    int deleteByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
 }
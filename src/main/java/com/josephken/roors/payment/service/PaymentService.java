@@ -1,6 +1,7 @@
 package com.josephken.roors.payment.service;
 
 import com.josephken.roors.order.entity.Order;
+import com.josephken.roors.order.service.OrderResponseCache;
 import com.josephken.roors.payment.dto.ConfirmPaymentRequest;
 import com.josephken.roors.payment.dto.PaymentMethodInfo;
 import com.josephken.roors.payment.dto.PaymentResponse;
@@ -9,7 +10,9 @@ import com.josephken.roors.payment.entity.PaymentMethod;
 import com.josephken.roors.payment.entity.PaymentStatus;
 import com.josephken.roors.payment.entity.SePayTransaction;
 import com.josephken.roors.payment.repository.PaymentRepository;
+import com.josephken.roors.common.service.IdAllocator;
 import com.josephken.roors.common.util.LogCategory;
+import com.josephken.roors.common.util.Vnd;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -19,7 +22,11 @@ import org.springframework.transaction.annotation.Propagation;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -28,6 +35,8 @@ public class PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final VietQRService vietQRService;
+    private final IdAllocator idAllocator;
+    private final OrderResponseCache orderResponseCache;
 
     @Value("${payment.bank.code:970436}")
     private String bankCode;
@@ -46,6 +55,7 @@ public class PaymentService {
         log.info(LogCategory.payment("Creating payment for order: " + order.getOrderNumber()));
 
         Payment payment = new Payment();
+        payment.setPaymentCode(idAllocator.nextCode(Payment.PAYMENT_CODE_PREFIX));
         payment.setOrder(order);
         payment.setAmount(order.getTotalAmount());
         payment.setPaymentMethod(paymentMethod);
@@ -62,7 +72,7 @@ public class PaymentService {
                     bankCode,
                     bankAccountNumber,
                     bankAccountName,
-                    order.getTotalAmount(),
+                    Vnd.of(order.getTotalAmount()),
                     "Thanh toan don hang " + order.getOrderNumber()
             );
             payment.setQrCodeData(qrData);
@@ -94,6 +104,25 @@ public class PaymentService {
         return mapToResponse(payment);
     }
 
+    /**
+     * Load the payments of a whole page of orders in one query, keyed by order id.
+     * Orders without a payment are simply absent from the result.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, PaymentResponse> getPaymentsByOrders(Collection<Order> orders) {
+        if (orders.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<Long> orderIds = orders.stream()
+                .map(Order::getId)
+                .toList();
+        log.info(LogCategory.payment("Fetching payments for " + orderIds.size() + " orders"));
+
+        return paymentRepository.findByOrderIdIn(orderIds).stream()
+                .collect(Collectors.toMap(payment -> payment.getOrder().getId(), this::mapToResponse));
+    }
+
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public Payment getPaymentEntityByOrder(Order order) {
         log.info(LogCategory.payment("Fetching payment entity for order: " + order.getOrderNumber()));
@@ -116,6 +145,7 @@ public class PaymentService {
         payment.setTransactionReference("SePay TXN ID: " + transaction.getSepayId());
         payment.setSePayTransaction(transaction);
         paymentRepository.save(payment);
+        orderResponseCache.invalidate(payment.getOrder().getId());
         log.info(LogCategory.payment("Payment marked as PAID successfully: " + payment.getSePayTransaction().getSepayId()));
         return true;
     }
@@ -134,6 +164,7 @@ public class PaymentService {
         if (LocalDateTime.now().isAfter(payment.getExpiresAt())) {
             payment.setStatus(PaymentStatus.EXPIRED);
             paymentRepository.save(payment);
+            orderResponseCache.invalidate(payment.getOrder().getId());
             throw new RuntimeException("Payment has expired");
         }
 
@@ -143,6 +174,7 @@ public class PaymentService {
         payment.setNotes(request.getNotes());
 
         Payment updatedPayment = paymentRepository.save(payment);
+        orderResponseCache.invalidate(payment.getOrder().getId());
         log.info(LogCategory.payment("Payment confirmed successfully: " + paymentCode));
 
         return mapToResponse(updatedPayment);
@@ -158,6 +190,7 @@ public class PaymentService {
         if (payment.getStatus() == PaymentStatus.PENDING) {
             payment.setStatus(PaymentStatus.EXPIRED);
             paymentRepository.save(payment);
+            orderResponseCache.invalidate(payment.getOrder().getId());
             log.info(LogCategory.payment("Payment expired: " + paymentCode));
         }
     }
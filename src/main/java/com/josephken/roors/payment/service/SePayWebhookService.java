@@ -1,6 +1,7 @@
 // src/main/java/com/josephken/roors/payment/service/SePayWebhookService.java
 package com.josephken.roors.payment.service;
 
+import com.josephken.roors.common.util.Vnd;
 import com.josephken.roors.order.entity.Order;
 import com.josephken.roors.order.service.OrderService;
 import com.josephken.roors.payment.config.SePayConfig;
@@ -87,14 +88,14 @@ public class SePayWebhookService {
             Instant transactionDate = parseToInstant(payload.getTransactionDate());
 
             // 3. Determine amount
-            BigDecimal amountIn = BigDecimal.ZERO;
-            BigDecimal amountOut = BigDecimal.ZERO;
-            long amount = payload.getTransferAmount() != null ? payload.getTransferAmount() : 0;
+            Vnd amountIn = Vnd.ZERO;
+            Vnd amountOut = Vnd.ZERO;
+            Vnd amount = Vnd.of(payload.getTransferAmount() != null ? payload.getTransferAmount() : 0);
 
             if ("in".equalsIgnoreCase(payload.getTransferType())) {
-                amountIn = BigDecimal.valueOf(amount);
+                amountIn = amount;
             } else if ("out".equalsIgnoreCase(payload.getTransferType())) {
-                amountOut = BigDecimal.valueOf(amount);
+                amountOut = amount;
             }
 
             // 4. Extract order number from content
@@ -107,8 +108,8 @@ public class SePayWebhookService {
                     .transactionDate(transactionDate)
                     .accountNumber(payload.getAccountNumber())
                     .subAccount(payload.getSubAccount())
-                    .amountIn(amountIn)
-                    .amountOut(amountOut)
+                    .amountIn(amountIn.toBigDecimal())
+                    .amountOut(amountOut.toBigDecimal())
                     .accumulated(BigDecimal.valueOf(payload.getAccumulated() != null ? payload.getAccumulated() : 0))
                     .code(payload.getCode())
                     .transactionContent(payload.getContent())
@@ -118,14 +119,15 @@ public class SePayWebhookService {
                     .matchedOrderNumber(orderNumber)
                     .build();
 
-            transactionRepository.save(transaction);
+            // Flushed here so a concurrent duplicate fails inside this try rather than at commit
+            transactionRepository.saveAndFlush(transaction);
 
             log.info("✅ Transaction saved: id={}, sepayId={}, orderNumber={}, amount={}",
                     transaction.getId(), transaction.getSepayId(), orderNumber, amount);
 
             // 6. TODO: Process payment matching logic here later
             if ("in".equalsIgnoreCase(payload.getTransferType()) && orderNumber != null) {
-                processPaymentMatching(transaction);
+                processPaymentMatching(transaction, amountIn);
             }
 
             return SePayWebhookResponse.success();
@@ -142,7 +144,7 @@ public class SePayWebhookService {
      */
     private String extractOrderNumber(String content, String code) {
         // First check code field
-        if (code != null && code.toUpperCase().startsWith("ORD")) {
+        if (code != null && code.toUpperCase().startsWith(Order.ORDER_NUMBER_PREFIX)) {
             return code.toUpperCase();
         }
 
@@ -160,9 +162,9 @@ public class SePayWebhookService {
     /**
      * TODO: Implement your payment matching logic here
      */
-    private void processPaymentMatching(SePayTransaction transaction) {
+    private void processPaymentMatching(SePayTransaction transaction, Vnd amountIn) {
         log.info("🔄 TODO: Match order {} with amount {}",
-                transaction.getMatchedOrderNumber(), transaction.getAmountIn());
+                transaction.getMatchedOrderNumber(), amountIn);
 
         // TODO: Implement later
         // 1. Find order by orderNumber
@@ -177,11 +179,12 @@ public class SePayWebhookService {
             return;
         }
 
-        if (existingOrder.getTotalAmount().compareTo(transaction.getAmountIn()) != 0) {
+        Vnd expected = Vnd.of(existingOrder.getTotalAmount());
+        if (!expected.equals(amountIn)) {
             log.warn("⚠️ Amount mismatch for order {}: expected {}, got {}",
                     existingOrder.getOrderNumber(),
-                    existingOrder.getTotalAmount(),
-                    transaction.getAmountIn());
+                    expected,
+                    amountIn);
             return;
         }
 
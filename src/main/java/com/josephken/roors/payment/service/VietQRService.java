@@ -1,10 +1,10 @@
 package com.josephken.roors.payment.service;
 
+import com.josephken.roors.common.util.Vnd;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.io.UnsupportedEncodingException;
-import java.math.BigDecimal;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 
@@ -24,28 +24,21 @@ public class VietQRService {
      * @param bankCode Bank code (e.g., "970415" for Vietinbank, "970436" for Vietcombank)
      * @param accountNumber Bank account number
      * @param accountName Account holder name
-     * @param amount Transaction amount
+     * @param amount Transaction amount in whole dong
      * @param addInfo Additional info/description (order number)
      * @return VietQR URL for generating QR code image
      */
     public String generateVietQR(String bankCode, String accountNumber, String accountName, 
-                                  BigDecimal amount, String addInfo) {
+                                  Vnd amount, String addInfo) {
         try {
-            log.info("Original amount: {}", amount);
-            log.info("Amount toString: {}", amount.toString());
-            log.info("Amount toPlainString: {}", amount.toPlainString());
-            log.info("Amount longValue: {}", amount.longValue());
-
             String template = "qr_only"; // compact, compact2, print, or qr_only
             
             String baseUrl = String.format("https://img.vietqr.io/image/%s-%s-%s.jpg",
                     bankCode, accountNumber, template);
 
-            // ✅ Use longValue() - NOT toString()
-            long amountInVND = amount.longValue();
-
+            // Whole dong, never "78000.00": VietQR rejects decimal amounts
             StringBuilder urlBuilder = new StringBuilder(baseUrl);
-            urlBuilder.append("?amount=").append(amountInVND);
+            urlBuilder.append("?amount=").append(amount.amount());
             urlBuilder.append("&addInfo=").append(encodeValue(addInfo));
             urlBuilder.append("&accountName=").append(encodeValue(accountName));
             
@@ -65,12 +58,12 @@ public class VietQRService {
      * 
      * @param bankCode Bank BIN (e.g., "970415")
      * @param accountNumber Bank account number
-     * @param amount Transaction amount
+     * @param amount Transaction amount in whole dong
      * @param description Payment description
      * @return Raw QR data string
      */
     public String generateVietQRData(String bankCode, String accountNumber, 
-                                      BigDecimal amount, String description) {
+                                      Vnd amount, String description) {
         // EMV QRCode format for VietQR
         StringBuilder qrData = new StringBuilder();
         
@@ -88,7 +81,7 @@ public class VietQRService {
         qrData.append("5303704");
         
         // Transaction Amount
-        if (amount != null && amount.compareTo(BigDecimal.ZERO) > 0) {
+        if (amount != null && amount.isPositive()) {
             String amountStr = amount.toString();
             qrData.append("54").append(String.format("%02d", amountStr.length())).append(amountStr);
         }
@@ -0,0 +1,59 @@
+package com.josephken.roors.reservation.config;
+
+import com.josephken.roors.common.util.DatabaseProduct;
+import com.josephken.roors.common.util.LogCategory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the database-level guarantee that a dining table is never booked twice for the same time.
+ * <p>
+ * Bookings already serialize on the table row, but that only holds for code that takes the lock.
+ * On PostgreSQL an exclusion constraint rejects any confirmed or arrived reservation whose
+ * {@code [start_time, end_time)} range overlaps another on the same table; cancelled and no-show
+ * rows are ignored. JPA cannot declare it, and it needs btree_gist for the equality on the table
+ * id. If existing rows already overlap the constraint is not created and a warning is logged.
+ * Other databases (H2 in tests) rely on the lock alone.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReservationOverlapConstraintInitializer {
+
+    private static final String CONSTRAINT_NAME = "reservation_no_overlap";
+
+    private static final String CONSTRAINT_DDL =
+            "ALTER TABLE reservation ADD CONSTRAINT " + CONSTRAINT_NAME + " " +
+            "EXCLUDE USING gist (dining_table_id WITH =, tsrange(start_time, end_time, '[)') WITH &&) " +
+            "WHERE (status IN ('CONFIRMED', 'ARRIVED'))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        String database = DatabaseProduct.name(jdbcTemplate);
+        if (!DatabaseProduct.isPostgreSql(database)) {
+            log.info(LogCategory.system("Reservation overlap constraint skipped on " + database));
+            return;
+        }
+
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_constraint WHERE conname = ?", Integer.class, CONSTRAINT_NAME);
+        if (existing != null && existing > 0) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS btree_gist");
+            jdbcTemplate.execute(CONSTRAINT_DDL);
+            log.info(LogCategory.system("Reservation overlap constraint created"));
+        } catch (RuntimeException e) {
+            // e.g. no permission for the extension, or double bookings made before the lock existed
+            log.warn(LogCategory.system("Reservation overlap constraint not created: " + e.getMessage()));
+        }
+    }
+}
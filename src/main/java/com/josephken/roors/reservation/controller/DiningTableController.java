@@ -3,6 +3,7 @@ package com.josephken.roors.reservation.controller;
 import com.josephken.roors.auth.dto.ErrorResponse;
 import com.josephken.roors.common.exception.BusinessException;
 import com.josephken.roors.reservation.dto.CreateDiningTableDto;
+import com.josephken.roors.reservation.dto.DateSlotAvailabilityDto;
 import com.josephken.roors.reservation.dto.DiningTableDto;
 import com.josephken.roors.reservation.dto.UpdateDiningTableDto;
 import com.josephken.roors.reservation.exception.CapacityExceededException;
@@ -38,6 +39,17 @@ public class DiningTableController {
                 .body(reservationTableService.getAvailableDiningTables(date, time, numberOfGuests));
     }
 
+    /**
+     * Free table counts per date, slot and capacity class for the next two weeks
+     * GET /api/tables/availability/matrix
+     */
+    @GetMapping("/availability/matrix")
+    public ResponseEntity<List<DateSlotAvailabilityDto>> getAvailabilityMatrix() {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(reservationTableService.getAvailabilityMatrix());
+    }
+
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
     @GetMapping
     public ResponseEntity<List<DiningTableDto>> getAllDiningTables() {
@@ -62,6 +62,20 @@ public class ReservationController {
                 .body(createdReservation);
     }
 
+    /**
+     * Book without picking a table; the best-fitting free one is assigned
+     * POST /api/reservations/assign
+     */
+    @PostMapping("/assign")
+    public ResponseEntity<ReservationDto> createAssignedReservation(
+            @AuthenticationPrincipal Long userId,
+            @Valid @RequestBody AssignReservationDto assignReservationDto
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.CREATED)
+                .body(reservationTableService.createAssignedReservation(userId, assignReservationDto));
+    }
+
     @PatchMapping("/{id}")
     public ResponseEntity<ReservationDto> updateReservation(
             @AuthenticationPrincipal Long userId,
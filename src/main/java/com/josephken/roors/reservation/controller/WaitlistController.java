@@ -0,0 +1,54 @@
+package com.josephken.roors.reservation.controller;
+
+import com.josephken.roors.reservation.dto.JoinWaitlistDto;
+import com.josephken.roors.reservation.dto.WaitlistEntryDto;
+import com.josephken.roors.reservation.service.WaitlistService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/reservations/waitlist")
+@RequiredArgsConstructor
+public class WaitlistController {
+
+    private final WaitlistService waitlistService;
+
+    /**
+     * Wait for a table at a full slot; booked automatically when one is released
+     * POST /api/reservations/waitlist
+     */
+    @PostMapping
+    public ResponseEntity<WaitlistEntryDto> joinWaitlist(
+            @AuthenticationPrincipal Long userId,
+            @Valid @RequestBody JoinWaitlistDto joinWaitlistDto
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.CREATED)
+                .body(waitlistService.joinWaitlist(userId, joinWaitlistDto));
+    }
+
+    @GetMapping("/me")
+    public ResponseEntity<List<WaitlistEntryDto>> getMyWaitlistEntries(
+            @AuthenticationPrincipal Long userId
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(waitlistService.getWaitlistEntriesByUserId(userId));
+    }
+
+    @PatchMapping("/{id}/cancel")
+    public ResponseEntity<WaitlistEntryDto> cancelWaitlistEntry(
+            @AuthenticationPrincipal Long userId,
+            @PathVariable Long id
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(waitlistService.cancelWaitlistEntry(userId, id));
+    }
+}
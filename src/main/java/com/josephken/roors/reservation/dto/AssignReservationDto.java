@@ -0,0 +1,31 @@
+package com.josephken.roors.reservation.dto;
+
+import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A booking without a table: the server picks the best-fitting free one
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssignReservationDto {
+
+    @NotNull(message = "Phone number is required")
+    private String phone;
+
+    @NotNull(message = "Number of guests is required")
+    @Min(value = 1, message = "At least one guest is required")
+    private int numberOfGuests;
+
+    @NotNull(message = "Reservation date and time is required")
+    @FutureOrPresent(message = "Reservation date and time must be today or in the future")
+    private LocalDateTime reservationDateTime;
+
+    // Optional; breaks ties between equally fitting tables
+    private String floor;
+}
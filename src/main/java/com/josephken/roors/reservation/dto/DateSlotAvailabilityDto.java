@@ -0,0 +1,16 @@
+package com.josephken.roors.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DateSlotAvailabilityDto {
+    LocalDate date;
+    List<SlotAvailabilityDto> slots;
+}
@@ -0,0 +1,28 @@
+package com.josephken.roors.reservation.dto;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JoinWaitlistDto {
+
+    @NotNull(message = "Phone number is required")
+    private String phone;
+
+    @NotNull(message = "Number of guests is required")
+    @Min(value = 1, message = "At least one guest is required")
+    private int numberOfGuests;
+
+    @NotNull(message = "Reservation date and time is required")
+    @Future(message = "Reservation date and time must be in the future")
+    private LocalDateTime reservationDateTime;
+
+    // Optional; tables on this floor are tried first when promoted
+    private String floor;
+}
@@ -0,0 +1,19 @@
+package com.josephken.roors.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A confirmed booking that stopped holding its table, published when the change commits
+ */
+@Getter
+@AllArgsConstructor
+public class ReservationReleasedEvent {
+    private Long reservationId;
+    private Long diningTableId;
+    private int tableCapacity;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+}
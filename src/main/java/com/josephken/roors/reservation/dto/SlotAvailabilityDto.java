@@ -0,0 +1,17 @@
+package com.josephken.roors.reservation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotAvailabilityDto {
+    LocalTime time;
+    // Free tables by table capacity (2, 4, 8, 10)
+    Map<Integer, Integer> freeTables;
+}
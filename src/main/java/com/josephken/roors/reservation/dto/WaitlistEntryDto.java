@@ -0,0 +1,24 @@
+package com.josephken.roors.reservation.dto;
+
+import com.josephken.roors.reservation.entity.WaitlistStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WaitlistEntryDto {
+    private Long id;
+    private WaitlistStatus status;
+    private String phone;
+    private int numberOfGuests;
+    private LocalDateTime startTime;
+    private String floor;
+    private Long reservationId;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,55 @@
+package com.josephken.roors.reservation.entity;
+
+import com.josephken.roors.auth.entity.User;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A customer waiting for a table at a slot that was full. Promoted into a confirmed
+ * reservation, first come first served, when a matching table is released.
+ */
+@Entity
+@Table(name = "waitlist_entry", indexes = {
+        @Index(name = "idx_waitlist_entry_status_start", columnList = "status, start_time"),
+        @Index(name = "idx_waitlist_entry_user", columnList = "user_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private WaitlistStatus status;
+
+    @Column(nullable = false)
+    private String phone;
+
+    @Column(name = "number_of_guests", nullable = false)
+    private int numberOfGuests;
+
+    @Column(name = "start_time", nullable = false)
+    private LocalDateTime startTime;
+
+    // Preferred floor, if any
+    private String floor;
+
+    // Set once promoted
+    @Column(name = "reservation_id")
+    private Long reservationId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,8 @@
+package com.josephken.roors.reservation.entity;
+
+public enum WaitlistStatus {
+    WAITING,
+    PROMOTED,
+    CANCELLED,
+    EXPIRED
+}
@@ -0,0 +1,19 @@
+package com.josephken.roors.reservation.mapper;
+
+import com.josephken.roors.reservation.dto.WaitlistEntryDto;
+import com.josephken.roors.reservation.entity.WaitlistEntry;
+
+public class WaitlistEntryMapper {
+    public static WaitlistEntryDto toDto(WaitlistEntry entry) {
+        return WaitlistEntryDto.builder()
+                .id(entry.getId())
+                .status(entry.getStatus())
+                .phone(entry.getPhone())
+                .numberOfGuests(entry.getNumberOfGuests())
+                .startTime(entry.getStartTime())
+                .floor(entry.getFloor())
+                .reservationId(entry.getReservationId())
+                .createdAt(entry.getCreatedAt())
+                .build();
+    }
+}
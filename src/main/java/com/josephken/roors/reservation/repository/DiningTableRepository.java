@@ -2,23 +2,35 @@ package com.josephken.roors.reservation.repository;
 
 import com.josephken.roors.reservation.entity.DiningTable;
 import com.josephken.roors.reservation.entity.DiningTableStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface DiningTableRepository extends JpaRepository<DiningTable, Long> {
     boolean existsByName(String name);
+
+    /**
+     * Load a table with SELECT ... FOR UPDATE so bookings of the same table serialize on its row
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM DiningTable t WHERE t.id = :id")
+    Optional<DiningTable> findForUpdate(@Param("id") Long id);
+
     @Query("SELECT t FROM DiningTable t " +
             "WHERE t.capacity = :capacity " +
             "AND t.status = :status " +
-            "AND t.id NOT IN (" +
-            "   SELECT r.diningTable.id FROM Reservation r " +
-            "   WHERE (" +
-            "       (r.startTime < :endTime AND r.endTime > :startTime)" +
-            "   )" +
+            "AND NOT EXISTS (" +
+            "   SELECT 1 FROM Reservation r " +
+            "   WHERE r.diningTable = t " +
+            "   AND r.status IN (com.josephken.roors.reservation.entity.ReservationStatus.CONFIRMED, " +
+            "                    com.josephken.roors.reservation.entity.ReservationStatus.ARRIVED) " +
+            "   AND r.startTime < :endTime AND r.endTime > :startTime" +
             ")")
     List<DiningTable> findAvailableTables(
             @Param("capacity") Integer capacity,
@@ -1,24 +1,41 @@
 package com.josephken.roors.reservation.repository;
 
 import com.josephken.roors.reservation.entity.Reservation;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ReservationRepository extends JpaRepository<Reservation, Long> {
     List<Reservation> findByUserId(Long userId);
     List<Reservation> findByDiningTableId(Long diningTableId);
 
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT r FROM Reservation r WHERE r.id IN :ids")
+    List<Reservation> findWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT CASE WHEN COUNT(r) > 0 THEN true ELSE false END " +
             "FROM Reservation r " +
             "WHERE r.diningTable.id = :diningTableId " +
+            "AND r.status IN (com.josephken.roors.reservation.entity.ReservationStatus.CONFIRMED, " +
+            "                 com.josephken.roors.reservation.entity.ReservationStatus.ARRIVED) " +
             "AND (r.startTime < :endTime AND r.endTime > :startTime)")
     boolean existsOverlappingReservations(
             @Param("diningTableId") Long diningTableId,
             @Param("startTime") LocalDateTime startTime,
             @Param("endTime") LocalDateTime endTime
     );
+
+    /**
+     * Confirmed and arrived reservations overlapping [from, to), the ones that hold their table
+     */
+    @Query("SELECT r FROM Reservation r " +
+            "WHERE r.status IN (com.josephken.roors.reservation.entity.ReservationStatus.CONFIRMED, " +
+            "                   com.josephken.roors.reservation.entity.ReservationStatus.ARRIVED) " +
+            "AND r.startTime < :to AND r.endTime > :from")
+    List<Reservation> findBlockingBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
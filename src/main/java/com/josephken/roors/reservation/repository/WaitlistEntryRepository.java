@@ -0,0 +1,31 @@
+package com.josephken.roors.reservation.repository;
+
+import com.josephken.roors.reservation.entity.WaitlistEntry;
+import com.josephken.roors.reservation.entity.WaitlistStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+    List<WaitlistEntry> findByUserIdOrderByCreatedAtDesc(Long userId);
+    List<WaitlistEntry> findByStatusAndStartTimeAfter(WaitlistStatus status, LocalDateTime startTime);
+    boolean existsByUserIdAndStartTimeAndStatus(Long userId, LocalDateTime startTime, WaitlistStatus status);
+
+    /**
+     * Move an entry on from WAITING; 0 if it already left the waitlist, e.g. promoted by another instance
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE WaitlistEntry w SET w.status = :status, w.reservationId = :reservationId " +
+            "WHERE w.id = :id AND w.status = com.josephken.roors.reservation.entity.WaitlistStatus.WAITING")
+    int leaveWaitlist(@Param("id") Long id, @Param("status") WaitlistStatus status,
+                      @Param("reservationId") Long reservationId);
+
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = com.josephken.roors.reservation.entity.WaitlistStatus.EXPIRED " +
+            "WHERE w.status = com.josephken.roors.reservation.entity.WaitlistStatus.WAITING AND w.startTime <= :cutoff")
+    int expireStartingBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,65 @@
+package com.josephken.roors.reservation.service;
+
+import com.josephken.roors.auth.service.EmailService;
+import com.josephken.roors.common.entity.OutboxMessage;
+import com.josephken.roors.common.entity.OutboxMessageType;
+import com.josephken.roors.common.service.OutboxMessageRenderer;
+import com.josephken.roors.reservation.entity.Reservation;
+import com.josephken.roors.reservation.repository.ReservationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Renders reservation emails queued in the outbox, loading all referenced reservations in one query
+ */
+@Component
+@RequiredArgsConstructor
+public class ReservationOutboxRenderer implements OutboxMessageRenderer {
+
+    private final ReservationRepository reservationRepository;
+    private final EmailService emailService;
+
+    @Override
+    public Set<OutboxMessageType> supportedTypes() {
+        return EnumSet.of(
+                OutboxMessageType.RESERVATION_CONFIRMATION,
+                OutboxMessageType.RESERVATION_UPDATED,
+                OutboxMessageType.RESERVATION_CANCELLED
+        );
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, SimpleMailMessage> render(List<OutboxMessage> messages) {
+        Map<Long, Reservation> reservations = reservationRepository.findWithUserByIdIn(messages.stream()
+                        .map(OutboxMessage::getAggregateId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Reservation::getId, Function.identity()));
+
+        Map<Long, SimpleMailMessage> emails = new HashMap<>();
+        for (OutboxMessage message : messages) {
+            Reservation reservation = reservations.get(message.getAggregateId());
+            if (reservation == null) {
+                continue;
+            }
+            emails.put(message.getId(), switch (message.getType()) {
+                case RESERVATION_CONFIRMATION -> emailService.buildReservationConfirmationMessage(reservation.getUser(), reservation);
+                case RESERVATION_UPDATED -> emailService.buildReservationUpdatedMessage(reservation.getUser(), reservation);
+                case RESERVATION_CANCELLED -> emailService.buildReservationCancelledMessage(reservation.getUser(), reservation);
+                default -> throw new IllegalArgumentException("Unsupported outbox message type: " + message.getType());
+            });
+        }
+        return emails;
+    }
+}
@@ -9,12 +9,14 @@ import java.util.List;
 public interface ReservationTableService {
     // DATE TIME AVAILABILITY
     List<DateTimeValidDto> getAvailableReservationTimes();
+    List<DateSlotAvailabilityDto> getAvailabilityMatrix();
 
     // RESERVATION
     List<ReservationDto> getReservationsByUserId(Long userId);
     List<ReservationDto> getAllReservations();
     ReservationDto getReservationById(Long reservationId);
     ReservationDto createReservation(Long userId, CreateReservationDto createReservationDto);
+    ReservationDto createAssignedReservation(Long userId, AssignReservationDto assignReservationDto);
     ReservationDto updateReservation(Long userId, Long reservationId, UpdateReservationDto updateReservationDto);
     ReservationDto markReservationAsArrived(Long reservationId);
     ReservationDto cancelReservation(Long reservationId, Long userId);
@@ -15,17 +15,23 @@ import com.josephken.roors.reservation.mapper.DiningTableMapper;
 import com.josephken.roors.reservation.mapper.ReservationMapper;
 import com.josephken.roors.reservation.repository.DiningTableRepository;
 import com.josephken.roors.reservation.repository.ReservationRepository;
+import com.josephken.roors.common.entity.OutboxMessageType;
+import com.josephken.roors.common.service.OutboxService;
 import com.josephken.roors.common.util.LogCategory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import com.josephken.roors.auth.service.EmailService;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
@@ -35,11 +41,19 @@ public class ReservationTableServiceImpl implements ReservationTableService {
     private final ReservationRepository reservationRepository;
     private final DiningTableRepository diningTableRepository;
     private final UserService userService;
-    private final EmailService emailService;
+    private final OutboxService outboxService;
+    private final TableAvailabilityIndex tableAvailabilityIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     private static final LocalTime OPENING_TIME = LocalTime.of(10, 0);
     private static final LocalTime LAST_RESERVATION_TIME = LocalTime.of(20, 0);
     private static final int RESERVATION_DURATION_HOURS = 2;
+    private static final List<Integer> CAPACITY_CLASSES = List.of(2, 4, 8, 10);
+
+    private volatile CachedMatrix availabilityMatrix;
+
+    private record CachedMatrix(long version, List<LocalDateTime> slots, List<DateSlotAvailabilityDto> matrix) {
+    }
 
     /**
      * Get available reservation times follows business rules:
@@ -99,6 +113,50 @@ public class ReservationTableServiceImpl implements ReservationTableService {
         return availableDateTimes;
     }
 
+    /**
+     * Free tables per capacity class for every bookable slot of the next two weeks, in one call.
+     * Slots follow the same rules as a booking: on the hour, at least 30 minutes ahead and
+     * ending by closing time. The matrix is reused until the availability index changes or the
+     * set of bookable slots moves on.
+     */
+    @Override
+    public List<DateSlotAvailabilityDto> getAvailabilityMatrix() {
+        List<LocalDateTime> slots = new ArrayList<>();
+        LocalDate endDate = LocalDate.now().plusWeeks(2);
+        for (LocalDate date = LocalDate.now(); !date.isAfter(endDate); date = date.plusDays(1)) {
+            for (LocalTime time = OPENING_TIME; !time.isAfter(LAST_RESERVATION_TIME); time = time.plusHours(1)) {
+                LocalDateTime start = LocalDateTime.of(date, time);
+                if (!isTimeNotAvailable(start, start.plusHours(RESERVATION_DURATION_HOURS))) {
+                    slots.add(start);
+                }
+            }
+        }
+
+        // Read before counting: a write landing meanwhile leaves the cached copy already stale
+        long version = tableAvailabilityIndex.version();
+        CachedMatrix cached = availabilityMatrix;
+        if (cached != null && cached.version() == version && cached.slots().equals(slots)) {
+            return cached.matrix();
+        }
+
+        List<Map<Integer, Integer>> counts = tableAvailabilityIndex.countFreeTables(
+                slots, RESERVATION_DURATION_HOURS, CAPACITY_CLASSES);
+
+        Map<LocalDate, List<SlotAvailabilityDto>> slotsByDate = new LinkedHashMap<>();
+        for (int i = 0; i < slots.size(); i++) {
+            LocalDateTime start = slots.get(i);
+            slotsByDate.computeIfAbsent(start.toLocalDate(), date -> new ArrayList<>())
+                    .add(new SlotAvailabilityDto(start.toLocalTime(), counts.get(i)));
+        }
+        List<DateSlotAvailabilityDto> matrix = slotsByDate.entrySet().stream()
+                .map(entry -> new DateSlotAvailabilityDto(entry.getKey(), entry.getValue()))
+                .toList();
+
+        availabilityMatrix = new CachedMatrix(version, slots, matrix);
+        log.info(LogCategory.table("Availability matrix computed for {} slots"), slots.size());
+        return matrix;
+    }
+
     /**
      * Get reservations by user ID
      */
@@ -141,26 +199,19 @@ public class ReservationTableServiceImpl implements ReservationTableService {
     }
 
     @Override
+    @Transactional
     public ReservationDto createReservation(Long userId, CreateReservationDto createReservationDto) {
         log.info(LogCategory.reservation("Creating reservation for user with id: {}"), userId);
 
         User user = userService.findById(userId);
 
-        DiningTable diningTable = diningTableRepository.findById(createReservationDto.getDiningTableId())
+        // Held until commit: a concurrent booking of this table waits here and then sees this one
+        DiningTable diningTable = diningTableRepository.findForUpdate(createReservationDto.getDiningTableId())
                 .orElseThrow(() -> new IllegalArgumentException("Dining table not found with id: " + createReservationDto.getDiningTableId()));
 
         LocalDateTime startTime = createReservationDto.getReservationDateTime();
         LocalDateTime endTime = startTime.plusHours(RESERVATION_DURATION_HOURS);
-
-        if (isTimeNotAvailable(startTime, endTime)) {
-            log.warn(LogCategory.reservation("Requested reservation time is not available: {} to {}"), startTime, endTime);
-            throw new TimeNotValidException("The requested reservation time is out of operating hours or invalid.");
-        }
-
-        if (!isOnTheHour(startTime)) {
-            log.warn(LogCategory.reservation("Requested reservation time is not on the hour: {}"), startTime);
-            throw new TimeNotValidException("Reservations must be made on the hour (e.g., 10:00, 11:00).");
-        }
+        checkReservationTime(startTime, endTime);
 
         if (notCorrectCapacity(diningTable, createReservationDto.getNumberOfGuests())) {
             log.warn(LogCategory.reservation("Dining table id: {} cannot accommodate {} guests"),
@@ -174,26 +225,60 @@ public class ReservationTableServiceImpl implements ReservationTableService {
             throw new TableNotAvailableException("The selected dining table is not available at the requested time.");
         }
 
-        Reservation reservation = Reservation.builder()
-                .user(user)
-                .diningTable(diningTable)
-                .status(ReservationStatus.CONFIRMED)
-                .phone(createReservationDto.getPhone())
-                .numberOfGuests(createReservationDto.getNumberOfGuests())
-                .startTime(startTime)
-                .endTime(endTime)
-                .build();
-
-        Reservation savedReservation = reservationRepository.save(reservation);
-
-        emailService.sendEmailReservationConfirmation(user, savedReservation);
+        Reservation savedReservation = saveConfirmedReservation(user, diningTable, createReservationDto.getPhone(),
+                createReservationDto.getNumberOfGuests(), startTime, endTime);
 
         log.info(LogCategory.reservation("Reservation with id: {} created successfully for user with id: {}"),
-                reservation.getId(), userId);
+                savedReservation.getId(), userId);
         return ReservationMapper.toDto(savedReservation);
     }
 
+    /**
+     * Book the best-fitting free table for the party instead of one the customer picked.
+     * Candidates come from the availability index, best fit first; each is locked and re-checked
+     * in turn, so a table taken meanwhile just moves the booking on to the next one.
+     */
+    @Override
+    @Transactional
+    public ReservationDto createAssignedReservation(Long userId, AssignReservationDto assignReservationDto) {
+        log.info(LogCategory.reservation("Assigning a table for {} guests for user with id: {}"),
+                assignReservationDto.getNumberOfGuests(), userId);
+
+        User user = userService.findById(userId);
+
+        LocalDateTime startTime = assignReservationDto.getReservationDateTime();
+        LocalDateTime endTime = startTime.plusHours(RESERVATION_DURATION_HOURS);
+        checkReservationTime(startTime, endTime);
+
+        int requiredCapacity = getRequiredCapacity(assignReservationDto.getNumberOfGuests());
+        List<DiningTableDto> candidates = tableAvailabilityIndex.findBestFitTables(
+                requiredCapacity, assignReservationDto.getFloor(), startTime, endTime);
+
+        // Listed candidates are free as far as the index knows, so usually only the first gets locked
+        for (DiningTableDto candidate : candidates) {
+            DiningTable diningTable = diningTableRepository.findForUpdate(candidate.getId()).orElse(null);
+            if (diningTable == null
+                    || diningTable.getStatus() != DiningTableStatus.OPEN
+                    || diningTable.getCapacity() < requiredCapacity
+                    || isTableOverlapped(diningTable, startTime, endTime)) {
+                continue;
+            }
+
+            Reservation savedReservation = saveConfirmedReservation(user, diningTable, assignReservationDto.getPhone(),
+                    assignReservationDto.getNumberOfGuests(), startTime, endTime);
+
+            log.info(LogCategory.reservation("Reservation with id: {} assigned to dining table id: {} for user with id: {}"),
+                    savedReservation.getId(), diningTable.getId(), userId);
+            return ReservationMapper.toDto(savedReservation);
+        }
+
+        log.warn(LogCategory.reservation("No dining table for {} guests is available from {} to {}"),
+                assignReservationDto.getNumberOfGuests(), startTime, endTime);
+        throw new TableNotAvailableException("No dining table is available for the requested time and number of guests.");
+    }
+
     @Override
+    @Transactional
     public ReservationDto updateReservation(
             Long userId,
             Long reservationId,
@@ -216,7 +301,7 @@ public class ReservationTableServiceImpl implements ReservationTableService {
         }
 
         if (updateReservationDto.getNumberOfGuests() != null) {
-            if (notCorrectCapacity(
+            if (tooSmall(
                     reservation.getDiningTable(),
                     updateReservationDto.getNumberOfGuests())) {
                 log.warn(LogCategory.reservation("Dining table id: {} cannot accommodate updated number of guests: {}"),
@@ -230,7 +315,7 @@ public class ReservationTableServiceImpl implements ReservationTableService {
         Reservation savedReservation = reservationRepository.save(reservation);
 
         // Send email to notify user about updated reservation details
-        emailService.sendReservationUpdatedEmail(reservation.getUser(), savedReservation);
+        outboxService.enqueue(OutboxMessageType.RESERVATION_UPDATED, savedReservation.getId());
 
         log.info(LogCategory.reservation("Reservation with id: {} updated successfully"), reservationId);
         return ReservationMapper.toDto(savedReservation);
@@ -249,12 +334,15 @@ public class ReservationTableServiceImpl implements ReservationTableService {
             throw new IllegalArgumentException("Only confirmed reservations can be marked as arrived.");
         }
         reservation.setStatus(ReservationStatus.ARRIVED);
+        Reservation savedReservation = reservationRepository.save(reservation);
+        tableAvailabilityIndex.reservationSaved(savedReservation);
 
         log.info(LogCategory.reservation("Reservation with id: {} marked as arrived successfully"), reservationId);
-        return ReservationMapper.toDto(reservationRepository.save(reservation));
+        return ReservationMapper.toDto(savedReservation);
     }
 
     @Override
+    @Transactional
     public ReservationDto cancelReservation(Long userId, Long reservationId) {
         log.info(LogCategory.reservation("Cancelling reservation with id: {}"), reservationId);
 
@@ -276,15 +364,18 @@ public class ReservationTableServiceImpl implements ReservationTableService {
         reservation.setStatus(ReservationStatus.CANCELLED);
 
         Reservation savedReservation = reservationRepository.save(reservation);
+        tableAvailabilityIndex.reservationSaved(savedReservation);
+        publishReleased(savedReservation);
 
         // Send cancellation email
-        emailService.sendReservationCancelledEmail(reservation.getUser(), savedReservation);
+        outboxService.enqueue(OutboxMessageType.RESERVATION_CANCELLED, savedReservation.getId());
 
         log.info(LogCategory.reservation("Reservation with id: {} cancelled successfully"), reservationId);
         return ReservationMapper.toDto(savedReservation);
     }
 
     @Override
+    @Transactional
     public void deleteReservation(Long reservationId) {
         log.info(LogCategory.reservation("Deleting reservation with id: {}"), reservationId);
 
@@ -292,6 +383,10 @@ public class ReservationTableServiceImpl implements ReservationTableService {
                 .orElseThrow(() -> new IllegalArgumentException("Reservation not found with id: " + reservationId));
 
         reservationRepository.delete(reservation);
+        tableAvailabilityIndex.reservationDeleted(reservationId);
+        if (TableAvailabilityIndex.BLOCKING_STATUSES.contains(reservation.getStatus())) {
+            publishReleased(reservation);
+        }
 
         log.info(LogCategory.reservation("Reservation with id: {} deleted successfully"), reservationId);
     }
@@ -320,6 +415,12 @@ public class ReservationTableServiceImpl implements ReservationTableService {
             throw new IllegalArgumentException("Reservations are not allowed at the requested time");
         }
 
+        List<DiningTableDto> indexedTables = tableAvailabilityIndex.findAvailableTables(requiredCapacity, startTime, endTime);
+        if (indexedTables != null) {
+            log.info(LogCategory.table("Found {} available tables"), indexedTables.size());
+            return indexedTables;
+        }
+
         List<DiningTable> availableTables = diningTableRepository.findAvailableTables(
                 requiredCapacity,
                 DiningTableStatus.OPEN,
@@ -372,8 +473,11 @@ public class ReservationTableServiceImpl implements ReservationTableService {
                 .status(DiningTableStatus.OPEN)
                 .build();
 
+        DiningTable savedDiningTable = diningTableRepository.save(newDiningTable);
+        tableAvailabilityIndex.tableSaved(savedDiningTable);
+
         log.info(LogCategory.user("Dining table {} created successfully"), createDiningTableDto.getName());
-        return DiningTableMapper.toDto(diningTableRepository.save(newDiningTable));
+        return DiningTableMapper.toDto(savedDiningTable);
     }
 
     @Override
@@ -411,6 +515,7 @@ public class ReservationTableServiceImpl implements ReservationTableService {
         }
 
         DiningTable updatedDiningTable = diningTableRepository.save(existingDiningTable);
+        tableAvailabilityIndex.tableSaved(updatedDiningTable);
 
         log.info(LogCategory.table("Dining table with id: {} updated successfully"), id);
         return DiningTableMapper.toDto(updatedDiningTable);
@@ -423,6 +528,7 @@ public class ReservationTableServiceImpl implements ReservationTableService {
         DiningTable existingDiningTable = diningTableRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Dining table not found with id: " + id));
         diningTableRepository.delete(existingDiningTable);
+        tableAvailabilityIndex.tableDeleted(id);
 
         log.info(LogCategory.table("Dining table with id: {} deleted successfully"), id);
     }
@@ -432,7 +538,14 @@ public class ReservationTableServiceImpl implements ReservationTableService {
         return diningTable.getCapacity() != requiredCapacity;
     }
 
-    private int getRequiredCapacity(int numberOfGuests) {
+    /**
+     * Assigned bookings may sit a party at a larger table, so an update only has to still fit
+     */
+    private boolean tooSmall(DiningTable diningTable, int numberOfGuests) {
+        return diningTable.getCapacity() < getRequiredCapacity(numberOfGuests);
+    }
+
+    static int getRequiredCapacity(int numberOfGuests) {
         if (numberOfGuests <= 2) {
             return 2;
         } else if (numberOfGuests <= 4) {
@@ -473,6 +586,57 @@ public class ReservationTableServiceImpl implements ReservationTableService {
         return false;
     }
 
+    /**
+     * Lets the waitlist know the table is free again, once the change commits
+     */
+    private void publishReleased(Reservation reservation) {
+        DiningTable diningTable = reservation.getDiningTable();
+        eventPublisher.publishEvent(new ReservationReleasedEvent(reservation.getId(), diningTable.getId(),
+                diningTable.getCapacity(), reservation.getStartTime(), reservation.getEndTime()));
+    }
+
+    private void checkReservationTime(LocalDateTime startTime, LocalDateTime endTime) {
+        if (isTimeNotAvailable(startTime, endTime)) {
+            log.warn(LogCategory.reservation("Requested reservation time is not available: {} to {}"), startTime, endTime);
+            throw new TimeNotValidException("The requested reservation time is out of operating hours or invalid.");
+        }
+
+        if (!isOnTheHour(startTime)) {
+            log.warn(LogCategory.reservation("Requested reservation time is not on the hour: {}"), startTime);
+            throw new TimeNotValidException("Reservations must be made on the hour (e.g., 10:00, 11:00).");
+        }
+    }
+
+    /**
+     * Save a confirmed booking of a table the caller holds locked and has checked is free
+     */
+    private Reservation saveConfirmedReservation(User user, DiningTable diningTable, String phone,
+                                                 int numberOfGuests, LocalDateTime startTime, LocalDateTime endTime) {
+        Reservation reservation = Reservation.builder()
+                .user(user)
+                .diningTable(diningTable)
+                .status(ReservationStatus.CONFIRMED)
+                .phone(phone)
+                .numberOfGuests(numberOfGuests)
+                .startTime(startTime)
+                .endTime(endTime)
+                .build();
+
+        Reservation savedReservation;
+        try {
+            savedReservation = reservationRepository.save(reservation);
+        } catch (DataIntegrityViolationException e) {
+            // The overlap exclusion constraint, should a booking bypass the table lock
+            log.warn(LogCategory.reservation("Dining table id: {} was booked concurrently from {} to {}"),
+                    diningTable.getId(), startTime, endTime);
+            throw new TableNotAvailableException("The selected dining table is not available at the requested time.");
+        }
+        tableAvailabilityIndex.reservationSaved(savedReservation);
+
+        outboxService.enqueue(OutboxMessageType.RESERVATION_CONFIRMATION, savedReservation.getId());
+        return savedReservation;
+    }
+
     private boolean isOnTheHour(LocalDateTime dateTime) {
         return dateTime.getMinute() == 0 && dateTime.getSecond() == 0 && dateTime.getNano() == 0;
     }
@@ -487,6 +651,10 @@ public class ReservationTableServiceImpl implements ReservationTableService {
     //     return reservationStart.isAfter(now.plusMinutes(30));
     // }
 
+    /**
+     * Always answered by the database: the availability index only sees this instance's writes
+     * between rebuilds, so it can be wrong in either direction.
+     */
     private boolean isTableOverlapped(DiningTable diningTable, LocalDateTime startTime, LocalDateTime endTime) {
         return reservationRepository.existsOverlappingReservations(
                 diningTable.getId(),
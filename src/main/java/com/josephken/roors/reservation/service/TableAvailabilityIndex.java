@@ -0,0 +1,460 @@
+package com.josephken.roors.reservation.service;
+
+import com.josephken.roors.common.util.LogCategory;
+import com.josephken.roors.reservation.dto.DiningTableDto;
+import com.josephken.roors.reservation.entity.DiningTable;
+import com.josephken.roors.reservation.entity.DiningTableStatus;
+import com.josephken.roors.reservation.entity.Reservation;
+import com.josephken.roors.reservation.entity.ReservationStatus;
+import com.josephken.roors.reservation.repository.DiningTableRepository;
+import com.josephken.roors.reservation.repository.ReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory index of which dining tables are booked in which hour, over the booking horizon
+ * (today plus {@code app.reservations.availability.horizon-days}), so availability lookups run
+ * without SQL.
+ * <p>
+ * Each table has a bitset with one bit per hour since the start of the day the index was built;
+ * a set bit means a CONFIRMED or ARRIVED reservation holds the table in that hour. Cancelled and
+ * no-show reservations free their hours. Reservation and table writes are applied once their
+ * transaction commits, so a rolled-back booking never shows. The index is rebuilt from the
+ * database on startup and every minute, which also moves its window forward; lookups outside
+ * the window return null and callers fall back to the database.
+ * <p>
+ * Only this instance's writes are seen between rebuilds, so other instances' bookings and
+ * cancellations show up to a rebuild late. The index answers listings; booking decides
+ * against the database alone.
+ */
+@Slf4j
+@Component
+public class TableAvailabilityIndex {
+
+    static final Set<ReservationStatus> BLOCKING_STATUSES = EnumSet.of(ReservationStatus.CONFIRMED, ReservationStatus.ARRIVED);
+
+    private final DiningTableRepository diningTableRepository;
+    private final ReservationRepository reservationRepository;
+    private final int horizonDays;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state;
+    // Bumped on every applied write and rebuild, so derived views know when to recompute
+    private volatile long version;
+    // Writes applied while a rebuild is loading, replayed onto the rebuilt state
+    private List<Consumer<State>> journal;
+
+    public TableAvailabilityIndex(
+            DiningTableRepository diningTableRepository,
+            ReservationRepository reservationRepository,
+            @Value("${app.reservations.availability.horizon-days:15}") int horizonDays
+    ) {
+        this.diningTableRepository = diningTableRepository;
+        this.reservationRepository = reservationRepository;
+        this.horizonDays = horizonDays;
+        this.state = new State(LocalDate.now().atStartOfDay(), horizonDays);
+    }
+
+    /**
+     * Open tables of exactly this capacity with no blocking reservation overlapping
+     * [start, end), by id; null if the range is outside the indexed window
+     */
+    public List<DiningTableDto> findAvailableTables(int capacity, LocalDateTime start, LocalDateTime end) {
+        lock.readLock().lock();
+        try {
+            int from = state.slotOf(start);
+            int to = state.slotEndingAt(end);
+            if (!state.covers(from, to)) {
+                return null;
+            }
+            List<DiningTableDto> available = new ArrayList<>();
+            for (TableSlots table : state.tables.values()) {
+                if (table.capacity == capacity && table.status == DiningTableStatus.OPEN && table.isFree(from, to)) {
+                    available.add(table.toDto());
+                }
+            }
+            return available;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Open tables seating at least {@code minCapacity} that are free for all of [start, end),
+     * best fit first: smallest capacity, so larger tables stay free for larger parties, then
+     * the preferred floor (if any) among tables of the same capacity, then id. A range outside
+     * the indexed window is answered from a snapshot loaded from the database.
+     */
+    public List<DiningTableDto> findBestFitTables(int minCapacity, String preferredFloor,
+                                                  LocalDateTime start, LocalDateTime end) {
+        lock.readLock().lock();
+        try {
+            if (state.covers(state.slotOf(start), state.slotEndingAt(end))) {
+                return state.findBestFitTables(minCapacity, preferredFloor, start, end);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return loadCovering(start, end).findBestFitTables(minCapacity, preferredFloor, start, end);
+    }
+
+    /**
+     * Whether a blocking reservation holds the table somewhere in [start, end); null if the
+     * table or the range is not indexed. Only a hint, for the same reason listings are.
+     */
+    Boolean isBooked(Long tableId, LocalDateTime start, LocalDateTime end) {
+        lock.readLock().lock();
+        try {
+            int from = state.slotOf(start);
+            int to = state.slotEndingAt(end);
+            TableSlots table = state.tables.get(tableId);
+            if (table == null || !state.covers(from, to)) {
+                return null;
+            }
+            return !table.isFree(from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Free open tables of each capacity for every start time, each held for {@code hours},
+     * counted in one pass over a single snapshot. Start times outside the indexed window are
+     * answered from a snapshot loaded from the database instead.
+     *
+     * @return one count per capacity (in the given order) for each start time, in order
+     */
+    public List<Map<Integer, Integer>> countFreeTables(List<LocalDateTime> starts, int hours, List<Integer> capacities) {
+        if (starts.isEmpty()) {
+            return List.of();
+        }
+        LocalDateTime first = starts.stream().min(LocalDateTime::compareTo).orElseThrow();
+        LocalDateTime last = starts.stream().max(LocalDateTime::compareTo).orElseThrow().plusHours(hours);
+
+        lock.readLock().lock();
+        try {
+            if (state.covers(state.slotOf(first), state.slotEndingAt(last))) {
+                return state.countFreeTables(starts, hours, capacities);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return loadCovering(first, last).countFreeTables(starts, hours, capacities);
+    }
+
+    /**
+     * Changes whenever the index does; equal versions mean equal answers for the same question
+     */
+    public long version() {
+        return version;
+    }
+
+    public void reservationSaved(Reservation reservation) {
+        Booking booking = new Booking(reservation.getId(), reservation.getDiningTable().getId(),
+                reservation.getStartTime(), reservation.getEndTime());
+        boolean blocking = BLOCKING_STATUSES.contains(reservation.getStatus());
+        afterCommit(state -> {
+            state.removeBooking(booking.reservationId);
+            if (blocking) {
+                state.addBooking(booking);
+            }
+        });
+    }
+
+    public void reservationDeleted(Long reservationId) {
+        afterCommit(state -> state.removeBooking(reservationId));
+    }
+
+    public void tableSaved(DiningTable diningTable) {
+        TableInfo info = TableInfo.of(diningTable);
+        afterCommit(state -> state.putTable(info));
+    }
+
+    public void tableDeleted(Long tableId) {
+        afterCommit(state -> state.removeTable(tableId));
+    }
+
+    /**
+     * Reload every table and the blocking reservations in the window starting today
+     */
+    @Scheduled(cron = "${app.reservations.availability.rebuild-cron:0 * * * * *}")
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            journal = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        State rebuilt;
+        try {
+            rebuilt = load(LocalDate.now().atStartOfDay(), horizonDays);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                journal = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            journal.forEach(write -> write.accept(rebuilt));
+            journal = null;
+            state = rebuilt;
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug(LogCategory.table("Availability index rebuilt: {} tables, {} reservations from {}"),
+                rebuilt.tables.size(), rebuilt.bookings.size(), rebuilt.base.toLocalDate());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    private State load(LocalDateTime base, int days) {
+        State loaded = new State(base, days);
+        diningTableRepository.findAll().forEach(table -> loaded.putTable(TableInfo.of(table)));
+        for (Reservation reservation : reservationRepository.findBlockingBetween(loaded.base, loaded.end())) {
+            loaded.addBooking(new Booking(reservation.getId(), reservation.getDiningTable().getId(),
+                    reservation.getStartTime(), reservation.getEndTime()));
+        }
+        return loaded;
+    }
+
+    /**
+     * A one-off snapshot for a range outside the window, not kept
+     */
+    private State loadCovering(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime base = from.toLocalDate().atStartOfDay();
+        return load(base, (int) Duration.between(base, to).toDays() + 1);
+    }
+
+    private void afterCommit(Consumer<State> write) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(write);
+                }
+            });
+        } else {
+            apply(write);
+        }
+    }
+
+    private void apply(Consumer<State> write) {
+        lock.writeLock().lock();
+        try {
+            write.accept(state);
+            version++;
+            if (journal != null) {
+                journal.add(write);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class State {
+
+        private final LocalDateTime base;
+        private final int slots;
+        private final Map<Long, TableSlots> tables = new TreeMap<>();
+        private final Map<Long, Booking> bookings = new HashMap<>();
+
+        State(LocalDateTime base, int horizonDays) {
+            this.base = base;
+            this.slots = horizonDays * 24;
+        }
+
+        LocalDateTime end() {
+            return base.plusHours(slots);
+        }
+
+        /**
+         * The hour a time falls in, for the start of a range
+         */
+        int slotOf(LocalDateTime time) {
+            return slotIndex(Math.floorDiv(Duration.between(base, time).toSeconds(), 3600));
+        }
+
+        /**
+         * The first hour after a range ending at this time, rounded up the way bookings are
+         * marked, so a range ending off the hour still covers the hour it ends in
+         */
+        int slotEndingAt(LocalDateTime time) {
+            return slotIndex(Math.floorDiv(Duration.between(base, time).toSeconds() + 3599, 3600));
+        }
+
+        private int slotIndex(long hours) {
+            return hours < 0 || hours > slots ? -1 : (int) hours;
+        }
+
+        boolean covers(int from, int to) {
+            return from >= 0 && to >= from;
+        }
+
+        List<DiningTableDto> findBestFitTables(int minCapacity, String preferredFloor,
+                                               LocalDateTime start, LocalDateTime end) {
+            int from = slotOf(start);
+            int to = slotEndingAt(end);
+            return tables.values().stream()
+                    .filter(table -> table.status == DiningTableStatus.OPEN && table.capacity >= minCapacity)
+                    .filter(table -> table.isFree(from, to))
+                    .sorted(Comparator.comparingInt((TableSlots table) -> table.capacity)
+                            .thenComparing(table -> !Objects.equals(table.floor, preferredFloor))
+                            .thenComparing(table -> table.id))
+                    .map(TableSlots::toDto)
+                    .toList();
+        }
+
+        List<Map<Integer, Integer>> countFreeTables(List<LocalDateTime> starts, int hours, List<Integer> capacities) {
+            List<Map<Integer, Integer>> counts = new ArrayList<>(starts.size());
+            int[] fromSlots = new int[starts.size()];
+            for (int i = 0; i < starts.size(); i++) {
+                Map<Integer, Integer> byCapacity = new LinkedHashMap<>();
+                capacities.forEach(capacity -> byCapacity.put(capacity, 0));
+                counts.add(byCapacity);
+                fromSlots[i] = slotOf(starts.get(i));
+            }
+            for (TableSlots table : tables.values()) {
+                if (table.status != DiningTableStatus.OPEN || !capacities.contains(table.capacity)) {
+                    continue;
+                }
+                for (int i = 0; i < fromSlots.length; i++) {
+                    if (table.isFree(fromSlots[i], fromSlots[i] + hours)) {
+                        counts.get(i).merge(table.capacity, 1, Integer::sum);
+                    }
+                }
+            }
+            return counts;
+        }
+
+        void putTable(TableInfo info) {
+            TableSlots existing = tables.get(info.id);
+            if (existing != null) {
+                existing.update(info);
+            } else {
+                TableSlots table = new TableSlots(info);
+                tables.put(info.id, table);
+                // Bookings may have been replayed before the table itself
+                bookings.values().stream()
+                        .filter(booking -> booking.tableId.equals(info.id))
+                        .forEach(booking -> mark(table, booking));
+            }
+        }
+
+        void removeTable(Long tableId) {
+            tables.remove(tableId);
+        }
+
+        void addBooking(Booking booking) {
+            bookings.put(booking.reservationId, booking);
+            TableSlots table = tables.get(booking.tableId);
+            if (table != null) {
+                mark(table, booking);
+            }
+        }
+
+        void removeBooking(Long reservationId) {
+            Booking removed = bookings.remove(reservationId);
+            TableSlots table = removed != null ? tables.get(removed.tableId) : null;
+            if (table == null) {
+                return;
+            }
+            // Bookings of one table may share hours, so its bits are recomputed rather than cleared
+            table.booked.clear();
+            bookings.values().stream()
+                    .filter(booking -> booking.tableId.equals(removed.tableId))
+                    .forEach(booking -> mark(table, booking));
+        }
+
+        private void mark(TableSlots table, Booking booking) {
+            // Rounded outwards, so a booking off the hour still blocks every hour it touches
+            long fromMinutes = Duration.between(base, booking.start).toMinutes();
+            long toMinutes = Duration.between(base, booking.end).toMinutes();
+            int from = (int) Math.max(0, Math.floorDiv(fromMinutes, 60));
+            int to = (int) Math.min(slots, Math.floorDiv(toMinutes + 59, 60));
+            if (from < to) {
+                table.booked.set(from, to);
+            }
+        }
+    }
+
+    private static final class TableSlots {
+
+        private final Long id;
+        private String name;
+        private String floor;
+        private int capacity;
+        private DiningTableStatus status;
+        private final BitSet booked = new BitSet();
+
+        TableSlots(TableInfo info) {
+            this.id = info.id;
+            update(info);
+        }
+
+        void update(TableInfo info) {
+            this.name = info.name;
+            this.floor = info.floor;
+            this.capacity = info.capacity;
+            this.status = info.status;
+        }
+
+        boolean isFree(int from, int to) {
+            int next = booked.nextSetBit(from);
+            return next < 0 || next >= to;
+        }
+
+        DiningTableDto toDto() {
+            return DiningTableDto.builder()
+                    .id(id)
+                    .name(name)
+                    .floor(floor)
+                    .capacity(capacity)
+                    .status(status)
+                    .build();
+        }
+    }
+
+    private record TableInfo(Long id, String name, String floor, int capacity, DiningTableStatus status) {
+        static TableInfo of(DiningTable table) {
+            return new TableInfo(table.getId(), table.getName(), table.getFloor(), table.getCapacity(), table.getStatus());
+        }
+    }
+
+    private record Booking(Long reservationId, Long tableId, LocalDateTime start, LocalDateTime end) {
+    }
+}
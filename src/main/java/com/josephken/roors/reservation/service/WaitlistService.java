@@ -0,0 +1,292 @@
+package com.josephken.roors.reservation.service;
+
+import com.josephken.roors.auth.entity.User;
+import com.josephken.roors.auth.service.UserService;
+import com.josephken.roors.common.util.LogCategory;
+import com.josephken.roors.reservation.dto.AssignReservationDto;
+import com.josephken.roors.reservation.dto.DiningTableDto;
+import com.josephken.roors.reservation.dto.JoinWaitlistDto;
+import com.josephken.roors.reservation.dto.ReservationDto;
+import com.josephken.roors.reservation.dto.ReservationReleasedEvent;
+import com.josephken.roors.reservation.dto.WaitlistEntryDto;
+import com.josephken.roors.reservation.entity.WaitlistEntry;
+import com.josephken.roors.reservation.entity.WaitlistStatus;
+import com.josephken.roors.reservation.exception.TableNotAvailableException;
+import com.josephken.roors.reservation.exception.TimeNotValidException;
+import com.josephken.roors.reservation.mapper.WaitlistEntryMapper;
+import com.josephken.roors.reservation.repository.WaitlistEntryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Waitlist for full slots, so customers are booked when a table frees up instead of polling
+ * availability.
+ * <p>
+ * Entries are stored in {@code waitlist_entry} and indexed in memory by start time and capacity
+ * class, oldest first. When a confirmed reservation is cancelled or deleted, the entries whose
+ * slot overlaps the released time and whose party fits the released table are tried in the order
+ * they joined. The first one that can be seated is booked through the best-fit assignment and
+ * notified by its reservation confirmation email. Entries that still find no table, or hit a
+ * transient database error, keep waiting; entries whose slot can no longer be booked, or whose
+ * promotion fails for any other reason, expire.
+ * <p>
+ * The in-memory index is rebuilt from the table at startup. Promotion claims an entry with a
+ * conditional update, so an instance that missed a change cannot promote it twice.
+ */
+@Slf4j
+@Service
+public class WaitlistService {
+
+    private static final Comparator<Waiting> FIRST_COME = Comparator.comparing(Waiting::createdAt)
+            .thenComparing(Waiting::id);
+
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final ReservationTableService reservationTableService;
+    private final UserService userService;
+    private final TransactionTemplate transaction;
+
+    // start time -> capacity class -> entries, first come first
+    private final NavigableMap<LocalDateTime, Map<Integer, NavigableSet<Waiting>>> waiting = new TreeMap<>();
+    private final Map<Long, Waiting> waitingById = new HashMap<>();
+
+    public WaitlistService(
+            WaitlistEntryRepository waitlistEntryRepository,
+            ReservationTableService reservationTableService,
+            UserService userService,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.waitlistEntryRepository = waitlistEntryRepository;
+        this.reservationTableService = reservationTableService;
+        this.userService = userService;
+        // Promotion runs after the releasing transaction has committed, so it needs one of its own
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public WaitlistEntryDto joinWaitlist(Long userId, JoinWaitlistDto joinWaitlistDto) {
+        LocalDateTime startTime = joinWaitlistDto.getReservationDateTime();
+        log.info(LogCategory.reservation("User with id: {} joining the waitlist for {} guests at {}"),
+                userId, joinWaitlistDto.getNumberOfGuests(), startTime);
+
+        // Validates the slot and party size the same way a booking would
+        List<DiningTableDto> availableTables = reservationTableService.getAvailableDiningTables(
+                startTime.toLocalDate(), startTime.toLocalTime(), joinWaitlistDto.getNumberOfGuests());
+        if (!availableTables.isEmpty()) {
+            throw new IllegalArgumentException("A table is available at the requested time, please book it instead.");
+        }
+
+        if (waitlistEntryRepository.existsByUserIdAndStartTimeAndStatus(userId, startTime, WaitlistStatus.WAITING)) {
+            throw new IllegalArgumentException("You are already on the waitlist for this time.");
+        }
+
+        User user = userService.findById(userId);
+        WaitlistEntry entry = waitlistEntryRepository.save(WaitlistEntry.builder()
+                .user(user)
+                .status(WaitlistStatus.WAITING)
+                .phone(joinWaitlistDto.getPhone())
+                .numberOfGuests(joinWaitlistDto.getNumberOfGuests())
+                .startTime(startTime)
+                .floor(joinWaitlistDto.getFloor())
+                .createdAt(LocalDateTime.now())
+                .build());
+        add(Waiting.of(entry));
+
+        log.info(LogCategory.reservation("Waitlist entry with id: {} created for user with id: {}"), entry.getId(), userId);
+        return WaitlistEntryMapper.toDto(entry);
+    }
+
+    public List<WaitlistEntryDto> getWaitlistEntriesByUserId(Long userId) {
+        return waitlistEntryRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
+                .map(WaitlistEntryMapper::toDto)
+                .toList();
+    }
+
+    public WaitlistEntryDto cancelWaitlistEntry(Long userId, Long entryId) {
+        log.info(LogCategory.reservation("Cancelling waitlist entry with id: {}"), entryId);
+
+        WaitlistEntry entry = waitlistEntryRepository.findById(entryId)
+                .orElseThrow(() -> new IllegalArgumentException("Waitlist entry not found with id: " + entryId));
+
+        if (!entry.getUser().getId().equals(userId)) {
+            log.warn(LogCategory.reservation("User with id: {} is not authorized to cancel waitlist entry with id: {}"),
+                    userId, entryId);
+            throw new IllegalArgumentException("You are not authorized to cancel this waitlist entry.");
+        }
+
+        Integer updated = transaction.execute(status ->
+                waitlistEntryRepository.leaveWaitlist(entryId, WaitlistStatus.CANCELLED, null));
+        if (updated == null || updated == 0) {
+            throw new IllegalArgumentException("Only waiting entries can be cancelled.");
+        }
+        remove(entryId);
+
+        entry.setStatus(WaitlistStatus.CANCELLED);
+        log.info(LogCategory.reservation("Waitlist entry with id: {} cancelled successfully"), entryId);
+        return WaitlistEntryMapper.toDto(entry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationReleased(ReservationReleasedEvent event) {
+        for (Waiting candidate : candidatesFor(event)) {
+            if (!claim(candidate)) {
+                continue;
+            }
+            switch (promote(candidate)) {
+                case PROMOTED -> {
+                    return;
+                }
+                case NO_TABLE -> add(candidate);
+                case GONE -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Entries for slots starting within the next 30 minutes can no longer be booked
+     */
+    @Scheduled(cron = "${app.reservations.waitlist.expire-cron:0 */10 * * * *}")
+    public void expireStaleEntries() {
+        LocalDateTime cutoff = LocalDateTime.now().plusMinutes(30);
+        Integer expired = transaction.execute(status -> waitlistEntryRepository.expireStartingBefore(cutoff));
+        synchronized (this) {
+            NavigableMap<LocalDateTime, Map<Integer, NavigableSet<Waiting>>> stale = waiting.headMap(cutoff, true);
+            stale.values().forEach(byCapacity -> byCapacity.values()
+                    .forEach(entries -> entries.forEach(entry -> waitingById.remove(entry.id()))));
+            stale.clear();
+        }
+        if (expired != null && expired > 0) {
+            log.info(LogCategory.reservation("Expired {} waitlist entries"), expired);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadWaitingEntries() {
+        List<WaitlistEntry> entries = waitlistEntryRepository.findByStatusAndStartTimeAfter(
+                WaitlistStatus.WAITING, LocalDateTime.now());
+        entries.forEach(entry -> add(Waiting.of(entry)));
+        log.info(LogCategory.reservation("Loaded {} waiting waitlist entries"), entries.size());
+    }
+
+    /**
+     * Entries whose two-hour slot overlaps the released time and whose party fits the released
+     * table, first come first
+     */
+    private synchronized List<Waiting> candidatesFor(ReservationReleasedEvent event) {
+        LocalDateTime earliestStart = event.getStartTime().minus(
+                Duration.between(event.getStartTime(), event.getEndTime()));
+        List<Waiting> candidates = new ArrayList<>();
+        waiting.subMap(earliestStart, false, event.getEndTime(), false).values()
+                .forEach(byCapacity -> byCapacity.forEach((capacity, entries) -> {
+                    if (capacity <= event.getTableCapacity()) {
+                        candidates.addAll(entries);
+                    }
+                }));
+        candidates.sort(FIRST_COME);
+        return candidates;
+    }
+
+    private Outcome promote(Waiting candidate) {
+        try {
+            return transaction.execute(status -> {
+                ReservationDto reservation = reservationTableService.createAssignedReservation(candidate.userId(),
+                        new AssignReservationDto(candidate.phone(), candidate.numberOfGuests(),
+                                candidate.startTime(), candidate.floor()));
+                if (waitlistEntryRepository.leaveWaitlist(candidate.id(), WaitlistStatus.PROMOTED, reservation.getId()) == 0) {
+                    // Cancelled or promoted elsewhere meanwhile; undo the booking
+                    status.setRollbackOnly();
+                    return Outcome.GONE;
+                }
+                log.info(LogCategory.reservation("Waitlist entry with id: {} promoted to reservation with id: {}"),
+                        candidate.id(), reservation.getId());
+                return Outcome.PROMOTED;
+            });
+        } catch (TableNotAvailableException e) {
+            return Outcome.NO_TABLE;
+        } catch (TimeNotValidException e) {
+            expire(candidate);
+            return Outcome.GONE;
+        } catch (TransientDataAccessException e) {
+            // Lock timeouts and the like may succeed next time, so keep the entry waiting
+            log.warn(LogCategory.reservation("Promotion of waitlist entry {} failed, will retry on the next release"),
+                    candidate.id(), e);
+            return Outcome.NO_TABLE;
+        } catch (RuntimeException e) {
+            // Would fail the same way on every release, so take the entry off the waitlist
+            log.error(LogCategory.error("Failed to promote waitlist entry {}"), candidate.id(), e);
+            expire(candidate);
+            return Outcome.GONE;
+        }
+    }
+
+    private void expire(Waiting candidate) {
+        transaction.executeWithoutResult(status ->
+                waitlistEntryRepository.leaveWaitlist(candidate.id(), WaitlistStatus.EXPIRED, null));
+    }
+
+    private synchronized void add(Waiting entry) {
+        waitingById.put(entry.id(), entry);
+        waiting.computeIfAbsent(entry.startTime(), start -> new HashMap<>())
+                .computeIfAbsent(entry.capacity(), capacity -> new TreeSet<>(FIRST_COME))
+                .add(entry);
+    }
+
+    /**
+     * Take an entry off the index so no concurrent release tries it too
+     */
+    private synchronized boolean claim(Waiting entry) {
+        return remove(entry.id()) != null;
+    }
+
+    private synchronized Waiting remove(Long entryId) {
+        Waiting entry = waitingById.remove(entryId);
+        if (entry == null) {
+            return null;
+        }
+        Map<Integer, NavigableSet<Waiting>> byCapacity = waiting.get(entry.startTime());
+        NavigableSet<Waiting> entries = byCapacity.get(entry.capacity());
+        entries.remove(entry);
+        if (entries.isEmpty()) {
+            byCapacity.remove(entry.capacity());
+            if (byCapacity.isEmpty()) {
+                waiting.remove(entry.startTime());
+            }
+        }
+        return entry;
+    }
+
+    private enum Outcome {
+        PROMOTED,
+        NO_TABLE,
+        GONE
+    }
+
+    private record Waiting(Long id, Long userId, String phone, int numberOfGuests, int capacity,
+                           LocalDateTime startTime, String floor, LocalDateTime createdAt) {
+        static Waiting of(WaitlistEntry entry) {
+            return new Waiting(entry.getId(), entry.getUser().getId(), entry.getPhone(), entry.getNumberOfGuests(),
+                    ReservationTableServiceImpl.getRequiredCapacity(entry.getNumberOfGuests()),
+                    entry.getStartTime(), entry.getFloor(), entry.getCreatedAt());
+        }
+    }
+}
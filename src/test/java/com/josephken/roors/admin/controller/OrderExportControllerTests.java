@@ -0,0 +1,111 @@
+package com.josephken.roors.admin.controller;
+
+import com.josephken.roors.auth.repository.UserRepository;
+import com.josephken.roors.common.util.TestUsers;
+import com.josephken.roors.menu.entity.MenuItem;
+import com.josephken.roors.menu.repository.MenuItemRepository;
+import com.josephken.roors.order.dto.CreateOrderRequest;
+import com.josephken.roors.order.dto.OrderItemRequest;
+import com.josephken.roors.order.dto.OrderResponse;
+import com.josephken.roors.order.entity.OrderType;
+import com.josephken.roors.order.service.OrderService;
+import com.josephken.roors.payment.entity.PaymentMethod;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Not transactional: the export streams committed rows on an MVC async thread.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderExportControllerTests {
+    @MockitoBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    private OrderResponse order;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        MenuItem dish = new MenuItem();
+        dish.setName("Export dish " + suffix);
+        dish.setPrice(BigDecimal.valueOf(42000));
+        dish = menuItemRepository.save(dish);
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setOrderType(OrderType.DELIVERY);
+        request.setPaymentMethod(PaymentMethod.CASH);
+        request.setItems(List.of(new OrderItemRequest(dish.getId(), 1, null)));
+        order = orderService.createOrder(TestUsers.save(userRepository, "export-" + suffix).getId(), request);
+    }
+
+    @Test
+    @WithMockUser(roles = "MANAGER")
+    void managerDownloadsCsvAndGzipExports() throws Exception {
+        String csv = new String(export(false), StandardCharsets.UTF_8);
+        assertThat(csv).startsWith("order_id,order_number,created_at,").contains(order.getOrderNumber());
+
+        byte[] gzipped = export(true);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).contains(order.getOrderNumber());
+        }
+    }
+
+    @Test
+    @WithMockUser(roles = "STAFF")
+    void staffCannotExport() throws Exception {
+        String today = LocalDate.now().toString();
+        mockMvc.perform(get("/api/admin/orders/export").param("from", today).param("to", today))
+                .andExpect(status().isForbidden());
+    }
+
+    private byte[] export(boolean gzip) throws Exception {
+        String today = LocalDate.now().toString();
+        MvcResult started = mockMvc.perform(get("/api/admin/orders/export")
+                        .param("from", today)
+                        .param("to", today)
+                        .param("gzip", String.valueOf(gzip)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition",
+                        "attachment; filename=\"orders-" + today + "_" + today + ".csv" + (gzip ? ".gz" : "") + "\""))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+}
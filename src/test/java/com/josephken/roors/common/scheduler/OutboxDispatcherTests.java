@@ -0,0 +1,153 @@
+package com.josephken.roors.common.scheduler;
+
+import com.josephken.roors.auth.entity.User;
+import com.josephken.roors.auth.repository.UserRepository;
+import com.josephken.roors.auth.service.EmailService;
+import com.josephken.roors.common.entity.OutboxMessage;
+import com.josephken.roors.common.entity.OutboxMessageStatus;
+import com.josephken.roors.common.entity.OutboxMessageType;
+import com.josephken.roors.common.repository.OutboxMessageRepository;
+import com.josephken.roors.common.service.OutboxMessageRenderer;
+import com.josephken.roors.common.util.TestUsers;
+import com.josephken.roors.menu.entity.MenuItem;
+import com.josephken.roors.menu.repository.MenuItemRepository;
+import com.josephken.roors.order.dto.CreateOrderRequest;
+import com.josephken.roors.order.dto.OrderItemRequest;
+import com.josephken.roors.order.entity.OrderType;
+import com.josephken.roors.order.service.OrderService;
+import com.josephken.roors.payment.entity.PaymentMethod;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+@Transactional
+class OutboxDispatcherTests {
+    @MockitoBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private List<OutboxMessageRenderer> renderers;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    private OutboxDispatcher dispatcher;
+    private Long orderId;
+
+    @BeforeEach
+    void setUp() {
+        // Scheduling is disabled in tests; drive a dispatcher with a two-attempt limit by hand
+        dispatcher = new OutboxDispatcher(outboxMessageRepository, emailService, renderers, transactionManager,
+                50, 2, 1000, 300_000, 7);
+
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        User user = TestUsers.save(userRepository, "outbox-" + suffix);
+
+        MenuItem menuItem = new MenuItem();
+        menuItem.setName("Outbox Dish " + suffix);
+        menuItem.setPrice(BigDecimal.valueOf(50000));
+        menuItem = menuItemRepository.save(menuItem);
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setOrderType(OrderType.DELIVERY);
+        request.setPaymentMethod(PaymentMethod.CASH);
+        request.setItems(List.of(new OrderItemRequest(menuItem.getId(), 1, null)));
+        orderId = orderService.createOrder(user.getId(), request).getId();
+    }
+
+    @Test
+    void createOrderQueuesConfirmationInsteadOfSendingIt() {
+        assertThat(confirmation().getStatus()).isEqualTo(OutboxMessageStatus.PENDING);
+        verify(javaMailSender, times(0)).send(any(SimpleMailMessage[].class));
+    }
+
+    @Test
+    void dueMessagesAreSentInOneBatch() {
+        outboxMessageRepository.save(new OutboxMessage(OutboxMessageType.ORDER_COMPLETED_RATING_REQUEST, orderId));
+
+        assertThat(dispatcher.dispatchBatch()).isEqualTo(2);
+
+        verify(javaMailSender, times(1)).send(any(SimpleMailMessage[].class));
+        assertThat(outboxMessageRepository.findAll())
+                .allSatisfy(message -> {
+                    assertThat(message.getStatus()).isEqualTo(OutboxMessageStatus.SENT);
+                    assertThat(message.getAttempts()).isEqualTo(1);
+                });
+        assertThat(dispatcher.dispatchBatch()).isZero();
+    }
+
+    @Test
+    void failedMessagesBackOffThenGiveUp() {
+        doThrow(new MailSendException("SMTP unavailable")).when(javaMailSender).send(any(SimpleMailMessage[].class));
+
+        dispatcher.dispatchBatch();
+        OutboxMessage message = confirmation();
+        assertThat(message.getStatus()).isEqualTo(OutboxMessageStatus.PENDING);
+        assertThat(message.getLastError()).contains("SMTP unavailable");
+        assertThat(message.getNextAttemptAt()).isAfter(LocalDateTime.now());
+
+        // Not due yet, so nothing is claimed until the back-off has passed
+        assertThat(dispatcher.dispatchBatch()).isZero();
+        message.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        outboxMessageRepository.save(message);
+
+        dispatcher.dispatchBatch();
+        assertThat(confirmation().getStatus()).isEqualTo(OutboxMessageStatus.FAILED);
+        assertThat(confirmation().getAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void messagesForMissingRecordsAreNotRetried() {
+        outboxMessageRepository.save(new OutboxMessage(OutboxMessageType.RESERVATION_CANCELLED, -1L));
+
+        dispatcher.dispatchBatch();
+
+        assertThat(outboxMessageRepository.findAll())
+                .filteredOn(message -> message.getAggregateId() == -1L)
+                .singleElement()
+                .satisfies(message -> assertThat(message.getStatus()).isEqualTo(OutboxMessageStatus.FAILED));
+        assertThat(confirmation().getStatus()).isEqualTo(OutboxMessageStatus.SENT);
+    }
+
+    private OutboxMessage confirmation() {
+        return outboxMessageRepository.findAll().stream()
+                .filter(message -> message.getType() == OutboxMessageType.ORDER_CONFIRMATION)
+                .filter(message -> message.getAggregateId().equals(orderId))
+                .findFirst()
+                .orElseThrow();
+    }
+}
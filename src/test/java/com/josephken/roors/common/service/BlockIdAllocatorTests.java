@@ -0,0 +1,73 @@
+package com.josephken.roors.common.service;
+
+import com.josephken.roors.common.repository.IdSequenceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class BlockIdAllocatorTests {
+    @MockitoBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private IdSequenceRepository idSequenceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void codesKeepTheOrderNumberShape() {
+        IdAllocator allocator = new BlockIdAllocator(idSequenceRepository, transactionManager, 10);
+
+        String code = allocator.nextCode("TSTSHAPE");
+
+        assertThat(code).matches(Pattern.compile("TSTSHAPE\\d{8}"));
+    }
+
+    @Test
+    void instancesSharingTheDatabaseNeverHandOutTheSameValue() throws Exception {
+        // Two allocators stand in for two app instances reserving from the same counter
+        List<IdAllocator> instances = List.of(
+                new BlockIdAllocator(idSequenceRepository, transactionManager, 7),
+                new BlockIdAllocator(idSequenceRepository, transactionManager, 7)
+        );
+        Set<Long> values = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 250;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new java.util.ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                IdAllocator allocator = instances.get(t % instances.size());
+                futures.add(executor.submit(() -> {
+                    long previous = 0;
+                    for (int i = 0; i < perThread; i++) {
+                        long value = allocator.next("TSTCONCURRENT");
+                        assertThat(value).isGreaterThan(previous);
+                        previous = value;
+                        values.add(value);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(values).hasSize(threads * perThread);
+    }
+}
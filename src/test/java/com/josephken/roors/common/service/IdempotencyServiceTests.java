@@ -0,0 +1,137 @@
+package com.josephken.roors.common.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.josephken.roors.common.exception.IdempotencyKeyInUseException;
+import com.josephken.roors.common.exception.IdempotencyKeyReusedException;
+import com.josephken.roors.common.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class IdempotencyServiceTests {
+    @MockitoBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentDuplicatesOnTwoInstancesRunTheActionOnce() throws Exception {
+        // Two services stand in for two app instances sharing the database
+        List<IdempotencyService> instances = List.of(newInstance(), newInstance());
+        String key = UUID.randomUUID().toString();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> responses = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                IdempotencyService service = instances.get(i % instances.size());
+                responses.add(executor.submit(() -> {
+                    start.await();
+                    return service.execute("test.create:1", key, "pho x2", String.class, () -> {
+                        sleep(200);
+                        return "order-" + runs.incrementAndGet();
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<String> response : responses) {
+                assertThat(response.get(30, TimeUnit.SECONDS)).isEqualTo("order-1");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void completedKeyIsReplayedAndRejectedForADifferentRequest() {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger runs = new AtomicInteger();
+        newInstance().execute("test.create:2", key, "pho x2", String.class, () -> "order-" + runs.incrementAndGet());
+
+        // A fresh instance has nothing cached and replays the durable record
+        IdempotencyService other = newInstance();
+        assertThat(other.execute("test.create:2", key, "pho x2", String.class, () -> "order-" + runs.incrementAndGet()))
+                .isEqualTo("order-1");
+        assertThatThrownBy(() -> other.execute("test.create:2", key, "tea x1", String.class, () -> "order-x"))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void failedAttemptReleasesTheKey() {
+        IdempotencyService service = newInstance();
+        String key = UUID.randomUUID().toString();
+
+        assertThatThrownBy(() -> service.execute("test.create:3", key, "pho x2", String.class, () -> {
+            throw new IllegalStateException("payment provider down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(service.execute("test.create:3", key, "pho x2", String.class, () -> "order-2")).isEqualTo("order-2");
+        assertThat(idempotencyRecordRepository.findByScopeAndIdempotencyKey("test.create:3", key)).isPresent();
+    }
+
+    @Test
+    void runningClaimIsRenewedSoItIsNotTakenOver() {
+        IdempotencyService slow = newInstance(500, 10_000);
+        IdempotencyService other = newInstance(500, 200);
+        String key = UUID.randomUUID().toString();
+        AtomicInteger runs = new AtomicInteger();
+
+        String response = slow.execute("test.create:4", key, "pho x2", String.class, () -> {
+            sleep(600);
+            slow.renewLeases();
+            // Past the original lease, but renewed: the duplicate waits instead of running again
+            assertThatThrownBy(() -> other.execute("test.create:4", key, "pho x2", String.class,
+                    () -> "order-" + runs.incrementAndGet()))
+                    .isInstanceOf(IdempotencyKeyInUseException.class);
+            return "order-" + runs.incrementAndGet();
+        });
+
+        assertThat(response).isEqualTo("order-1");
+        assertThat(runs).hasValue(1);
+    }
+
+    private IdempotencyService newInstance() {
+        return newInstance(30_000, 10_000);
+    }
+
+    private IdempotencyService newInstance(long leaseMillis, long waitMillis) {
+        return new IdempotencyService(idempotencyRecordRepository, objectMapper, transactionManager,
+                60_000, leaseMillis, waitMillis, 100);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.josephken.roors.common.util;
+
+import com.josephken.roors.auth.entity.User;
+import com.josephken.roors.auth.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Customer accounts for tests. Tests share one database, so callers pass a name that is unique
+ * to the test run, usually ending in a random suffix.
+ */
+public final class TestUsers {
+
+    private TestUsers() {
+    }
+
+    public static User save(UserRepository userRepository, String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@roors.test");
+        user.setPassword("secret");
+        return userRepository.save(user);
+    }
+
+    /**
+     * {@code count} users named {@code prefix-0}, {@code prefix-1}, ...
+     */
+    public static List<User> saveAll(UserRepository userRepository, String prefix, int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(save(userRepository, prefix + "-" + i));
+        }
+        return users;
+    }
+}
@@ -0,0 +1,100 @@
+package com.josephken.roors.common.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the order pricing arithmetic on BigDecimal (as before) and on Vnd, for a
+ * 10-line order. Both variants start from numeric(10,2) prices as the database returns them and
+ * produce the BigDecimal line subtotals and totals the entities need, so only the arithmetic in
+ * between differs. Compare gc.alloc.rate.norm (bytes per priced order) in the output.
+ * Skipped unless {@code -Dbenchmark=true}:
+ * <pre>
+ * mvn test -Dtest=VndBenchmarkTests -Dbenchmark=true
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VndBenchmarkTests {
+
+    private static final int LINES = 10;
+    private static final BigDecimal DELIVERY_FEE = BigDecimal.valueOf(8000);
+    private static final BigDecimal TAX_RATE = BigDecimal.ZERO;
+    private static final Vnd VND_DELIVERY_FEE = Vnd.of(8000);
+
+    private BigDecimal[] prices;
+    private int[] quantities;
+
+    @Setup
+    public void setUp() {
+        prices = new BigDecimal[LINES];
+        quantities = new int[LINES];
+        for (int i = 0; i < LINES; i++) {
+            prices[i] = new BigDecimal(15000 + 5000 * i).setScale(2);
+            quantities[i] = 1 + i % 3;
+        }
+    }
+
+    @Benchmark
+    public void bigDecimalPricing(Blackhole blackhole) {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < LINES; i++) {
+            BigDecimal itemSubtotal = prices[i].multiply(BigDecimal.valueOf(quantities[i]));
+            blackhole.consume(itemSubtotal);
+            subtotal = subtotal.add(itemSubtotal);
+        }
+        BigDecimal taxAmount = subtotal.multiply(TAX_RATE);
+        BigDecimal totalAmount = subtotal.add(taxAmount).add(DELIVERY_FEE).subtract(BigDecimal.ZERO);
+        blackhole.consume(subtotal);
+        blackhole.consume(taxAmount);
+        blackhole.consume(totalAmount);
+    }
+
+    @Benchmark
+    public void vndPricing(Blackhole blackhole) {
+        Vnd subtotal = Vnd.ZERO;
+        for (int i = 0; i < LINES; i++) {
+            Vnd itemSubtotal = Vnd.of(prices[i]).times(quantities[i]);
+            blackhole.consume(itemSubtotal.toBigDecimal());
+            subtotal = subtotal.plus(itemSubtotal);
+        }
+        Vnd taxAmount = subtotal.basisPoints(0);
+        Vnd totalAmount = subtotal.plus(taxAmount).plus(VND_DELIVERY_FEE).minus(Vnd.ZERO);
+        blackhole.consume(subtotal.toBigDecimal());
+        blackhole.consume(taxAmount.toBigDecimal());
+        blackhole.consume(totalAmount.toBigDecimal());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void compareAllocationRates() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(VndBenchmarkTests.class.getName() + "\\.\\w+Pricing")
+                .addProfiler(GCProfiler.class)
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .build();
+        new Runner(options).run();
+    }
+}
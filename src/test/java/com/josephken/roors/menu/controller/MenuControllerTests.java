@@ -0,0 +1,48 @@
+package com.josephken.roors.menu.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MenuControllerTests {
+    @MockitoBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(roles = "MANAGER")
+    void managerCanRecountOrderCounts() throws Exception {
+        mockMvc.perform(post("/api/menu/admin/order-counts/recount"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value(startsWith("Order counts recounted")));
+    }
+
+    @Test
+    @WithMockUser(roles = "MANAGER")
+    void managerCanRebuildRatingAggregates() throws Exception {
+        mockMvc.perform(post("/api/menu/admin/ratings/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value(startsWith("Rating aggregates rebuilt")));
+    }
+
+    @Test
+    @WithMockUser(roles = "STAFF")
+    void staffCannotRecountOrderCounts() throws Exception {
+        mockMvc.perform(post("/api/menu/admin/order-counts/recount"))
+                .andExpect(status().isForbidden());
+    }
+}
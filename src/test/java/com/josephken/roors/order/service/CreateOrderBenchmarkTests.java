@@ -0,0 +1,131 @@
+package com.josephken.roors.order.service;
+
+import com.josephken.roors.auth.repository.UserRepository;
+import com.josephken.roors.common.util.TestUsers;
+import com.josephken.roors.menu.entity.MenuItem;
+import com.josephken.roors.menu.repository.MenuItemRepository;
+import com.josephken.roors.order.dto.CreateOrderRequest;
+import com.josephken.roors.order.dto.OrderItemRequest;
+import com.josephken.roors.order.entity.OrderType;
+import com.josephken.roors.payment.entity.PaymentMethod;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * createOrder throughput with and without JDBC insert batching, for 10-line orders.
+ * <p>
+ * The unbatched run forces a JDBC batch size of 1 on the session, which issues one INSERT per
+ * row the way the IDENTITY-keyed entities used to. Skipped unless {@code -Dbenchmark=true}:
+ * <pre>
+ * mvn test -Dtest=CreateOrderBenchmarkTests -Dbenchmark=true
+ * </pre>
+ * Runs against the H2 (PostgreSQL mode) test database by default; point it at a local PostgreSQL
+ * with {@code -Dspring.datasource.url=jdbc:postgresql://localhost:5432/roors_bench
+ * -Dspring.datasource.driver-class-name=org.postgresql.Driver
+ * -Dspring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect} plus credentials.
+ * Results are printed to stdout.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CreateOrderBenchmarkTests {
+
+    private static final int LINES_PER_ORDER = 10;
+    private static final int WARMUP_ORDERS = 200;
+    private static final int MEASURED_ORDERS = Integer.getInteger("benchmark.orders", 1000);
+
+    @MockitoBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void createOrderThroughput() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        Long userId = TestUsers.save(userRepository, "bench-" + suffix).getId();
+
+        List<OrderItemRequest> lines = new ArrayList<>();
+        for (int i = 0; i < LINES_PER_ORDER; i++) {
+            MenuItem menuItem = new MenuItem();
+            menuItem.setName("Bench dish " + i + " " + suffix);
+            menuItem.setPrice(BigDecimal.valueOf(10000 + i * 1000L));
+            lines.add(new OrderItemRequest(menuItemRepository.save(menuItem).getId(), 1, null));
+        }
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setOrderType(OrderType.DELIVERY);
+        request.setPaymentMethod(PaymentMethod.CASH);
+        request.setItems(lines);
+
+        run(userId, request, 1, WARMUP_ORDERS);
+        run(userId, request, null, WARMUP_ORDERS);
+
+        Result unbatched = run(userId, request, 1, MEASURED_ORDERS);
+        Result batched = run(userId, request, null, MEASURED_ORDERS);
+
+        System.out.printf("createOrder, %d lines per order, %d orders%n", LINES_PER_ORDER, MEASURED_ORDERS);
+        System.out.printf("  unbatched: %8.1f orders/s, %5.1f statements/order%n",
+                unbatched.ordersPerSecond(), unbatched.statementsPerOrder());
+        System.out.printf("  batched:   %8.1f orders/s, %5.1f statements/order%n",
+                batched.ordersPerSecond(), batched.statementsPerOrder());
+
+        assertThat(batched.statementsPerOrder()).isLessThan(unbatched.statementsPerOrder());
+    }
+
+    /**
+     * Create orders one transaction each, as the API does
+     *
+     * @param jdbcBatchSize session batch size, or null for the configured one
+     */
+    private Result run(Long userId, CreateOrderRequest request, Integer jdbcBatchSize, int orders) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        long started = System.nanoTime();
+        for (int i = 0; i < orders; i++) {
+            transaction.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+                orderService.createOrder(userId, request);
+            });
+        }
+        long elapsed = System.nanoTime() - started;
+
+        return new Result(orders * 1e9 / elapsed, (double) statistics.getPrepareStatementCount() / orders);
+    }
+
+    private record Result(double ordersPerSecond, double statementsPerOrder) {
+    }
+}
@@ -0,0 +1,96 @@
+package com.josephken.roors.order.service;
+
+import com.josephken.roors.order.dto.KitchenQueueEntry;
+import com.josephken.roors.order.dto.OrderEvent;
+import com.josephken.roors.order.dto.OrderEventType;
+import com.josephken.roors.order.entity.OrderStatus;
+import com.josephken.roors.order.entity.OrderType;
+import com.josephken.roors.order.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class KitchenSchedulerTests {
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+    private OrderRepository orderRepository;
+    private KitchenScheduler kitchenScheduler;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        kitchenScheduler = new KitchenScheduler(orderRepository, 2, 15);
+    }
+
+    @Test
+    void quoteIncludesQueuedAndCookingWorkSharedAcrossStations() {
+        assertThat(kitchenScheduler.quote(null, 10, now)).isEqualTo(10);
+
+        for (long orderId = 1; orderId <= 3; orderId++) {
+            publish(orderId, OrderStatus.PENDING, 10, now);
+        }
+        // 30 queued minutes over 2 stations wait ahead of a new 10-minute order
+        assertThat(kitchenScheduler.quote(null, 10, now)).isEqualTo(25);
+        // An order re-quoting itself does not wait behind itself
+        assertThat(kitchenScheduler.quote(3L, 10, now)).isEqualTo(20);
+        // Orders due after the new one's deadline are cooked after it
+        assertThat(kitchenScheduler.quote(null, 5, now.minusMinutes(6))).isEqualTo(5);
+
+        // Order 1 went on the line 4 minutes ago: 6 minutes left instead of 10 queued
+        publish(1L, OrderStatus.PREPARING, 10, now.minusMinutes(4));
+        assertThat(kitchenScheduler.quote(null, 10, now)).isEqualTo(23);
+        // Once past its expected end it no longer counts
+        assertThat(kitchenScheduler.quote(null, 10, now.plusMinutes(6))).isEqualTo(20);
+
+        publish(1L, OrderStatus.READY, 10, now);
+        publish(2L, OrderStatus.CANCELLED, 10, now);
+        assertThat(kitchenScheduler.quote(null, 10, now)).isEqualTo(15);
+    }
+
+    @Test
+    void workQueueListsCookingOrdersThenQueueByDeadline() {
+        publish(1L, OrderStatus.PENDING, 40, now.minusMinutes(5));
+        publish(2L, OrderStatus.PENDING, 10, now);
+        publish(3L, OrderStatus.PENDING, 20, now);
+        publish(4L, OrderStatus.PREPARING, 12, now.minusMinutes(2));
+
+        List<KitchenQueueEntry> queue = kitchenScheduler.getWorkQueue(now);
+
+        assertThat(queue).extracting(KitchenQueueEntry::getOrderId).containsExactly(4L, 2L, 3L, 1L);
+        assertThat(queue).extracting(KitchenQueueEntry::getExpectedReadyAt).containsExactly(
+                now.plusMinutes(10), now.plusMinutes(10), now.plusMinutes(30), now.plusMinutes(50));
+        assertThat(queue.get(3).getDeadline()).isEqualTo(now.plusMinutes(35));
+    }
+
+    @Test
+    void rebuildRestoresActiveOrdersFromTheDatabase() {
+        publish(9L, OrderStatus.PENDING, 60, now);
+        when(orderRepository.findKitchenLoadByStatusIn(any())).thenReturn(List.of(
+                new Object[]{1L, OrderStatus.PENDING, now, null, 10, 25},
+                new Object[]{2L, OrderStatus.PREPARING, now.minusMinutes(10), now.minusMinutes(5), 15, 15},
+                // Placed before preparation_minutes existed: its quoted estimate stands in
+                new Object[]{3L, OrderStatus.PENDING, now, null, null, 20}
+        ));
+
+        kitchenScheduler.rebuild();
+
+        assertThat(kitchenScheduler.getWorkQueue(now)).extracting(KitchenQueueEntry::getOrderId)
+                .containsExactly(2L, 1L, 3L);
+        // 10 cooking minutes left plus 30 queued, over 2 stations
+        assertThat(kitchenScheduler.quote(null, 30, now)).isEqualTo(50);
+    }
+
+    private void publish(Long orderId, OrderStatus status, int preparationMinutes, LocalDateTime at) {
+        OrderEventType type = status == OrderStatus.PENDING ? OrderEventType.CREATED : OrderEventType.STATUS_CHANGED;
+        kitchenScheduler.onOrderEvent(new OrderEvent(type, orderId, "ORD" + orderId, status, null,
+                OrderType.DELIVERY, at, preparationMinutes), at);
+    }
+}
@@ -0,0 +1,125 @@
+package com.josephken.roors.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.josephken.roors.common.service.IdempotencyService;
+import com.josephken.roors.order.controller.OrderController;
+import com.josephken.roors.order.dto.OrderEvent;
+import com.josephken.roors.order.dto.OrderEventType;
+import com.josephken.roors.order.entity.OrderStatus;
+import com.josephken.roors.order.entity.OrderType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+class OrderEventStreamTests {
+
+    private OrderEventStream orderEventStream;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        orderEventStream = new OrderEventStream(3, 60_000);
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new OrderController(mock(OrderService.class), orderEventStream,
+                        mock(OrderStatusHistoryService.class), mock(IdempotencyService.class)))
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(
+                        new ObjectMapper().registerModule(new JavaTimeModule())))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderEventStream.shutdown();
+    }
+
+    @Test
+    void reconnectingClientReceivesOnlyMissedEvents() throws Exception {
+        for (long orderId = 1; orderId <= 5; orderId++) {
+            orderEventStream.onOrderEvent(event(orderId, OrderStatus.PENDING, null));
+        }
+
+        MockHttpServletResponse response = open(get("/api/orders/stream").header("Last-Event-ID", orderEventStream.eventId(3)));
+        String body = awaitBody(response, content -> content.contains(id(5)));
+
+        assertThat(body).doesNotContain(id(3)).contains(id(4), id(5));
+
+        orderEventStream.onOrderEvent(event(6L, OrderStatus.PREPARING, OrderStatus.PENDING));
+        assertThat(awaitBody(response, content -> content.contains(id(6)))).contains("\"orderId\":6");
+    }
+
+    @Test
+    void clientBehindTheReplayBufferIsToldToReset() throws Exception {
+        for (long orderId = 1; orderId <= 5; orderId++) {
+            orderEventStream.onOrderEvent(event(orderId, OrderStatus.PENDING, null));
+        }
+
+        MockHttpServletResponse response = open(get("/api/orders/stream").param("lastEventId", orderEventStream.eventId(1)));
+        String body = awaitBody(response, content -> content.contains("event:reset"));
+
+        assertThat(body).doesNotContain("event:order").contains(id(5));
+    }
+
+    @Test
+    void idFromAnotherInstanceOrBootIsToldToReset() throws Exception {
+        for (long orderId = 1; orderId <= 5; orderId++) {
+            orderEventStream.onOrderEvent(event(orderId, OrderStatus.PENDING, null));
+        }
+
+        // Same sequence number as a buffered event, but issued by a different epoch
+        for (String lastEventId : List.of("3", "0000beef-3")) {
+            MockHttpServletResponse response = open(get("/api/orders/stream").header("Last-Event-ID", lastEventId));
+            String body = awaitBody(response, content -> content.contains("event:reset"));
+            assertThat(body).doesNotContain("event:order");
+        }
+    }
+
+    @Test
+    void statusFilterKeepsOrdersLeavingTheWatchedStatus() throws Exception {
+        MockHttpServletResponse response = open(get("/api/orders/stream").param("status", "PENDING"));
+
+        orderEventStream.onOrderEvent(event(1L, OrderStatus.READY, OrderStatus.PREPARING));
+        orderEventStream.onOrderEvent(event(2L, OrderStatus.PREPARING, OrderStatus.PENDING));
+        orderEventStream.onOrderEvent(event(3L, OrderStatus.PENDING, null));
+        String body = awaitBody(response, content -> content.contains(id(3)));
+
+        assertThat(body).doesNotContain(id(1)).contains(id(2), id(3));
+    }
+
+    private String id(long sequence) {
+        return "id:" + orderEventStream.eventId(sequence);
+    }
+
+    private MockHttpServletResponse open(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+
+    private String awaitBody(MockHttpServletResponse response, Predicate<String> condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String body = response.getContentAsString();
+        while (!condition.test(body) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            body = response.getContentAsString();
+        }
+        assertThat(condition).accepts(body);
+        return body;
+    }
+
+    private OrderEvent event(Long orderId, OrderStatus status, OrderStatus previousStatus) {
+        return new OrderEvent(OrderEventType.STATUS_CHANGED, orderId, "ORD" + orderId,
+                status, previousStatus, OrderType.DELIVERY, LocalDateTime.now(), 15);
+    }
+}
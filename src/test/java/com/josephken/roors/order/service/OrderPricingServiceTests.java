@@ -0,0 +1,106 @@
+package com.josephken.roors.order.service;
+
+import com.josephken.roors.common.util.Vnd;
+import com.josephken.roors.menu.entity.MenuItem;
+import com.josephken.roors.menu.repository.MenuItemRepository;
+import com.josephken.roors.order.dto.OrderItemRequest;
+import com.josephken.roors.order.dto.PricedOrder;
+import com.josephken.roors.order.entity.OrderType;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class OrderPricingServiceTests {
+    @MockitoBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private OrderPricingService orderPricingService;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<MenuItem> menuItems = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        menuItems.clear();
+        for (int i = 1; i <= 12; i++) {
+            MenuItem menuItem = new MenuItem();
+            menuItem.setName("Pricing Dish " + i);
+            menuItem.setPrice(BigDecimal.valueOf(10000L * i));
+            menuItem.setPreparationTime(i);
+            menuItems.add(menuItemRepository.save(menuItem));
+        }
+    }
+
+    @Test
+    void priceComputesTotalsAndPreparationEstimate() {
+        PricedOrder pricedOrder = orderPricingService.price(OrderType.DELIVERY, List.of(
+                new OrderItemRequest(menuItems.get(0).getId(), 2, null),
+                new OrderItemRequest(menuItems.get(4).getId(), 1, "No onion")
+        ));
+
+        assertThat(pricedOrder.getItems()).hasSize(2);
+        assertThat(pricedOrder.getSubtotal()).isEqualTo(Vnd.of(70000));
+        assertThat(pricedOrder.getDeliveryFee()).isEqualTo(Vnd.of(8000));
+        assertThat(pricedOrder.getTotalAmount()).isEqualTo(Vnd.of(78000));
+        assertThat(pricedOrder.getEstimatedPreparationTime()).isEqualTo(5);
+        // Same scale as the money columns, so an unsaved order equals one read back
+        assertThat(pricedOrder.getTotalAmount().toBigDecimal()).isEqualTo(new BigDecimal("78000.00"));
+        assertThat(pricedOrder.getItems().get(0).getSubtotal()).isEqualTo(new BigDecimal("20000.00"));
+    }
+
+    @Test
+    void priceRejectsUnknownAndUnavailableItems() {
+        assertThatThrownBy(() -> orderPricingService.price(OrderType.DELIVERY,
+                List.of(new OrderItemRequest(-1L, 1, null))))
+                .hasMessageContaining("Menu item not found");
+
+        MenuItem unavailable = menuItems.get(0);
+        unavailable.setIsAvailable(false);
+        menuItemRepository.save(unavailable);
+
+        assertThatThrownBy(() -> orderPricingService.price(OrderType.DELIVERY,
+                List.of(new OrderItemRequest(unavailable.getId(), 1, null))))
+                .hasMessageContaining("not available");
+    }
+
+    /**
+     * Queries per order must stay constant as the number of order lines grows
+     */
+    @Test
+    void menuItemsAreResolvedWithOneQueryRegardlessOfLineCount() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (int lines : new int[]{1, 6, 12}) {
+            List<OrderItemRequest> requests = menuItems.subList(0, lines).stream()
+                    .map(menuItem -> new OrderItemRequest(menuItem.getId(), 1, null))
+                    .toList();
+
+            statistics.clear();
+            orderPricingService.price(OrderType.DELIVERY, requests);
+
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,681 @@
+package com.josephken.roors.order.service;
+
+import com.josephken.roors.admin.dto.DashboardStats;
+import com.josephken.roors.admin.service.StatisticsService;
+import com.josephken.roors.auth.entity.User;
+import com.josephken.roors.auth.repository.UserRepository;
+import com.josephken.roors.common.dto.CursorPage;
+import com.josephken.roors.common.entity.OutboxMessage;
+import com.josephken.roors.common.entity.OutboxMessageType;
+import com.josephken.roors.common.repository.OutboxMessageRepository;
+import com.josephken.roors.common.util.TestUsers;
+import com.josephken.roors.menu.entity.MenuItem;
+import com.josephken.roors.menu.repository.MenuItemRepository;
+import com.josephken.roors.menu.service.MenuItemOrderCounter;
+import com.josephken.roors.menu.service.MenuItemService;
+import com.josephken.roors.order.dto.BulkUpdateOrderStatusResponse;
+import com.josephken.roors.order.dto.CancelOrderRequest;
+import com.josephken.roors.order.dto.CreateOrderRequest;
+import com.josephken.roors.order.dto.OrderExportFormat;
+import com.josephken.roors.order.dto.OrderItemRequest;
+import com.josephken.roors.order.dto.OrderResponse;
+import com.josephken.roors.order.dto.OrderStatusOutcome;
+import com.josephken.roors.order.dto.SubmitDishRatingRequest;
+import com.josephken.roors.order.entity.Order;
+import com.josephken.roors.order.entity.OrderStatus;
+import com.josephken.roors.order.entity.OrderType;
+import com.josephken.roors.order.exception.InvalidStatusTransitionException;
+import com.josephken.roors.order.exception.OrderStatusConflictException;
+import com.josephken.roors.order.repository.OrderRepository;
+import com.josephken.roors.payment.entity.PaymentMethod;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class OrderServiceTests {
+    @MockitoBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Autowired
+    private MenuItemService menuItemService;
+
+    @Autowired
+    private MenuItemOrderCounter orderCounter;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private static final int LISTING_ORDERS = 20;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    private User user;
+    private MenuItem pho;
+    private MenuItem tea;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+
+        user = TestUsers.save(userRepository, "orders-" + suffix);
+
+        pho = newMenuItem("Pho " + suffix, 55000);
+        tea = newMenuItem("Tea " + suffix, 15000);
+    }
+
+    @Test
+    void userOrderPageLoadsPaymentsWithoutPerRowQueries() {
+        long smallPage = countStatementsForUserOrders(5);
+        long fullPage = countStatementsForUserOrders(20);
+
+        // user, page, count, archived count, batched items, batched payments
+        assertThat(fullPage).isEqualTo(smallPage).isLessThanOrEqualTo(6);
+    }
+
+    @Test
+    void createOrderBatchesItemInserts() {
+        // Item rows share one JDBC batch, so ten lines cost no more statements than one
+        assertThat(fewestStatementsToCreateOrder(10)).isLessThanOrEqualTo(fewestStatementsToCreateOrder(1));
+    }
+
+    @Test
+    void userOrderPageIncludesPayments() {
+        createOrders(3);
+        entityManager.flush();
+        entityManager.clear();
+
+        Page<OrderResponse> page = orderService.getUserOrders(user.getId(), 0, 20, null);
+
+        assertThat(page.getContent()).hasSize(3);
+        assertThat(page.getContent()).allSatisfy(order -> {
+            assertThat(order.getPayment()).isNotNull();
+            assertThat(order.getPayment().getOrderId()).isEqualTo(order.getId());
+            assertThat(order.getItems()).hasSize(2);
+        });
+    }
+
+    @Test
+    void listOrdersUsesBoundedStatements() {
+        assertListingIsBounded(size -> orderService.listOrders(null, null, newestFirst(size)));
+        assertListingIsBounded(size -> orderService.listOrders(OrderStatus.PENDING, null, newestFirst(size)));
+        assertListingIsBounded(size -> orderService.listOrders(null, "ORD", newestFirst(size)));
+    }
+
+    @Test
+    void getOrdersByStatusUsesBoundedStatements() {
+        assertListingIsBounded(size -> orderService.getOrdersByStatus(OrderStatus.PENDING, newestFirst(size)));
+    }
+
+    @Test
+    void getOrdersByDateUsesBoundedStatements() {
+        assertListingIsBounded(size -> orderService.getOrdersByDate(LocalDate.now(), 0, size, null));
+    }
+
+    @Test
+    void getOrdersWithRatingsUsesBoundedStatements() {
+        createOrders(LISTING_ORDERS);
+        orderRepository.findAll().forEach(order -> order.setRating(5));
+
+        assertListingIsBounded(size -> orderService.getOrdersWithRatings(null, newestFirst(size)));
+        assertListingIsBounded(size -> orderService.getOrdersWithRatings(5, newestFirst(size)));
+    }
+
+    @Test
+    void userOrderCursorPagesWalkEveryOrderOnce() {
+        createOrders(7);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        do {
+            CursorPage<OrderResponse> page = orderService.getUserOrdersAfter(user.getId(), null, cursor, 3, false);
+            assertThat(page.getTotalElements()).isNull();
+            assertThat(page.getContent()).allSatisfy(order -> assertThat(order.getPayment()).isNotNull());
+            page.getContent().forEach(order -> seen.add(order.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).hasSize(7).doesNotHaveDuplicates()
+                .isSortedAccordingTo((a, b) -> Long.compare(b, a));
+    }
+
+    @Test
+    void cursorPageSkipsCountQueryUnlessRequested() {
+        createOrders(LISTING_ORDERS);
+
+        long withoutCount = countStatements(() -> {
+            CursorPage<OrderResponse> page = orderService.listOrdersAfter(null, null, "", 5, false);
+            assertThat(page.isHasNext()).isTrue();
+            assertThat(page.getContent()).allSatisfy(order -> assertThat(order.getItems()).hasSize(2));
+        });
+        long withCount = countStatements(() -> {
+            CursorPage<OrderResponse> page = orderService.listOrdersAfter(null, null, "", 5, true);
+            assertThat(page.getTotalElements()).isGreaterThanOrEqualTo(LISTING_ORDERS);
+        });
+
+        // page query and batched items; the count is the only extra statement
+        assertThat(withoutCount).isLessThanOrEqualTo(2);
+        assertThat(withCount).isEqualTo(withoutCount + 1);
+    }
+
+    @Test
+    void cursorModeRejectsMalformedTokens() {
+        assertThatThrownBy(() -> orderService.getOrdersByStatusAfter(OrderStatus.PENDING, "not-a-cursor", 10, false))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void warmOrderDetailReadsRunNoStatementsUntilTheOrderChanges() {
+        Long orderId = createOrder().getId();
+
+        long cold = countStatements(() -> orderService.getOrderById(user.getId(), orderId));
+        long warm = countStatements(() -> orderService.getOrderById(user.getId(), orderId));
+        assertThat(cold).isPositive();
+        assertThat(warm).isZero();
+
+        // Ownership is checked against the cached entry
+        assertThatThrownBy(() -> orderService.getOrderById(user.getId() + 1, orderId))
+                .hasMessage("Unauthorized access to order");
+
+        orderService.updateOrderStatus(orderId, OrderStatus.PREPARING);
+        OrderResponse afterWrite = orderService.getOrderById(user.getId(), orderId);
+        assertThat(afterWrite.getStatus()).isEqualTo(OrderStatus.PREPARING);
+        assertThat(countStatements(() -> orderService.getOrderById(user.getId(), orderId))).isZero();
+    }
+
+    @Test
+    void statusTransitionsStampMilestonesWithOneUpdate() {
+        Long orderId = createOrder().getId();
+
+        Statistics statistics = statistics();
+        entityManager.flush();
+        statistics.clear();
+        orderService.updateOrderStatus(orderId, OrderStatus.PREPARING);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+
+        orderService.updateOrderStatus(orderId, OrderStatus.READY, OrderStatus.PREPARING);
+        orderService.updateOrderStatus(orderId, OrderStatus.COMPLETED);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+
+        Order order = orderRepository.findById(orderId).orElseThrow();
+
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.COMPLETED);
+        assertThat(order.getPreparationStartedAt()).isNotNull();
+        assertThat(order.getReadyAt()).isNotNull();
+        assertThat(order.getCompletedAt()).isNotNull();
+        assertThat(order.getCancelledAt()).isNull();
+    }
+
+    @Test
+    void statusTransitionOutsideStateMachineIsRejected() {
+        Long orderId = createOrder().getId();
+
+        assertThatThrownBy(() -> orderService.updateOrderStatus(orderId, OrderStatus.COMPLETED))
+                .isInstanceOf(InvalidStatusTransitionException.class);
+        assertThat(orderRepository.findStatusById(orderId)).contains(OrderStatus.PENDING);
+    }
+
+    @Test
+    void customerCancelGoesThroughTheConditionalTransition() {
+        Long orderId = createOrder().getId();
+
+        Statistics statistics = statistics();
+        entityManager.flush();
+        statistics.clear();
+        OrderResponse cancelled = orderService.cancelOrder(user.getId(), orderId, new CancelOrderRequest("Changed my mind"));
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        assertThat(cancelled.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(cancelled.getCancellationReason()).isEqualTo("Changed my mind");
+        assertThat(cancelled.getCancelledAt()).isNotNull();
+
+        Long preparing = createOrder().getId();
+        orderService.updateOrderStatus(preparing, OrderStatus.PREPARING);
+        assertThatThrownBy(() -> orderService.cancelOrder(user.getId(), preparing, new CancelOrderRequest("Too late")))
+                .hasMessageContaining("cannot be cancelled");
+        assertThat(orderRepository.findStatusById(preparing)).contains(OrderStatus.PREPARING);
+    }
+
+    @Test
+    void staleExpectedStatusIsReportedAsConflict() {
+        Long orderId = createOrder().getId();
+        orderService.updateOrderStatus(orderId, OrderStatus.PREPARING, OrderStatus.PENDING);
+
+        // A second tablet still showing the order as PENDING tries to cancel it
+        assertThatThrownBy(() -> orderService.updateOrderStatus(orderId, OrderStatus.CANCELLED, OrderStatus.PENDING))
+                .isInstanceOfSatisfying(OrderStatusConflictException.class,
+                        e -> assertThat(e.getCurrentStatus()).isEqualTo(OrderStatus.PREPARING));
+        assertThat(orderRepository.findStatusById(orderId)).contains(OrderStatus.PREPARING);
+    }
+
+    @Test
+    void bulkTransitionReportsEveryOrderAndQueuesCompletionEmails() {
+        Long ready1 = createOrder().getId();
+        Long ready2 = createOrder().getId();
+        Long pending = createOrder().getId();
+        for (Long orderId : List.of(ready1, ready2)) {
+            orderService.updateOrderStatus(orderId, OrderStatus.PREPARING);
+            orderService.updateOrderStatus(orderId, OrderStatus.READY);
+        }
+
+        BulkUpdateOrderStatusResponse response = orderService.updateOrderStatuses(
+                List.of(ready1, pending, -1L, ready2), OrderStatus.COMPLETED, null);
+
+        assertThat(response.getRequested()).isEqualTo(4);
+        assertThat(response.getUpdated()).isEqualTo(2);
+        assertThat(response.getResults()).extracting(OrderStatusOutcome::getResult).containsExactly(
+                OrderStatusOutcome.Result.UPDATED,
+                OrderStatusOutcome.Result.INVALID_TRANSITION,
+                OrderStatusOutcome.Result.NOT_FOUND,
+                OrderStatusOutcome.Result.UPDATED);
+        assertThat(orderRepository.findStatusById(ready2)).contains(OrderStatus.COMPLETED);
+        assertThat(orderRepository.findStatusById(pending)).contains(OrderStatus.PENDING);
+
+        assertThat(outboxMessageRepository.findAll())
+                .filteredOn(message -> message.getType() == OutboxMessageType.ORDER_COMPLETED_RATING_REQUEST)
+                .extracting(OutboxMessage::getAggregateId)
+                .containsExactlyInAnyOrder(ready1, ready2);
+    }
+
+    @Test
+    void bulkTransitionWithStaleExpectedStatusReportsConflicts() {
+        Long preparing = createOrder().getId();
+        Long pending = createOrder().getId();
+        orderService.updateOrderStatus(preparing, OrderStatus.PREPARING);
+
+        BulkUpdateOrderStatusResponse response = orderService.updateOrderStatuses(
+                List.of(preparing, pending), OrderStatus.CANCELLED, OrderStatus.PENDING);
+
+        assertThat(response.getResults()).extracting(OrderStatusOutcome::getResult).containsExactly(
+                OrderStatusOutcome.Result.CONFLICT,
+                OrderStatusOutcome.Result.UPDATED);
+        assertThat(response.getResults().get(0).getStatus()).isEqualTo(OrderStatus.PREPARING);
+    }
+
+    @Test
+    void dishRatingsMaintainRunningAggregatesIncludingReRatings() {
+        OrderResponse first = completeOrder();
+        OrderResponse second = completeOrder();
+
+        rate(first, 4);
+        rate(second, 5);
+        rate(first, 2);
+
+        MenuItem rated = reloadPho();
+        assertThat(rated.getRatingSum()).isEqualTo(7L);
+        assertThat(rated.getReviewCount()).isEqualTo(2);
+        assertThat(rated.getRatingHistogram()).containsExactly(0, 1, 0, 0, 1);
+        assertThat(rated.getRating()).isEqualTo(3.5);
+    }
+
+    @Test
+    void ratingAggregateRebuildRepairsDrift() {
+        rate(completeOrder(), 3);
+        rate(completeOrder(), 4);
+
+        MenuItem drifted = reloadPho();
+        drifted.setRatingSum(100L);
+        drifted.setRating5Count(9);
+        drifted.setRating(1.0);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(menuItemService.rebuildRatingAggregates()).isPositive();
+
+        MenuItem repaired = reloadPho();
+        assertThat(repaired.getRatingSum()).isEqualTo(7L);
+        assertThat(repaired.getReviewCount()).isEqualTo(2);
+        assertThat(repaired.getRatingHistogram()).containsExactly(0, 0, 1, 1, 0);
+        assertThat(repaired.getRating()).isEqualTo(3.5);
+        assertThat(menuItemService.rebuildRatingAggregates()).isZero();
+    }
+
+    @Test
+    void ratingAggregateBackfillFillsItemsRatedBeforeTheColumnsExisted() {
+        rate(completeOrder(), 3);
+        rate(completeOrder(), 4);
+
+        // As left by adding the columns: review count and average kept, aggregates zero
+        MenuItem migrated = reloadPho();
+        migrated.setRatingSum(0L);
+        migrated.setRating3Count(0);
+        migrated.setRating4Count(0);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(menuItemService.backfillRatingAggregates()).isEqualTo(1);
+
+        MenuItem backfilled = reloadPho();
+        assertThat(backfilled.getRatingSum()).isEqualTo(7L);
+        assertThat(backfilled.getRatingHistogram()).containsExactly(0, 0, 1, 1, 0);
+        assertThat(menuItemService.backfillRatingAggregates()).isZero();
+    }
+
+    @Test
+    void orderCounterFlushesAccumulatedCountsInOneBatch() {
+        orderCounter.increment(pho.getId(), 2);
+        orderCounter.increment(tea.getId(), 1);
+        orderCounter.increment(pho.getId(), 3);
+        entityManager.flush();
+
+        assertThat(orderCounter.flush()).isEqualTo(2);
+        assertThat(orderCounter.flush()).isZero();
+
+        assertThat(reloadPho().getOrderCount()).isEqualTo(5);
+        assertThat(menuItemRepository.findById(tea.getId()).orElseThrow().getOrderCount()).isEqualTo(1);
+    }
+
+    @Test
+    void orderCounterRecountsUnitsFromCompletedOrders() {
+        completeOrder();
+        completeOrder();
+        createOrder();
+
+        orderCounter.recount();
+
+        // two completed orders of one pho and two teas each; the pending order does not count
+        assertThat(reloadPho().getOrderCount()).isEqualTo(2);
+        assertThat(menuItemRepository.findById(tea.getId()).orElseThrow().getOrderCount()).isEqualTo(4);
+    }
+
+    @Test
+    void searchMatchesCustomerDetailsIgnoringDiacriticsAndOrderNumberPrefix() {
+        OrderResponse duc = createOrder("Nguyễn Văn Đức", "0909 123 456", "duc.nguyen@search.example");
+        OrderResponse lan = createOrder("Trần Thị Lan", "0912-345-678", "lan@search.example");
+        orderService.updateOrderStatus(lan.getId(), OrderStatus.CANCELLED);
+
+        assertThat(searchIds("van duc", null)).containsExactly(duc.getId());
+        assertThat(searchIds("ĐỨC", null)).containsExactly(duc.getId());
+        assertThat(searchIds("0909123", null)).containsExactly(duc.getId());
+        assertThat(searchIds("345 678", null)).containsExactly(lan.getId());
+        assertThat(searchIds("search.example", null)).containsExactlyInAnyOrder(duc.getId(), lan.getId());
+        assertThat(searchIds("search.example", OrderStatus.CANCELLED)).containsExactly(lan.getId());
+        assertThat(searchIds(lan.getOrderNumber().toLowerCase(), null)).containsExactly(lan.getId());
+        assertThat(searchIds(lan.getOrderNumber().substring(1), null)).isEmpty();
+        assertThat(searchIds("50%", null)).isEmpty();
+    }
+
+    @Test
+    void archivedOrdersLeaveHotTablesButStayInCustomerHistory() {
+        OrderResponse archived = completeOrder();
+        rate(archived, 4);
+        OrderResponse cancelled = createOrder();
+        orderService.updateOrderStatus(cancelled.getId(), OrderStatus.CANCELLED);
+        OrderResponse live = createOrder();
+        DashboardStats statsBefore = statisticsService.getDashboardStatistics(7);
+
+        assertThat(orderArchiveService.archiveOrdersCreatedBefore(LocalDateTime.now().plusMinutes(1))).isEqualTo(2);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Dashboard totals keep counting the archived orders
+        DashboardStats statsAfter = statisticsService.getDashboardStatistics(7);
+        assertThat(statsAfter.getTotalOrders()).isEqualTo(statsBefore.getTotalOrders());
+        assertThat(statsAfter.getTotalRevenue()).isEqualByComparingTo(statsBefore.getTotalRevenue());
+        assertThat(statsAfter.getOrderStatusDistribution()).isEqualTo(statsBefore.getOrderStatusDistribution());
+        assertThat(statsAfter.getRevenueOverTime()).isEqualTo(statsBefore.getRevenueOverTime());
+        assertThat(statsAfter.getCategorySales()).containsExactlyInAnyOrderElementsOf(statsBefore.getCategorySales());
+        assertThat(statsAfter.getTopSellingItems()).filteredOn(item -> item.getMenuItemId().equals(pho.getId()))
+                .isEqualTo(statsBefore.getTopSellingItems().stream()
+                        .filter(item -> item.getMenuItemId().equals(pho.getId())).toList());
+
+        assertThat(orderRepository.findById(archived.getId())).isEmpty();
+        assertThat(orderRepository.findById(live.getId())).isPresent();
+
+        OrderResponse reopened = orderService.getOrderById(user.getId(), archived.getId());
+        assertThat(reopened.getOrderNumber()).isEqualTo(archived.getOrderNumber());
+        assertThat(reopened.getItems()).hasSize(2);
+        assertThat(reopened.getPayment()).isNotNull();
+
+        Page<OrderResponse> history = orderService.getUserOrders(user.getId(), 0, 2, null);
+        assertThat(history.getTotalElements()).isEqualTo(3);
+        assertThat(history.getContent()).extracting(OrderResponse::getId).containsExactly(live.getId(), cancelled.getId());
+        assertThat(orderService.getUserOrders(user.getId(), 1, 2, null).getContent())
+                .extracting(OrderResponse::getId).containsExactly(archived.getId());
+
+        CursorPage<OrderResponse> first = orderService.getUserOrdersAfter(user.getId(), null, "", 2, true);
+        CursorPage<OrderResponse> second = orderService.getUserOrdersAfter(user.getId(), null, first.getNextCursor(), 2, false);
+        assertThat(first.getTotalElements()).isEqualTo(3);
+        assertThat(first.getContent()).extracting(OrderResponse::getId).containsExactly(live.getId(), cancelled.getId());
+        assertThat(second.getContent()).extracting(OrderResponse::getId).containsExactly(archived.getId());
+        assertThat(second.isHasNext()).isFalse();
+
+        // Menu aggregates rebuilt from order_items still see the archived sale and rating
+        orderCounter.recount();
+        assertThat(menuItemService.rebuildRatingAggregates()).isZero();
+        MenuItem rated = reloadPho();
+        assertThat(rated.getOrderCount()).isEqualTo(1);
+        assertThat(rated.getRatingHistogram()).containsExactly(0, 0, 0, 1, 0);
+    }
+
+    @Test
+    void exportStreamsOrdersWithItemsAsCsvAndNdjson() throws IOException {
+        OrderResponse named = createOrder("=Nguyen, \"An\"", "0900000000", null);
+        OrderResponse twoLines = createOrder();
+        entityManager.flush();
+        LocalDateTime from = LocalDate.now().atStartOfDay();
+        LocalDateTime to = from.plusDays(1);
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        long exported = orderExportService.export(from, to, OrderExportFormat.CSV, csv);
+        List<String> lines = csv.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines.get(0)).startsWith("order_id,order_number,created_at,");
+        assertThat(lines).filteredOn(line -> line.contains(twoLines.getOrderNumber())).hasSize(2);
+        // Quoted for the comma and quotes, and kept from being read as a spreadsheet formula
+        assertThat(lines).filteredOn(line -> line.contains(named.getOrderNumber())).singleElement().asString()
+                .contains(",\"'=Nguyen, \"\"An\"\"\",")
+                .endsWith(",55000.00,1,55000.00");
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        assertThat(orderExportService.export(from, to, OrderExportFormat.NDJSON, ndjson)).isEqualTo(exported);
+        List<JsonNode> orders = new ArrayList<>();
+        for (String line : ndjson.toString(StandardCharsets.UTF_8).lines().toList()) {
+            orders.add(objectMapper.readTree(line));
+        }
+        assertThat(orders).hasSize((int) exported);
+        JsonNode exportedOrder = orders.stream()
+                .filter(order -> order.get("id").asLong() == twoLines.getId())
+                .findFirst().orElseThrow();
+        assertThat(exportedOrder.get("items")).hasSize(2);
+        assertThat(exportedOrder.get("totalAmount").decimalValue()).isEqualByComparingTo(twoLines.getTotalAmount());
+        assertThat(exportedOrder.get("paymentMethod").asText()).isEqualTo("CASH");
+    }
+
+    /**
+     * A listing page must cost the same number of statements whatever its size:
+     * the page query, its count query and one query for the items of every order on it
+     */
+    private void assertListingIsBounded(IntFunction<Page<OrderResponse>> listing) {
+        if (orderRepository.count() < LISTING_ORDERS) {
+            createOrders(LISTING_ORDERS);
+        }
+
+        long smallPage = countStatements(() -> listing.apply(5));
+        long fullPage = countStatements(() -> {
+            Page<OrderResponse> page = listing.apply(LISTING_ORDERS);
+            assertThat(page.getContent()).isNotEmpty()
+                    .allSatisfy(order -> assertThat(order.getItems()).hasSize(2));
+        });
+
+        assertThat(fullPage).isEqualTo(smallPage).isLessThanOrEqualTo(3);
+    }
+
+    private long countStatements(Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = statistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Fewest statements over a few runs, leaving out runs that also reserved a new id block
+     */
+    private long fewestStatementsToCreateOrder(int lines) {
+        long fewest = Long.MAX_VALUE;
+        for (int run = 0; run < 3; run++) {
+            fewest = Math.min(fewest, countStatements(() -> {
+                createOrderWithLines(lines);
+                entityManager.flush();
+            }));
+        }
+        return fewest;
+    }
+
+        private Pageable newestFirst(int size) {
+        return PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "createdAt"));
+    }
+
+    private long countStatementsForUserOrders(int orders) {
+        createOrders(orders);
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = statistics();
+        statistics.clear();
+        orderService.getUserOrders(user.getId(), 0, orders, null);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void createOrders(int count) {
+        for (int i = 0; i < count; i++) {
+            createOrder();
+        }
+    }
+
+    private OrderResponse createOrder(String customerName, String customerPhone, String customerEmail) {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setOrderType(OrderType.DELIVERY);
+        request.setPaymentMethod(PaymentMethod.CASH);
+        request.setCustomerName(customerName);
+        request.setCustomerPhone(customerPhone);
+        request.setCustomerEmail(customerEmail);
+        request.setItems(List.of(new OrderItemRequest(pho.getId(), 1, null)));
+        return orderService.createOrder(user.getId(), request);
+    }
+
+    private OrderResponse createOrderWithLines(int lines) {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setOrderType(OrderType.DELIVERY);
+        request.setPaymentMethod(PaymentMethod.CASH);
+        List<OrderItemRequest> items = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            items.add(new OrderItemRequest((i % 2 == 0 ? pho : tea).getId(), 1, null));
+        }
+        request.setItems(items);
+        return orderService.createOrder(user.getId(), request);
+    }
+
+    private List<Long> searchIds(String query, OrderStatus status) {
+        return orderService.searchOrders(query, status, LocalDate.now(), null, "", 50, false)
+                .getContent().stream().map(OrderResponse::getId).toList();
+    }
+
+    private OrderResponse createOrder() {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setOrderType(OrderType.DELIVERY);
+        request.setPaymentMethod(PaymentMethod.CASH);
+        request.setItems(List.of(
+                new OrderItemRequest(pho.getId(), 1, null),
+                new OrderItemRequest(tea.getId(), 2, null)
+        ));
+        return orderService.createOrder(user.getId(), request);
+    }
+
+    private OrderResponse completeOrder() {
+        OrderResponse order = createOrder();
+        for (OrderStatus status : List.of(OrderStatus.PREPARING, OrderStatus.READY, OrderStatus.COMPLETED)) {
+            orderService.updateOrderStatus(order.getId(), status);
+        }
+        return order;
+    }
+
+    private void rate(OrderResponse order, int stars) {
+        Long phoItemId = order.getItems().stream()
+                .filter(item -> item.getMenuItemId().equals(pho.getId()))
+                .findFirst().orElseThrow().getId();
+        SubmitDishRatingRequest request = new SubmitDishRatingRequest();
+        request.setDishRating(stars);
+        orderService.submitDishRating(user.getId(), order.getId(), phoItemId, request);
+    }
+
+    private MenuItem reloadPho() {
+        entityManager.flush();
+        entityManager.clear();
+        return menuItemRepository.findById(pho.getId()).orElseThrow();
+    }
+
+    private MenuItem newMenuItem(String name, long price) {
+        MenuItem menuItem = new MenuItem();
+        menuItem.setName(name);
+        menuItem.setPrice(BigDecimal.valueOf(price));
+        return menuItemRepository.save(menuItem);
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
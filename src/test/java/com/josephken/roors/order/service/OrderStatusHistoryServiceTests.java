@@ -0,0 +1,122 @@
+package com.josephken.roors.order.service;
+
+import com.josephken.roors.auth.entity.User;
+import com.josephken.roors.auth.repository.UserRepository;
+import com.josephken.roors.common.util.TestUsers;
+import com.josephken.roors.menu.entity.MenuItem;
+import com.josephken.roors.menu.repository.MenuItemRepository;
+import com.josephken.roors.order.dto.CreateOrderRequest;
+import com.josephken.roors.order.dto.OrderEvent;
+import com.josephken.roors.order.dto.OrderEventType;
+import com.josephken.roors.order.dto.OrderItemRequest;
+import com.josephken.roors.order.dto.OrderResponse;
+import com.josephken.roors.order.dto.OrderStatusHistoryResponse;
+import com.josephken.roors.order.dto.PreparationTimeStats;
+import com.josephken.roors.order.entity.OrderStatus;
+import com.josephken.roors.order.entity.OrderType;
+import com.josephken.roors.payment.entity.PaymentMethod;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Not transactional: history rows are queued only once the order change commits
+ */
+@SpringBootTest
+class OrderStatusHistoryServiceTests {
+    @MockitoBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private OrderStatusHistoryService orderStatusHistoryService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    private User user;
+    private MenuItem dish;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+
+        user = TestUsers.save(userRepository, "history-" + suffix);
+
+        dish = new MenuItem();
+        dish.setName("Bun cha " + suffix);
+        dish.setPrice(BigDecimal.valueOf(45000));
+        dish = menuItemRepository.save(dish);
+    }
+
+    @Test
+    void everyCommittedTransitionIsAppendedToTheTimeline() {
+        Long orderId = createOrder().getId();
+        orderService.updateOrderStatus(orderId, OrderStatus.PREPARING);
+        orderService.updateOrderStatus(orderId, OrderStatus.READY, OrderStatus.PREPARING);
+
+        List<OrderStatusHistoryResponse> timeline = orderStatusHistoryService.getTimeline(orderId);
+
+        assertThat(timeline).extracting(OrderStatusHistoryResponse::getFromStatus)
+                .containsExactly(null, OrderStatus.PENDING, OrderStatus.PREPARING);
+        assertThat(timeline).extracting(OrderStatusHistoryResponse::getToStatus)
+                .containsExactly(OrderStatus.PENDING, OrderStatus.PREPARING, OrderStatus.READY);
+        assertThat(timeline).allSatisfy(entry -> assertThat(entry.getChangedAt()).isNotNull());
+    }
+
+    @Test
+    void preparationTimesArePercentilesPerDishAndHour() {
+        LocalDateTime noon = LocalDate.now().atTime(12, 0);
+        int[] minutes = {10, 20, 30, 40};
+        for (int preparation : minutes) {
+            Long orderId = createOrder().getId();
+            record(orderId, OrderStatus.PENDING, OrderStatus.PREPARING, noon);
+            record(orderId, OrderStatus.PREPARING, OrderStatus.READY, noon.plusMinutes(preparation));
+        }
+        // Started in another hour, so reported separately
+        Long lateOrderId = createOrder().getId();
+        record(lateOrderId, OrderStatus.PENDING, OrderStatus.PREPARING, noon.plusHours(1));
+        record(lateOrderId, OrderStatus.PREPARING, OrderStatus.READY, noon.plusHours(1).plusMinutes(5));
+
+        List<PreparationTimeStats> stats = orderStatusHistoryService
+                .getPreparationTimeStats(LocalDate.now().atStartOfDay()).stream()
+                .filter(row -> row.getMenuItemId().equals(dish.getId()))
+                .toList();
+
+        assertThat(stats).extracting(PreparationTimeStats::getHourOfDay).containsExactly(12, 13);
+        PreparationTimeStats lunch = stats.get(0);
+        assertThat(lunch.getOrders()).isEqualTo(4);
+        assertThat(lunch.getP50Minutes()).isEqualTo(20.0);
+        assertThat(lunch.getP90Minutes()).isEqualTo(40.0);
+        assertThat(stats.get(1).getP95Minutes()).isEqualTo(5.0);
+    }
+
+    private void record(Long orderId, OrderStatus from, OrderStatus to, LocalDateTime at) {
+        orderStatusHistoryService.onOrderEvent(new OrderEvent(OrderEventType.STATUS_CHANGED, orderId,
+                "ORD" + orderId, to, from, OrderType.DELIVERY, at, 15));
+    }
+
+    private OrderResponse createOrder() {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setOrderType(OrderType.DELIVERY);
+        request.setPaymentMethod(PaymentMethod.CASH);
+        request.setItems(List.of(new OrderItemRequest(dish.getId(), 1, null)));
+        return orderService.createOrder(user.getId(), request);
+    }
+}
@@ -0,0 +1,132 @@
+package com.josephken.roors.reservation.service;
+
+import com.josephken.roors.auth.entity.User;
+import com.josephken.roors.auth.repository.UserRepository;
+import com.josephken.roors.common.util.TestUsers;
+import com.josephken.roors.reservation.dto.AssignReservationDto;
+import com.josephken.roors.reservation.dto.CreateDiningTableDto;
+import com.josephken.roors.reservation.dto.DiningTableDto;
+import com.josephken.roors.reservation.dto.ReservationDto;
+import com.josephken.roors.reservation.entity.DiningTableStatus;
+import com.josephken.roors.reservation.entity.ReservationStatus;
+import com.josephken.roors.reservation.exception.TableNotAvailableException;
+import com.josephken.roors.reservation.repository.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Not transactional: tables reach the availability index once they commit. Each test uses a
+ * floor of its own, since tables left by other tests are candidates too.
+ */
+@SpringBootTest
+class ReservationAssignmentTests {
+    @MockitoBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private ReservationTableService reservationTableService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final LocalDateTime slot = LocalDate.now().plusDays(2).atTime(12, 0);
+    private String floor;
+    private List<User> users;
+
+    @BeforeEach
+    void setUp() {
+        floor = "F-" + UUID.randomUUID().toString().substring(0, 8);
+        users = TestUsers.saveAll(userRepository, "assign-" + floor, 6);
+    }
+
+    @Test
+    void smallestFittingTableIsBookedFirstWithTheFloorAsTieBreak() {
+        DiningTableDto eight = table("eight", 8);
+        DiningTableDto four = table("four", 4);
+        table("two", 2);
+        reservationTableService.createDiningTable(
+                new CreateDiningTableDto(floor + "-four-elsewhere", floor + "-other", 4, DiningTableStatus.OPEN));
+
+        ReservationDto first = assign(users.get(0), 3);
+        ReservationDto second = assign(users.get(1), 3);
+
+        // The two-seater is too small; among four-seaters the preferred floor wins
+        assertThat(tableOf(first)).isEqualTo(four.getId());
+        // A four-seater on another floor still beats the eight on the preferred one
+        assertThat(tableOf(second)).isNotEqualTo(eight.getId());
+        assertThat(reservationTableService.getDiningTableById(tableOf(second)).getCapacity()).isEqualTo(4);
+    }
+
+    @Test
+    void concurrentAssignmentsNeverShareATable() throws Exception {
+        List<Long> twoSeaters = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            twoSeaters.add(table("two-" + i, 2).getId());
+        }
+
+        List<ReservationDto> booked = new CopyOnWriteArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(users.size());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (User user : users) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        booked.add(assign(user, 2));
+                    } catch (TableNotAvailableException e) {
+                        // Only once every fitting table, on any floor, is taken
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<Long, Long> bookingsPerTable = booked.stream()
+                .collect(Collectors.groupingBy(this::tableOf, Collectors.counting()));
+        // No client retry needed: losing a race for one table moves the booking on to the next
+        assertThat(bookingsPerTable.keySet()).containsAll(twoSeaters);
+        assertThat(bookingsPerTable.values()).allMatch(count -> count == 1);
+    }
+
+    private DiningTableDto table(String name, int capacity) {
+        return reservationTableService.createDiningTable(
+                new CreateDiningTableDto(floor + "-" + name, floor, capacity, DiningTableStatus.OPEN));
+    }
+
+    private ReservationDto assign(User user, int numberOfGuests) {
+        return reservationTableService.createAssignedReservation(user.getId(),
+                new AssignReservationDto("0900000000", numberOfGuests, slot, floor));
+    }
+
+    private Long tableOf(ReservationDto reservation) {
+        return reservationRepository.findById(reservation.getId())
+                .filter(saved -> saved.getStatus() == ReservationStatus.CONFIRMED)
+                .map(saved -> saved.getDiningTable().getId())
+                .orElseThrow();
+    }
+}
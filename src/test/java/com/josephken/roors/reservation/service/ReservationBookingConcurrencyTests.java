@@ -0,0 +1,149 @@
+package com.josephken.roors.reservation.service;
+
+import com.josephken.roors.auth.entity.User;
+import com.josephken.roors.auth.repository.UserRepository;
+import com.josephken.roors.common.util.TestUsers;
+import com.josephken.roors.reservation.dto.CreateReservationDto;
+import com.josephken.roors.reservation.entity.DiningTable;
+import com.josephken.roors.reservation.entity.DiningTableStatus;
+import com.josephken.roors.reservation.entity.Reservation;
+import com.josephken.roors.reservation.entity.ReservationStatus;
+import com.josephken.roors.reservation.exception.TableNotAvailableException;
+import com.josephken.roors.reservation.repository.DiningTableRepository;
+import com.josephken.roors.reservation.repository.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Not transactional: each booking must commit for the others to see it
+ */
+@SpringBootTest
+class ReservationBookingConcurrencyTests {
+    @MockitoBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private ReservationTableService reservationTableService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private DiningTableRepository diningTableRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final LocalDate tomorrow = LocalDate.now().plusDays(1);
+    private DiningTable table;
+    private List<User> users;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        table = diningTableRepository.save(DiningTable.builder()
+                .name("Stress " + suffix)
+                .floor("1")
+                .capacity(4)
+                .status(DiningTableStatus.OPEN)
+                .build());
+
+        users = TestUsers.saveAll(userRepository, "booker-" + suffix, 16);
+    }
+
+    @Test
+    void onlyOneOfManySimultaneousBookingsOfTheSameSlotSucceeds() throws Exception {
+        LocalDateTime slot = tomorrow.atTime(18, 0);
+
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        runConcurrently(users.size(), i -> {
+            try {
+                book(users.get(i), slot);
+                booked.incrementAndGet();
+            } catch (TableNotAvailableException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertThat(booked.get()).isEqualTo(1);
+        assertThat(rejected.get()).isEqualTo(users.size() - 1);
+        assertThat(confirmedBookings()).hasSize(1);
+    }
+
+    @Test
+    void overlappingSlotsBookedConcurrentlyNeverShareTheTable() throws Exception {
+        // Every two-hour slot from 10:00 to 18:00, each wanted by two customers at once
+        List<LocalDateTime> starts = new ArrayList<>();
+        for (int hour = 10; hour <= 18; hour++) {
+            starts.add(tomorrow.atTime(hour, 0));
+        }
+
+        runConcurrently(starts.size() * 2, i -> {
+            try {
+                book(users.get(i % users.size()), starts.get(i % starts.size()));
+            } catch (TableNotAvailableException ignored) {
+                // Lost the race, as most of them should
+            }
+        });
+
+        List<Reservation> confirmed = confirmedBookings();
+        assertThat(confirmed).isNotEmpty();
+        for (int i = 1; i < confirmed.size(); i++) {
+            assertThat(confirmed.get(i).getStartTime()).isAfterOrEqualTo(confirmed.get(i - 1).getEndTime());
+        }
+    }
+
+    private void book(User user, LocalDateTime start) {
+        reservationTableService.createReservation(user.getId(),
+                new CreateReservationDto(table.getId(), "0900000000", 4, start));
+    }
+
+    private List<Reservation> confirmedBookings() {
+        return reservationRepository.findByDiningTableId(table.getId()).stream()
+                .filter(reservation -> reservation.getStatus() == ReservationStatus.CONFIRMED)
+                .sorted(Comparator.comparing(Reservation::getStartTime))
+                .toList();
+    }
+
+    /**
+     * Runs the attempts on their own threads, released together
+     */
+    private static void runConcurrently(int attempts, IntConsumer attempt) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(attempts);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < attempts; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    attempt.accept(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.josephken.roors.reservation.service;
+
+import com.josephken.roors.reservation.dto.DiningTableDto;
+import com.josephken.roors.reservation.entity.DiningTable;
+import com.josephken.roors.reservation.entity.DiningTableStatus;
+import com.josephken.roors.reservation.entity.Reservation;
+import com.josephken.roors.reservation.entity.ReservationStatus;
+import com.josephken.roors.reservation.repository.DiningTableRepository;
+import com.josephken.roors.reservation.repository.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TableAvailabilityIndexTests {
+
+    private final LocalDateTime tomorrowNoon = LocalDate.now().plusDays(1).atTime(12, 0);
+    private final DiningTable window = table(1L, "A1", 4, DiningTableStatus.OPEN);
+    private final DiningTable corner = table(2L, "A2", 4, DiningTableStatus.OPEN);
+    private final DiningTable bar = table(3L, "B1", 2, DiningTableStatus.OPEN);
+
+    private DiningTableRepository diningTableRepository;
+    private ReservationRepository reservationRepository;
+    private TableAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        diningTableRepository = mock(DiningTableRepository.class);
+        reservationRepository = mock(ReservationRepository.class);
+        when(diningTableRepository.findAll()).thenReturn(List.of(window, corner, bar));
+        when(reservationRepository.findBlockingBetween(any(), any()))
+                .thenReturn(List.of(reservation(10L, window, tomorrowNoon, ReservationStatus.CONFIRMED)));
+        index = new TableAvailabilityIndex(diningTableRepository, reservationRepository, 15);
+        index.rebuild();
+    }
+
+    @Test
+    void overlappingBookingsHideTablesUntilCancelled() {
+        assertThat(ids(index.findAvailableTables(4, tomorrowNoon.plusHours(1), tomorrowNoon.plusHours(3))))
+                .containsExactly(2L);
+        // Ends exactly when the existing booking starts
+        assertThat(ids(index.findAvailableTables(4, tomorrowNoon.minusHours(2), tomorrowNoon)))
+                .containsExactly(1L, 2L);
+        assertThat(index.isBooked(1L, tomorrowNoon.plusHours(1), tomorrowNoon.plusHours(3))).isTrue();
+        assertThat(index.isBooked(1L, tomorrowNoon.plusHours(2), tomorrowNoon.plusHours(4))).isFalse();
+        // A range ending off the hour still covers the hour it ends in
+        assertThat(index.isBooked(1L, tomorrowNoon.minusHours(2), tomorrowNoon.plusMinutes(30))).isTrue();
+        assertThat(ids(index.findAvailableTables(4, tomorrowNoon.minusHours(2), tomorrowNoon.plusMinutes(30))))
+                .containsExactly(2L);
+
+        // A back-to-back booking on the same table keeps the earlier hours taken once it is cancelled
+        Reservation later = reservation(11L, window, tomorrowNoon.plusHours(2), ReservationStatus.CONFIRMED);
+        index.reservationSaved(later);
+        assertThat(index.isBooked(1L, tomorrowNoon.plusHours(2), tomorrowNoon.plusHours(4))).isTrue();
+
+        later.setStatus(ReservationStatus.CANCELLED);
+        index.reservationSaved(later);
+        assertThat(index.isBooked(1L, tomorrowNoon.plusHours(2), tomorrowNoon.plusHours(4))).isFalse();
+        assertThat(index.isBooked(1L, tomorrowNoon, tomorrowNoon.plusHours(2))).isTrue();
+
+        index.reservationDeleted(10L);
+        assertThat(ids(index.findAvailableTables(4, tomorrowNoon, tomorrowNoon.plusHours(2))))
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    void closedAndDeletedTablesAreNotOffered() {
+        corner.setStatus(DiningTableStatus.CLOSED);
+        index.tableSaved(corner);
+        assertThat(index.findAvailableTables(4, tomorrowNoon.plusHours(3), tomorrowNoon.plusHours(5)))
+                .extracting(DiningTableDto::getName)
+                .containsExactly("A1");
+
+        index.tableDeleted(1L);
+        assertThat(index.findAvailableTables(4, tomorrowNoon.plusHours(3), tomorrowNoon.plusHours(5))).isEmpty();
+        assertThat(index.isBooked(1L, tomorrowNoon, tomorrowNoon.plusHours(2))).isNull();
+
+        DiningTable added = table(4L, "C1", 8, DiningTableStatus.OPEN);
+        index.tableSaved(added);
+        assertThat(ids(index.findAvailableTables(8, tomorrowNoon, tomorrowNoon.plusHours(2)))).containsExactly(4L);
+    }
+
+    @Test
+    void rangesOutsideTheWindowAreLeftToTheDatabase() {
+        LocalDateTime yesterday = LocalDate.now().minusDays(1).atTime(12, 0);
+        LocalDateTime nextMonth = LocalDate.now().plusDays(30).atTime(12, 0);
+
+        assertThat(index.findAvailableTables(4, yesterday, yesterday.plusHours(2))).isNull();
+        assertThat(index.findAvailableTables(4, nextMonth, nextMonth.plusHours(2))).isNull();
+        assertThat(index.isBooked(1L, nextMonth, nextMonth.plusHours(2))).isNull();
+    }
+
+    @Test
+    void freeTablesAreCountedPerCapacityForEverySlot() {
+        List<LocalDateTime> starts = List.of(tomorrowNoon.minusHours(2), tomorrowNoon.plusHours(1), tomorrowNoon.plusHours(2));
+        long before = index.version();
+
+        assertThat(index.countFreeTables(starts, 2, List.of(2, 4, 8, 10))).containsExactly(
+                Map.of(2, 1, 4, 2, 8, 0, 10, 0),
+                Map.of(2, 1, 4, 1, 8, 0, 10, 0),
+                Map.of(2, 1, 4, 2, 8, 0, 10, 0));
+
+        index.reservationSaved(reservation(11L, bar, tomorrowNoon.plusHours(2), ReservationStatus.CONFIRMED));
+        assertThat(index.version()).isGreaterThan(before);
+        assertThat(index.countFreeTables(starts, 2, List.of(2, 4)).get(2)).isEqualTo(Map.of(2, 0, 4, 2));
+
+        // Beyond the window the same counts come from a snapshot loaded from the database
+        LocalDateTime nextMonth = LocalDate.now().plusDays(30).atTime(12, 0);
+        assertThat(index.countFreeTables(List.of(nextMonth), 2, List.of(2, 4))).containsExactly(Map.of(2, 1, 4, 2));
+    }
+
+    private static List<Long> ids(List<DiningTableDto> tables) {
+        return tables.stream().map(DiningTableDto::getId).toList();
+    }
+
+    private static DiningTable table(Long id, String name, int capacity, DiningTableStatus status) {
+        return DiningTable.builder()
+                .id(id)
+                .name(name)
+                .floor("1")
+                .capacity(capacity)
+                .status(status)
+                .build();
+    }
+
+    private static Reservation reservation(Long id, DiningTable table, LocalDateTime start, ReservationStatus status) {
+        return Reservation.builder()
+                .id(id)
+                .diningTable(table)
+                .status(status)
+                .phone("0900000000")
+                .numberOfGuests(4)
+                .startTime(start)
+                .endTime(start.plusHours(2))
+                .build();
+    }
+}
@@ -0,0 +1,138 @@
+package com.josephken.roors.reservation.service;
+
+import com.josephken.roors.auth.entity.User;
+import com.josephken.roors.auth.repository.UserRepository;
+import com.josephken.roors.common.util.TestUsers;
+import com.josephken.roors.reservation.dto.AssignReservationDto;
+import com.josephken.roors.reservation.dto.CreateDiningTableDto;
+import com.josephken.roors.reservation.dto.DiningTableDto;
+import com.josephken.roors.reservation.dto.JoinWaitlistDto;
+import com.josephken.roors.reservation.dto.ReservationDto;
+import com.josephken.roors.reservation.dto.UpdateDiningTableDto;
+import com.josephken.roors.reservation.dto.WaitlistEntryDto;
+import com.josephken.roors.reservation.entity.DiningTableStatus;
+import com.josephken.roors.reservation.entity.ReservationStatus;
+import com.josephken.roors.reservation.entity.WaitlistEntry;
+import com.josephken.roors.reservation.entity.WaitlistStatus;
+import com.josephken.roors.reservation.repository.ReservationRepository;
+import com.josephken.roors.reservation.repository.WaitlistEntryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Not transactional: promotion runs once the cancellation commits. Parties of ten only fit
+ * ten-seaters, which no other test creates, and each test closes its own afterwards.
+ */
+@SpringBootTest
+class WaitlistServiceTests {
+    @MockitoBean
+    private JavaMailSender javaMailSender;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private ReservationTableService reservationTableService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final LocalDateTime slot = LocalDate.now().plusDays(3).atTime(12, 0);
+    private DiningTableDto table;
+    private List<User> users;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        table = reservationTableService.createDiningTable(
+                new CreateDiningTableDto("Banquet " + suffix, "2", 10, DiningTableStatus.OPEN));
+
+        users = TestUsers.saveAll(userRepository, "waiting-" + suffix, 3);
+    }
+
+    @AfterEach
+    void closeTable() {
+        // Otherwise the next test's slots would not be full
+        reservationTableService.updateDiningTable(table.getId(),
+                new UpdateDiningTableDto(null, null, null, DiningTableStatus.CLOSED));
+    }
+
+    @Test
+    void releasedTablesGoToTheEarliestWaitingParty() {
+        ReservationDto booked = reservationTableService.createAssignedReservation(users.get(0).getId(),
+                new AssignReservationDto("0900000000", 10, slot, null));
+
+        WaitlistEntryDto first = waitlistService.joinWaitlist(users.get(1).getId(), join(slot));
+        // Overlaps the booked slot by an hour, so it waits for the same table
+        WaitlistEntryDto second = waitlistService.joinWaitlist(users.get(2).getId(), join(slot.plusHours(1)));
+
+        assertThatThrownBy(() -> waitlistService.joinWaitlist(users.get(1).getId(), join(slot)))
+                .isInstanceOf(IllegalArgumentException.class);
+        // Free three hours later: book it instead
+        assertThatThrownBy(() -> waitlistService.joinWaitlist(users.get(1).getId(), join(slot.plusHours(3))))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        reservationTableService.cancelReservation(users.get(0).getId(), booked.getId());
+
+        WaitlistEntry promoted = waitlistEntryRepository.findById(first.getId()).orElseThrow();
+        assertThat(promoted.getStatus()).isEqualTo(WaitlistStatus.PROMOTED);
+        assertThat(reservationRepository.findById(promoted.getReservationId()).orElseThrow())
+                .satisfies(reservation -> {
+                    assertThat(reservation.getStatus()).isEqualTo(ReservationStatus.CONFIRMED);
+                    assertThat(reservation.getDiningTable().getId()).isEqualTo(table.getId());
+                    assertThat(reservation.getStartTime()).isEqualTo(slot);
+                });
+        assertThat(waitlistEntryRepository.findById(second.getId()).orElseThrow().getStatus())
+                .isEqualTo(WaitlistStatus.WAITING);
+
+        // Deleting the promoted booking moves the next party up
+        reservationTableService.deleteReservation(promoted.getReservationId());
+
+        WaitlistEntry next = waitlistEntryRepository.findById(second.getId()).orElseThrow();
+        assertThat(next.getStatus()).isEqualTo(WaitlistStatus.PROMOTED);
+        assertThat(reservationRepository.findById(next.getReservationId()).orElseThrow().getStartTime())
+                .isEqualTo(slot.plusHours(1));
+    }
+
+    @Test
+    void cancelledEntriesAreNotPromoted() {
+        ReservationDto booked = reservationTableService.createAssignedReservation(users.get(0).getId(),
+                new AssignReservationDto("0900000000", 10, slot.plusHours(4), null));
+        WaitlistEntryDto entry = waitlistService.joinWaitlist(users.get(1).getId(), join(slot.plusHours(4)));
+
+        assertThatThrownBy(() -> waitlistService.cancelWaitlistEntry(users.get(2).getId(), entry.getId()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(waitlistService.cancelWaitlistEntry(users.get(1).getId(), entry.getId()).getStatus())
+                .isEqualTo(WaitlistStatus.CANCELLED);
+
+        reservationTableService.cancelReservation(users.get(0).getId(), booked.getId());
+
+        assertThat(waitlistEntryRepository.findById(entry.getId()).orElseThrow().getReservationId()).isNull();
+        assertThat(waitlistService.getWaitlistEntriesByUserId(users.get(1).getId()))
+                .extracting(WaitlistEntryDto::getStatus)
+                .containsExactly(WaitlistStatus.CANCELLED);
+    }
+
+    private static JoinWaitlistDto join(LocalDateTime start) {
+        return new JoinWaitlistDto("0911111111", 10, start, null);
+    }
+}